@@ -9,11 +9,34 @@ repositories {
     mavenCentral()
 }
 
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// Runs the benchmarks in src/jmh, writing the results to build/reports/jmh
+// as JSON. Extra JMH options can be passed with -PjmhArgs="...", for example
+// -PjmhArgs="Pipeline.lex -p workload=recursion".
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks."
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    args("-rf", "json", "-rff", results.absolutePath)
+    (project.findProperty("jmhArgs") as String?)?.let { args(it.split(" ").filter(String::isNotBlank)) }
+    doFirst {
+        results.parentFile.mkdirs()
+    }
+}
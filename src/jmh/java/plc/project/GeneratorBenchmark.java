@@ -0,0 +1,144 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the {@link Generator} on a source of many
+ * small methods, writing to a {@link PrintWriter} and to a
+ * {@link ChannelWriter} on a channel which discards its input, with and
+ * without rendering methods in parallel.
+ *
+ * Besides sources per second, the {@code bytes} counter reports the bytes
+ * of emitted Java per second (divide by 10^6 for MB/s).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"1000", "10000"})
+    public int methods;
+
+    private Ast.Source ast;
+    private long size;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ast = source(methods);
+        StringWriter writer = new StringWriter();
+        new Generator(writer).visit(ast);
+        size = writer.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public Writer printWriter(Bytes bytes) {
+        Writer writer = new PrintWriter(Writer.nullWriter());
+        new Generator(writer).visit(ast);
+        bytes.bytes += size;
+        return writer;
+    }
+
+    @Benchmark
+    public Writer channelWriter(Bytes bytes) throws IOException {
+        return channel(bytes, null);
+    }
+
+    @Benchmark
+    public Writer channelWriterParallel(Bytes bytes) throws IOException {
+        return channel(bytes, ForkJoinPool.commonPool());
+    }
+
+    private Writer channel(Bytes bytes, ForkJoinPool pool) throws IOException {
+        try(Writer writer = new ChannelWriter(new NullChannel())){
+            new Generator(writer, Generator.Arithmetic.WRAPPING, pool).visit(ast);
+            bytes.bytes += size;
+            return writer;
+        }
+    }
+
+    /**
+     * Counts the bytes of Java emitted, reported by JMH as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+
+    }
+
+    /**
+     * Returns an analyzed source with the given number of small methods.
+     */
+    static Ast.Source source(int methods) {
+        StringBuilder builder = new StringBuilder("LET total: Integer = 0;\n");
+        for(int i = 0; i < methods; i++){
+            builder.append("DEF f").append(i).append("(n: Integer): Integer DO\n")
+                    .append("    LET i: Integer = 0;\n")
+                    .append("    WHILE i < n DO\n")
+                    .append("        IF i > ").append(i % 7).append(" DO total = total + i * 2; ELSE print(\"skip\"); END\n")
+                    .append("        i = i + 1;\n")
+                    .append("    END\n")
+                    .append("    RETURN total;\n")
+                    .append("END\n");
+        }
+        builder.append("DEF main(): Integer DO RETURN 0; END");
+        Ast.Source ast = new Parser(new Lexer(builder.toString()).lex()).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(ast);
+        return ast;
+    }
+
+    private static final class NullChannel implements WritableByteChannel {
+
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int remaining = source.remaining();
+            source.position(source.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each stage of the pipeline on synthetic programs, from lexing
+ * the source to running or compiling the analyzed tree. Each stage starts
+ * from the output of the previous ones, prepared once per trial.
+ *
+ * The workloads stress different parts of the implementations, scaled by
+ * the size parameter:
+ *
+ * <ul>
+ *     <li>{@code expression}: a single, deeply nested expression.</li>
+ *     <li>{@code statements}: one long method of declarations and
+ *     assignments.</li>
+ *     <li>{@code methods}: many small methods, each called by main.</li>
+ *     <li>{@code recursion}: a recursive method called many times.</li>
+ *     <li>{@code generated}: a random portable program of {@code size}
+ *     methods from the {@link WorkloadGenerator}.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"expression", "statements", "methods", "recursion", "generated"})
+    public String workload;
+
+    @Param({"10", "100"})
+    public int size;
+
+    private String source;
+    private List<Token> tokens;
+    private Ast.Source parsed;
+    private Ast.Source analyzed;
+    private byte[] serialized;
+    private Bytecode bytecode;
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        source = source(workload, size);
+        tokens = new Lexer(source).lex();
+        parsed = new Parser(tokens).parseSource();
+        analyzed = new Parser(tokens).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(analyzed);
+        serialized = AstSerializer.serialize(analyzed);
+        bytecode = new BytecodeCompiler().compile(analyzed);
+        // The virtual machine always prints to standard output.
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public List<Token> lex() {
+        return new Lexer(source).lex();
+    }
+
+    @Benchmark
+    public Ast.Source parse() {
+        return new Parser(tokens).parseSource();
+    }
+
+    /**
+     * Reads the analyzed tree serialized by the {@link AstSerializer}, which
+     * replaces {@link #lex()}, {@link #parse()} and {@link #analyze()}.
+     */
+    @Benchmark
+    public Ast.Source deserialize() {
+        return AstSerializer.deserialize(ByteBuffer.wrap(serialized), Ast.Source.class);
+    }
+
+    @Benchmark
+    public Analyzer analyze() {
+        Analyzer analyzer = new Analyzer(new plc.project.Scope(null));
+        analyzer.visit(parsed);
+        return analyzer;
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpret() {
+        return new Interpreter(new plc.project.Scope(null), value -> {}).visit(analyzed);
+    }
+
+    /**
+     * Runs the compiled program on the {@link VirtualMachine}, for comparison
+     * with {@link #interpret()} (the {@code recursion} workload is
+     * {@code fib(20)} at size 100).
+     */
+    @Benchmark
+    public Environment.PlcObject vm() {
+        return new VirtualMachine(bytecode, new plc.project.Scope(null)).run();
+    }
+
+    @Benchmark
+    public Writer generate() {
+        Writer writer = Writer.nullWriter();
+        new Generator(writer).visit(analyzed);
+        return writer;
+    }
+
+    static String source(String workload, int size) {
+        StringBuilder builder = new StringBuilder();
+        switch(workload){
+            case "expression" -> {
+                builder.append("DEF main(): Integer DO RETURN ");
+                builder.append("(".repeat(size)).append("1");
+                for(int i = 0; i < size; i++){
+                    builder.append(i % 2 == 0 ? " + " : " * ").append(i % 7 + 1).append(")");
+                }
+                builder.append("; END");
+            }
+            case "statements" -> {
+                builder.append("DEF main(): Integer DO\n    LET total: Integer = 0;\n");
+                for(int i = 0; i < size; i++){
+                    builder.append("    LET x").append(i).append(": Integer = total + ").append(i).append(";\n");
+                    builder.append("    IF x").append(i).append(" > ").append(i).append(" DO total = total - 1; ELSE total = total + x").append(i).append("; END\n");
+                }
+                builder.append("    RETURN total;\nEND");
+            }
+            case "methods" -> {
+                builder.append("LET total: Integer = 0;\n");
+                for(int i = 0; i < size; i++){
+                    builder.append("DEF f").append(i).append("(n: Integer): Integer DO total = total + n * ").append(i).append("; RETURN total; END\n");
+                }
+                builder.append("DEF main(): Integer DO\n");
+                for(int i = 0; i < size; i++){
+                    builder.append("    f").append(i).append("(").append(i).append(");\n");
+                }
+                builder.append("    RETURN total;\nEND");
+            }
+            case "recursion" -> builder
+                    .append("DEF fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END\n")
+                    .append("DEF main(): Integer DO RETURN fib(").append(10 + size / 10).append("); END");
+            case "generated" -> builder.append(new WorkloadGenerator(size, size, true).generate());
+            default -> throw new IllegalArgumentException("Unknown workload " + workload + ".");
+        }
+        return builder.toString();
+    }
+
+}
@@ -5,9 +5,13 @@ import java.lang.reflect.Parameter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * See the specification for information about what the different visit
@@ -16,10 +20,42 @@ import java.util.stream.Collectors;
 public final class Analyzer implements Ast.Visitor<Void> {
     public Scope scope;
     private Ast.Method method;
+    private final ForkJoinPool pool;
+    /**
+     * When analyzing a method body in parallel, the scope the methods are
+     * defined in and the position of each method and of the method being
+     * analyzed, since methods declared after it are not visible yet.
+     */
+    private final Scope methods;
+    private final Map<Environment.Function, Integer> order;
+    private final int index;
 
     public Analyzer(Scope parent) {
+        this(parent, null);
+    }
+
+    /**
+     * Creates an analyzer which, given a pool, declares all methods of a
+     * source first and then analyzes their bodies concurrently on the pool.
+     * Each body gets its own analyzer and scopes, while the scope with the
+     * fields and methods is only read. Programs are accepted or rejected
+     * (with the same error) exactly as when analyzing sequentially.
+     */
+    public Analyzer(Scope parent, ForkJoinPool pool) {
         scope = new Scope(parent);
         scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
+        this.pool = pool;
+        this.methods = scope;
+        this.order = null;
+        this.index = -1;
+    }
+
+    private Analyzer(Scope scope, Map<Environment.Function, Integer> order, int index) {
+        this.scope = scope;
+        this.pool = null;
+        this.methods = scope;
+        this.order = order;
+        this.index = index;
     }
 
     public Scope getScope() {
@@ -29,7 +65,11 @@ public final class Analyzer implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Source ast) {
         ast.getFields().forEach(this::visit);
-        ast.getMethods().forEach(this::visit);
+        if (pool == null) {
+            ast.getMethods().forEach(this::visit);
+        } else {
+            visitParallel(ast.getMethods());
+        }
 
         boolean found = false;
         for (Ast.Method method : ast.getMethods()) {
@@ -65,8 +105,51 @@ public final class Analyzer implements Ast.Visitor<Void> {
         return null;
     }
 
+    /**
+     * Declares the signatures of all methods in order, then analyzes the
+     * bodies concurrently. Errors are reported in the order they would occur
+     * sequentially: the first failing body, unless a declaration before it
+     * failed.
+     */
+    private void visitParallel(List<Ast.Method> methods) {
+        Map<Environment.Function, Integer> order = new IdentityHashMap<>();
+        RuntimeException declarationError = null;
+        int declared = methods.size();
+        for (int i = 0; i < methods.size(); i++) {
+            try {
+                order.put(declare(methods.get(i)), i);
+            } catch (RuntimeException e) {
+                declarationError = e;
+                declared = i;
+                break;
+            }
+        }
+        int count = declared;
+        List<RuntimeException> errors = pool.submit(() -> IntStream.range(0, count).parallel().mapToObj(i -> {
+            try {
+                new Analyzer(scope, order, i).body(methods.get(i));
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        }).toList()).join();
+        for (RuntimeException error : errors) {
+            if (error != null) throw error;
+        }
+        if (declarationError != null) throw declarationError;
+    }
+
     @Override
     public Void visit(Ast.Method ast) {
+        declare(ast);
+        body(ast);
+        return null;
+    }
+
+    /**
+     * Defines the function of the method and annotates the method with it.
+     */
+    private Environment.Function declare(Ast.Method ast) {
         List<Environment.Type> paramTypes = ast.getParameters().stream()
                 .map(param ->{
                     try{
@@ -98,7 +181,11 @@ public final class Analyzer implements Ast.Visitor<Void> {
         Environment.Function function = scope.lookupFunction(ast.getName(), paramTypes.size());
 
         ast.setFunction(function);
+        return function;
+    }
 
+    private void body(Ast.Method ast) {
+        List<Environment.Type> paramTypes = ast.getFunction().getParameterTypes();
         this.method = ast;
         Scope methodScope = new Scope(this.scope);
 
@@ -120,7 +207,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
             visit(this.method.getStatements().get(i));
         }
         this.scope = prev;
-        return null;
     }
 
     @Override
@@ -401,7 +487,17 @@ public final class Analyzer implements Ast.Visitor<Void> {
             } catch (RuntimeException e) {
                 throw new RuntimeException("Function not found in the receiver's type.");
             }
-        } else function = scope.lookupFunction(ast.getName(), ast.getArguments().size());
+        } else {
+            function = scope.lookupFunction(ast.getName(), ast.getArguments().size());
+            if (order != null && order.getOrDefault(function, -1) > index) {
+                // Declared after the current method, so sequentially it would
+                // resolve outside of the methods, if at all.
+                if (methods.getParent() == null) {
+                    throw new RuntimeException("The function " + ast.getName() + "/" + ast.getArguments().size() + " is not defined in this scope.");
+                }
+                function = methods.getParent().lookupFunction(ast.getName(), ast.getArguments().size());
+            }
+        }
 
         List<Environment.Type> types = function.getParameterTypes();
         for (int i = 0; i < ast.getArguments().size(); i++) {
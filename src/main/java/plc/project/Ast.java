@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * See each project assignment specification for specific notes on the AST classes
@@ -11,6 +12,18 @@ import java.util.Optional;
  */
 public abstract class Ast {
 
+    /**
+     * Returns the annotation returned by the getter, such as the type of an
+     * expression, or {@code null} if the node has not been analyzed.
+     */
+    static <T> T annotation(Supplier<T> getter) {
+        try{
+            return getter.get();
+        }catch(IllegalStateException e){
+            return null;
+        }
+    }
+
     public static final class Source extends Ast {
 
         private final List<Field> fields;
@@ -602,6 +615,7 @@ public abstract class Ast {
             private final Ast.Expression left;
             private final Ast.Expression right;
             private Environment.Type type = null;
+            private Operators.Comparison comparison = null;
 
             public Binary(String operator, Ast.Expression left, Ast.Expression right) {
                 this.operator = operator;
@@ -631,6 +645,22 @@ public abstract class Ast {
 
             public void setType(Environment.Type type) {
                 this.type = type;
+                this.comparison = null;
+            }
+
+            /**
+             * Returns the comparison for the operands of a relational operator,
+             * selected from the type of the left operand once this expression
+             * has been analyzed (and generic until then).
+             */
+            Operators.Comparison getComparison() {
+                if(type == null){
+                    return Operators.Comparison.GENERIC;
+                }
+                if(comparison == null){
+                    comparison = Operators.Comparison.of(left.getType());
+                }
+                return comparison;
             }
 
             @Override
@@ -0,0 +1,233 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Base class for optimization passes, which rebuilds the tree bottom up.
+ * Passes override the visit methods of the nodes they transform and call
+ * {@code super} (or {@link #rewrite(Ast)}) to rewrite children.
+ *
+ * Annotations set by the {@link Analyzer} are copied to the rebuilt nodes, so
+ * the result can still be given to the {@link Generator}. Unanalyzed trees are
+ * supported as well, since the {@link Interpreter} doesn't require them.
+ */
+public abstract class AstRewriter implements Ast.Visitor<Ast> {
+
+    @SuppressWarnings("unchecked")
+    public <T extends Ast> T rewrite(T ast) {
+        return (T) visit(ast);
+    }
+
+    protected <T extends Ast> Optional<T> rewrite(Optional<T> ast) {
+        return ast.map(this::rewrite);
+    }
+
+    /**
+     * Rewrites a list of statements. Passes which remove or insert statements
+     * override {@link #rewriteStatement(Ast.Statement, List)}.
+     */
+    protected List<Ast.Statement> rewriteStatements(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = new ArrayList<>();
+        for(Ast.Statement statement : statements){
+            rewriteStatement(statement, rewritten);
+        }
+        return rewritten;
+    }
+
+    /**
+     * Appends the rewritten form of the statement, which may be any number of
+     * statements, to the list.
+     */
+    protected void rewriteStatement(Ast.Statement statement, List<Ast.Statement> rewritten) {
+        rewritten.add(rewrite(statement));
+    }
+
+    /**
+     * Rewrites the statement like {@link #rewriteStatement(Ast.Statement, List)},
+     * but replaces an {@code IF} whose rewritten condition is a literal by the
+     * branch that is taken. The branch is spliced into the enclosing block
+     * unless it declares variables, which must stay in their own scope (as
+     * the then branch of an {@code IF TRUE}).
+     */
+    protected final void rewriteSelectingBranch(Ast.Statement statement, List<Ast.Statement> rewritten) {
+        Ast.Statement ast = rewrite(statement);
+        if(!(ast instanceof Ast.Statement.If ifStatement) || !(ifStatement.getCondition() instanceof Ast.Expression.Literal literal) || !(literal.getLiteral() instanceof Boolean condition)){
+            rewritten.add(ast);
+            return;
+        }
+        List<Ast.Statement> branch = condition ? ifStatement.getThenStatements() : ifStatement.getElseStatements();
+        if(branch.stream().noneMatch(s -> s instanceof Ast.Statement.Declaration)){
+            rewritten.addAll(branch);
+        }else{
+            // The condition may be FALSE, so the kept branch needs its own.
+            Ast.Expression.Literal taken = new Ast.Expression.Literal(true);
+            if(Ast.annotation(literal::getType) != null){
+                taken.setType(Environment.Type.BOOLEAN);
+            }
+            rewritten.add(new Ast.Statement.If(taken, branch, List.of()));
+        }
+    }
+
+    protected List<Ast.Expression> rewriteExpressions(List<Ast.Expression> expressions) {
+        List<Ast.Expression> rewritten = new ArrayList<>();
+        for(Ast.Expression expression : expressions){
+            rewritten.add(rewrite(expression));
+        }
+        return rewritten;
+    }
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        List<Ast.Field> fields = new ArrayList<>();
+        for(Ast.Field field : ast.getFields()){
+            fields.add(rewrite(field));
+        }
+        List<Ast.Method> methods = new ArrayList<>();
+        for(Ast.Method method : ast.getMethods()){
+            methods.add(rewrite(method));
+        }
+        return new Ast.Source(fields, methods);
+    }
+
+    @Override
+    public Ast visit(Ast.Field ast) {
+        Ast.Field field = new Ast.Field(ast.getName(), ast.getTypeName(), ast.getConstant(), rewrite(ast.getValue()));
+        copyVariable(ast::getVariable, field::setVariable);
+        return field;
+    }
+
+    @Override
+    public Ast visit(Ast.Method ast) {
+        Ast.Method method = new Ast.Method(ast.getName(), ast.getParameters(), ast.getParameterTypeNames(), ast.getReturnTypeName(), rewriteStatements(ast.getStatements()));
+        Environment.Function function = Ast.annotation(ast::getFunction);
+        if(function != null){
+            method.setFunction(function);
+        }
+        return method;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Expression ast) {
+        return new Ast.Statement.Expression(rewrite(ast.getExpression()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Declaration ast) {
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(ast.getName(), ast.getTypeName(), rewrite(ast.getValue()));
+        copyVariable(ast::getVariable, declaration::setVariable);
+        return declaration;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Assignment ast) {
+        return new Ast.Statement.Assignment(rewrite(ast.getReceiver()), rewrite(ast.getValue()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.If ast) {
+        return new Ast.Statement.If(rewrite(ast.getCondition()), rewriteStatements(ast.getThenStatements()), rewriteStatements(ast.getElseStatements()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.For ast) {
+        return new Ast.Statement.For(
+                ast.getInitialization() == null ? null : rewrite(ast.getInitialization()),
+                rewrite(ast.getCondition()),
+                ast.getIncrement() == null ? null : rewrite(ast.getIncrement()),
+                rewriteStatements(ast.getStatements())
+        );
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.While ast) {
+        return new Ast.Statement.While(rewrite(ast.getCondition()), rewriteStatements(ast.getStatements()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Return ast) {
+        return new Ast.Statement.Return(rewrite(ast.getValue()));
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Literal ast) {
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(ast.getLiteral());
+        literal.setType(Ast.annotation(ast::getType));
+        return literal;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression.Group group = new Ast.Expression.Group(rewrite(ast.getExpression()));
+        group.setType(Ast.annotation(ast::getType));
+        return group;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression.Binary binary = new Ast.Expression.Binary(ast.getOperator(), rewrite(ast.getLeft()), rewrite(ast.getRight()));
+        binary.setType(Ast.annotation(ast::getType));
+        return binary;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Access ast) {
+        Ast.Expression.Access access = new Ast.Expression.Access(rewrite(ast.getReceiver()), ast.getName());
+        copyVariable(ast::getVariable, access::setVariable);
+        return access;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Function ast) {
+        Ast.Expression.Function function = new Ast.Expression.Function(rewrite(ast.getReceiver()), ast.getName(), rewriteExpressions(ast.getArguments()));
+        Environment.Function annotation = Ast.annotation(ast::getFunction);
+        if(annotation != null){
+            function.setFunction(annotation);
+        }
+        return function;
+    }
+
+    /**
+     * Returns whether the expression is an {@code AND} or {@code OR}, whose
+     * right operand is only evaluated depending on the left one.
+     */
+    protected static boolean isShortCircuit(Ast.Expression ast) {
+        return ast instanceof Ast.Expression.Binary binary && switch(binary.getOperator()){
+            case "AND", "OR", "&&", "||" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns the type of the expression if it is known, either from the
+     * analyzer or from the value of a literal, or {@code null} otherwise.
+     */
+    protected static Environment.Type typeOf(Ast.Expression ast) {
+        Environment.Type type = Ast.annotation(ast::getType);
+        if(type == null && ast instanceof Ast.Expression.Literal literal){
+            Object value = literal.getLiteral();
+            if(value instanceof Boolean){
+                return Environment.Type.BOOLEAN;
+            }else if(value instanceof java.math.BigInteger){
+                return Environment.Type.INTEGER;
+            }else if(value instanceof java.math.BigDecimal){
+                return Environment.Type.DECIMAL;
+            }else if(value instanceof Character){
+                return Environment.Type.CHARACTER;
+            }else if(value instanceof String){
+                return Environment.Type.STRING;
+            }
+            return value == null ? Environment.Type.NIL : null;
+        }
+        return type;
+    }
+
+    private static void copyVariable(java.util.function.Supplier<Environment.Variable> getter, java.util.function.Consumer<Environment.Variable> setter) {
+        Environment.Variable variable = Ast.annotation(getter);
+        if(variable != null){
+            setter.accept(variable);
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package plc.project;
+
+/**
+ * Base class for analyses which walk a tree without changing it. Every visit
+ * method visits the node's children in evaluation order; subclasses override
+ * the nodes they are interested in and call {@code super} to keep walking.
+ */
+public abstract class AstScanner implements Ast.Visitor<Void> {
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        ast.getFields().forEach(this::visit);
+        ast.getMethods().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Field ast) {
+        ast.getValue().ifPresent(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Method ast) {
+        ast.getStatements().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Expression ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Declaration ast) {
+        ast.getValue().ifPresent(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Assignment ast) {
+        visit(ast.getValue());
+        visit(ast.getReceiver());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.If ast) {
+        visit(ast.getCondition());
+        ast.getThenStatements().forEach(this::visit);
+        ast.getElseStatements().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.For ast) {
+        if(ast.getInitialization() != null){
+            visit(ast.getInitialization());
+        }
+        visit(ast.getCondition());
+        ast.getStatements().forEach(this::visit);
+        if(ast.getIncrement() != null){
+            visit(ast.getIncrement());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.While ast) {
+        visit(ast.getCondition());
+        ast.getStatements().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Return ast) {
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Literal ast) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Group ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Binary ast) {
+        visit(ast.getLeft());
+        visit(ast.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Access ast) {
+        ast.getReceiver().ifPresent(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Function ast) {
+        ast.getArguments().forEach(this::visit);
+        ast.getReceiver().ifPresent(this::visit);
+        return null;
+    }
+
+}
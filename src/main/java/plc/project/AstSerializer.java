@@ -0,0 +1,544 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serializes {@link Ast} trees, including the annotations set by the
+ * {@link Analyzer}, into a dense binary format so pre-parsed (and
+ * pre-analyzed) programs can be loaded without the lexer and parser.
+ *
+ * The format starts with a header and a table of all strings used by the
+ * tree, followed by tables of the resolved variables and functions and then
+ * the nodes in prefix order. Nodes are a one byte kind (with {@code 0} for
+ * absent optional nodes) followed by their children; strings, variables and
+ * functions are referenced by their index in the tables, encoded as variable
+ * length integers. Each variable or function is written once, so nodes which
+ * resolved to the same one still share it after deserialization. Since
+ * functions can't be serialized, deserialized ones return NIL when invoked,
+ * like those defined by the analyzer.
+ */
+public final class AstSerializer {
+
+    /**
+     * Incremented whenever the format changes.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x504C4341; // "PLCA"
+
+    private static final byte ABSENT = 0, SOURCE = 1, FIELD = 2, METHOD = 3,
+            EXPRESSION_STATEMENT = 4, DECLARATION = 5, ASSIGNMENT = 6, IF = 7, FOR = 8, WHILE = 9, RETURN = 10,
+            LITERAL = 11, GROUP = 12, BINARY = 13, ACCESS = 14, FUNCTION = 15;
+
+    private static final byte NIL = 0, TRUE = 1, FALSE = 2, INTEGER = 3, DECIMAL = 4, CHARACTER = 5, STRING = 6;
+
+    private AstSerializer() {}
+
+    public static byte[] serialize(Ast ast) {
+        return new Writer().write(ast);
+    }
+
+    /**
+     * Reads a tree written by {@link #serialize(Ast)}, starting at the
+     * buffer's current position.
+     */
+    public static Ast deserialize(ByteBuffer buffer) {
+        return new Reader(buffer).read();
+    }
+
+    public static <T extends Ast> T deserialize(ByteBuffer buffer, Class<T> type) {
+        return type.cast(deserialize(buffer));
+    }
+
+    private static final class Writer implements Ast.Visitor<Void> {
+
+        private final Output body = new Output();
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final Map<Environment.Variable, Integer> variables = new IdentityHashMap<>();
+        private final Map<Environment.Function, Integer> functions = new IdentityHashMap<>();
+
+        private byte[] write(Ast ast) {
+            visit(ast);
+            Output tables = new Output();
+            Environment.Variable[] variableTable = new Environment.Variable[variables.size()];
+            variables.forEach((variable, index) -> variableTable[index] = variable);
+            tables.writeInt(variableTable.length);
+            for(Environment.Variable variable : variableTable){
+                tables.writeInt(string(variable.getName()));
+                tables.writeInt(string(variable.getJvmName()));
+                tables.writeInt(type(variable.getType()));
+                tables.write(variable.getConstant() ? 1 : 0);
+            }
+            Environment.Function[] functionTable = new Environment.Function[functions.size()];
+            functions.forEach((function, index) -> functionTable[index] = function);
+            tables.writeInt(functionTable.length);
+            for(Environment.Function function : functionTable){
+                tables.writeInt(string(function.getName()));
+                tables.writeInt(string(function.getJvmName()));
+                tables.writeInt(function.getParameterTypes().size());
+                for(Environment.Type type : function.getParameterTypes()){
+                    tables.writeInt(type(type));
+                }
+                tables.writeInt(type(function.getReturnType()));
+            }
+
+            Output output = new Output();
+            ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES).putInt(MAGIC).putInt(VERSION);
+            output.write(header.array(), 0, header.capacity());
+            output.writeInt(strings.size());
+            for(String string : strings.keySet()){
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes, 0, bytes.length);
+            }
+            output.write(tables.bytes, 0, tables.length);
+            output.write(body.bytes, 0, body.length);
+            return Arrays.copyOf(output.bytes, output.length);
+        }
+
+        @Override
+        public Void visit(Ast.Source ast) {
+            body.write(SOURCE);
+            nodes(ast.getFields());
+            nodes(ast.getMethods());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Field ast) {
+            body.write(FIELD);
+            body.writeInt(string(ast.getName()));
+            body.writeInt(string(ast.getTypeName()));
+            body.write(ast.getConstant() ? 1 : 0);
+            node(ast.getValue().orElse(null));
+            body.writeInt(variable(Ast.annotation(ast::getVariable)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Method ast) {
+            body.write(METHOD);
+            body.writeInt(string(ast.getName()));
+            body.writeInt(ast.getParameters().size());
+            for(int i = 0; i < ast.getParameters().size(); i++){
+                body.writeInt(string(ast.getParameters().get(i)));
+                body.writeInt(string(ast.getParameterTypeNames().get(i)));
+            }
+            body.writeInt(string(ast.getReturnTypeName().orElse(null)));
+            nodes(ast.getStatements());
+            body.writeInt(function(Ast.annotation(ast::getFunction)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Expression ast) {
+            body.write(EXPRESSION_STATEMENT);
+            node(ast.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Declaration ast) {
+            body.write(DECLARATION);
+            body.writeInt(string(ast.getName()));
+            body.writeInt(string(ast.getTypeName().orElse(null)));
+            node(ast.getValue().orElse(null));
+            body.writeInt(variable(Ast.annotation(ast::getVariable)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Assignment ast) {
+            body.write(ASSIGNMENT);
+            node(ast.getReceiver());
+            node(ast.getValue());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.If ast) {
+            body.write(IF);
+            node(ast.getCondition());
+            nodes(ast.getThenStatements());
+            nodes(ast.getElseStatements());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.For ast) {
+            body.write(FOR);
+            node(ast.getInitialization());
+            node(ast.getCondition());
+            node(ast.getIncrement());
+            nodes(ast.getStatements());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.While ast) {
+            body.write(WHILE);
+            node(ast.getCondition());
+            nodes(ast.getStatements());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Return ast) {
+            body.write(RETURN);
+            node(ast.getValue());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Literal ast) {
+            body.write(LITERAL);
+            Object literal = ast.getLiteral();
+            if(literal == null){
+                body.write(NIL);
+            }else if(literal instanceof Boolean value){
+                body.write(value ? TRUE : FALSE);
+            }else if(literal instanceof BigInteger value){
+                body.write(INTEGER);
+                byte[] bytes = value.toByteArray();
+                body.writeInt(bytes.length);
+                body.write(bytes, 0, bytes.length);
+            }else if(literal instanceof BigDecimal value){
+                body.write(DECIMAL);
+                byte[] bytes = value.unscaledValue().toByteArray();
+                body.writeInt(bytes.length);
+                body.write(bytes, 0, bytes.length);
+                body.writeInt(value.scale());
+            }else if(literal instanceof Character value){
+                body.write(CHARACTER);
+                body.writeInt(value);
+            }else if(literal instanceof String value){
+                body.write(STRING);
+                body.writeInt(string(value));
+            }else{
+                throw new IllegalArgumentException("Unsupported literal " + literal + ".");
+            }
+            body.writeInt(type(Ast.annotation(ast::getType)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Group ast) {
+            body.write(GROUP);
+            node(ast.getExpression());
+            body.writeInt(type(Ast.annotation(ast::getType)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Binary ast) {
+            body.write(BINARY);
+            body.writeInt(string(ast.getOperator()));
+            node(ast.getLeft());
+            node(ast.getRight());
+            body.writeInt(type(Ast.annotation(ast::getType)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Access ast) {
+            body.write(ACCESS);
+            node(ast.getReceiver().orElse(null));
+            body.writeInt(string(ast.getName()));
+            body.writeInt(variable(Ast.annotation(ast::getVariable)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Function ast) {
+            body.write(FUNCTION);
+            node(ast.getReceiver().orElse(null));
+            body.writeInt(string(ast.getName()));
+            nodes(ast.getArguments());
+            body.writeInt(function(Ast.annotation(ast::getFunction)));
+            return null;
+        }
+
+        private void node(Ast ast) {
+            if(ast == null){
+                body.write(ABSENT);
+            }else{
+                visit(ast);
+            }
+        }
+
+        private void nodes(List<? extends Ast> asts) {
+            body.writeInt(asts.size());
+            asts.forEach(this::visit);
+        }
+
+        /**
+         * References are written as the index plus one, with {@code 0} for
+         * {@code null}.
+         */
+        private int string(String string) {
+            return string == null ? 0 : strings.computeIfAbsent(string, k -> strings.size()) + 1;
+        }
+
+        private int type(Environment.Type type) {
+            return type == null ? 0 : string(type.getName());
+        }
+
+        private int variable(Environment.Variable variable) {
+            return variable == null ? 0 : variables.computeIfAbsent(variable, k -> variables.size()) + 1;
+        }
+
+        private int function(Environment.Function function) {
+            return function == null ? 0 : functions.computeIfAbsent(function, k -> functions.size()) + 1;
+        }
+
+    }
+
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+        private String[] strings;
+        private Environment.Variable[] variables;
+        private Environment.Function[] functions;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private Ast read() {
+            if(buffer.getInt() != MAGIC){
+                throw new IllegalArgumentException("Not a serialized PLC AST.");
+            }
+            int version = buffer.getInt();
+            if(version != VERSION){
+                throw new IllegalArgumentException("Unsupported AST format version " + version + ".");
+            }
+            strings = new String[readInt()];
+            for(int i = 0; i < strings.length; i++){
+                byte[] bytes = new byte[readInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            variables = new Environment.Variable[readInt()];
+            for(int i = 0; i < variables.length; i++){
+                String name = string();
+                String jvmName = string();
+                Environment.Type type = type();
+                variables[i] = new Environment.Variable(name, jvmName, type, buffer.get() != 0, Environment.NIL);
+            }
+            functions = new Environment.Function[readInt()];
+            for(int i = 0; i < functions.length; i++){
+                String name = string();
+                String jvmName = string();
+                List<Environment.Type> parameterTypes = new ArrayList<>();
+                for(int j = readInt(); j > 0; j--){
+                    parameterTypes.add(type());
+                }
+                functions[i] = new Environment.Function(name, jvmName, parameterTypes, type(), args -> Environment.NIL);
+            }
+            return node();
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends Ast> T node() {
+            return (T) any();
+        }
+
+        private Ast any() {
+            byte kind = buffer.get();
+            switch(kind){
+                case ABSENT:
+                    return null;
+                case SOURCE:
+                    return new Ast.Source(nodes(), nodes());
+                case FIELD: {
+                    Ast.Field ast = new Ast.Field(string(), string(), buffer.get() != 0, Optional.ofNullable(node()));
+                    setVariable(ast::setVariable);
+                    return ast;
+                }
+                case METHOD: {
+                    String name = string();
+                    List<String> parameters = new ArrayList<>();
+                    List<String> parameterTypeNames = new ArrayList<>();
+                    for(int i = readInt(); i > 0; i--){
+                        parameters.add(string());
+                        parameterTypeNames.add(string());
+                    }
+                    Ast.Method ast = new Ast.Method(name, parameters, parameterTypeNames, Optional.ofNullable(string()), nodes());
+                    Environment.Function function = function();
+                    if(function != null){
+                        ast.setFunction(function);
+                    }
+                    return ast;
+                }
+                case EXPRESSION_STATEMENT:
+                    return new Ast.Statement.Expression(node());
+                case DECLARATION: {
+                    Ast.Statement.Declaration ast = new Ast.Statement.Declaration(string(), Optional.ofNullable(string()), Optional.ofNullable(node()));
+                    setVariable(ast::setVariable);
+                    return ast;
+                }
+                case ASSIGNMENT:
+                    return new Ast.Statement.Assignment(node(), node());
+                case IF:
+                    return new Ast.Statement.If(node(), nodes(), nodes());
+                case FOR:
+                    return new Ast.Statement.For(node(), node(), node(), nodes());
+                case WHILE:
+                    return new Ast.Statement.While(node(), nodes());
+                case RETURN:
+                    return new Ast.Statement.Return(node());
+                case LITERAL: {
+                    Ast.Expression.Literal ast = new Ast.Expression.Literal(literal());
+                    ast.setType(type());
+                    return ast;
+                }
+                case GROUP: {
+                    Ast.Expression.Group ast = new Ast.Expression.Group(node());
+                    ast.setType(type());
+                    return ast;
+                }
+                case BINARY: {
+                    Ast.Expression.Binary ast = new Ast.Expression.Binary(string(), node(), node());
+                    ast.setType(type());
+                    return ast;
+                }
+                case ACCESS: {
+                    Ast.Expression.Access ast = new Ast.Expression.Access(Optional.ofNullable(node()), string());
+                    setVariable(ast::setVariable);
+                    return ast;
+                }
+                case FUNCTION: {
+                    Ast.Expression.Function ast = new Ast.Expression.Function(Optional.ofNullable(node()), string(), nodes());
+                    Environment.Function function = function();
+                    if(function != null){
+                        ast.setFunction(function);
+                    }
+                    return ast;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown AST node kind " + kind + ".");
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends Ast> List<T> nodes() {
+            int size = readInt();
+            List<T> nodes = new ArrayList<>(size);
+            for(int i = 0; i < size; i++){
+                nodes.add(node());
+            }
+            return nodes;
+        }
+
+        private Object literal() {
+            byte tag = buffer.get();
+            switch(tag){
+                case NIL:
+                    return null;
+                case TRUE:
+                    return true;
+                case FALSE:
+                    return false;
+                case INTEGER:
+                    return new BigInteger(bytes());
+                case DECIMAL:
+                    return new BigDecimal(new BigInteger(bytes()), readInt());
+                case CHARACTER:
+                    return (char) readInt();
+                case STRING:
+                    return string();
+                default:
+                    throw new IllegalArgumentException("Unknown literal tag " + tag + ".");
+            }
+        }
+
+        private byte[] bytes() {
+            byte[] bytes = new byte[readInt()];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private String string() {
+            int index = readInt();
+            return index == 0 ? null : strings[index - 1];
+        }
+
+        private Environment.Type type() {
+            String name = string();
+            return name == null ? null : Environment.getType(name);
+        }
+
+        private void setVariable(java.util.function.Consumer<Environment.Variable> setter) {
+            int index = readInt();
+            if(index != 0){
+                setter.accept(variables[index - 1]);
+            }
+        }
+
+        private Environment.Function function() {
+            int index = readInt();
+            return index == 0 ? null : functions[index - 1];
+        }
+
+        /**
+         * Reads an unsigned variable length integer written by
+         * {@link Output#writeInt(int)}.
+         */
+        private int readInt() {
+            int value = 0;
+            for(int shift = 0; ; shift += 7){
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if(b >= 0){
+                    return value;
+                }
+            }
+        }
+
+    }
+
+    private static final class Output {
+
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+
+        private void write(int b) {
+            if(length == bytes.length){
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        private void write(byte[] source, int offset, int count) {
+            if(length + count > bytes.length){
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        /**
+         * Writes an unsigned variable length integer, seven bits per byte
+         * with the high bit set on all but the last byte.
+         */
+        private void writeInt(int value) {
+            while((value & ~0x7F) != 0){
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+    }
+
+}
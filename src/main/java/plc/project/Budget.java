@@ -0,0 +1,144 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+
+/**
+ * Limits on the resources a single execution may use, so untrusted scripts
+ * (for example an endless {@code WHILE TRUE}) are aborted with a
+ * {@link BudgetExceededException} instead of running forever.
+ *
+ * <ul>
+ *     <li>Steps are the statements and expressions evaluated, which includes
+ *     the condition of every loop iteration.</li>
+ *     <li>Time is the wall clock time since the execution started.</li>
+ *     <li>Memory is an estimate of the bytes of all values and scopes
+ *     allocated, not only of those which are still reachable.</li>
+ * </ul>
+ */
+public final class Budget {
+
+    public static final Budget UNLIMITED = new Budget(Long.MAX_VALUE, null, Long.MAX_VALUE);
+
+    /**
+     * The clock is only read once per this many steps (a power of two).
+     */
+    private static final long CLOCK_INTERVAL = 1024;
+
+    /**
+     * Estimated size of a value, including its scope, and of a scope.
+     */
+    private static final long VALUE_BYTES = 128, SCOPE_BYTES = 96;
+
+    public enum Resource {
+        STEPS, TIME, MEMORY
+    }
+
+    private final long steps;
+    private final Duration time;
+    private final long memory;
+
+    /**
+     * Creates a budget allowing the given number of steps, time (or
+     * {@code null} for no deadline) and estimated bytes of memory.
+     */
+    public Budget(long steps, Duration time, long memory) {
+        this.steps = steps;
+        this.time = time;
+        this.memory = memory;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public Duration getTime() {
+        return time;
+    }
+
+    public long getMemory() {
+        return memory;
+    }
+
+    /**
+     * Starts measuring an execution against this budget.
+     */
+    public Meter start() {
+        return new Meter(this);
+    }
+
+    /**
+     * Tracks the resources used by one execution. Checks only compare
+     * counters, apart from reading the clock once every
+     * {@value #CLOCK_INTERVAL} steps, and aren't thread safe.
+     */
+    public static final class Meter {
+
+        private final Budget budget;
+        private final long deadline;
+        private long steps;
+        private long memory;
+
+        private Meter(Budget budget) {
+            this.budget = budget;
+            this.deadline = budget.time == null ? Long.MAX_VALUE : System.nanoTime() + budget.time.toNanos();
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        public long getMemory() {
+            return memory;
+        }
+
+        /**
+         * Counts an evaluated statement or expression.
+         */
+        public void step() {
+            if(++steps > budget.steps){
+                throw new BudgetExceededException(Resource.STEPS, "Exceeded the budget of " + budget.steps + " steps.");
+            }
+            if((steps & (CLOCK_INTERVAL - 1)) == 0 && deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0){
+                throw new BudgetExceededException(Resource.TIME, "Exceeded the time budget of " + budget.time.toMillis() + "ms.");
+            }
+        }
+
+        /**
+         * Counts a newly allocated value, returning it.
+         */
+        public Environment.PlcObject allocate(Environment.PlcObject value) {
+            allocate(VALUE_BYTES + size(value.getValue()));
+            return value;
+        }
+
+        /**
+         * Counts a newly allocated scope, returning it.
+         */
+        public Scope allocate(Scope scope) {
+            allocate(SCOPE_BYTES);
+            return scope;
+        }
+
+        private void allocate(long bytes) {
+            memory += bytes;
+            if(memory > budget.memory){
+                throw new BudgetExceededException(Resource.MEMORY, "Exceeded the memory budget of " + budget.memory + " bytes.");
+            }
+        }
+
+        private static long size(Object value) {
+            if(value instanceof String string){
+                return 2L * string.length();
+            }else if(value instanceof BigInteger integer){
+                return integer.bitLength() / 8;
+            }else if(value instanceof BigDecimal decimal){
+                return decimal.unscaledValue().bitLength() / 8;
+            }
+            return 0;
+        }
+
+    }
+
+}
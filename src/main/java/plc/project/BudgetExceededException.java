@@ -0,0 +1,21 @@
+package plc.project;
+
+/**
+ * Thrown when an execution uses more of a resource than its {@link Budget}
+ * allows. The execution is abandoned, so any state it changed (such as the
+ * fields of the program) may be incomplete.
+ */
+public final class BudgetExceededException extends RuntimeException {
+
+    private final Budget.Resource resource;
+
+    public BudgetExceededException(Budget.Resource resource, String message) {
+        super(message);
+        this.resource = resource;
+    }
+
+    public Budget.Resource getResource() {
+        return resource;
+    }
+
+}
@@ -0,0 +1,296 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A compiled PLC program for the {@link VirtualMachine}, produced by the
+ * {@link BytecodeCompiler}. Each function is a flat {@code int[]} of
+ * instructions operating on numbered registers, where every instruction is an
+ * opcode followed by a fixed number of operands:
+ *
+ * <pre>
+ * CONST d k          d = constants[k]
+ * MOVE d s           d = s
+ * LOAD_GLOBAL d g    d = globals[g]
+ * STORE_GLOBAL g s   globals[g] = s
+ * LOAD_EXTERNAL d k  d = variable named constants[k] in the VM's scope
+ * STORE_EXTERNAL k s variable named constants[k] in the VM's scope = s
+ * ADD..NE d a b      d = a op b
+ * JUMP t             pc = t
+ * JUMP_IF_FALSE r t  if !r then pc = t (r must be a Boolean)
+ * JUMP_IF_TRUE r t   if r then pc = t (r must be a Boolean)
+ * CHECK_BOOLEAN r    fails unless r is a Boolean
+ * CALL d f a n       d = functions[f](a, ..., a + n - 1)
+ * CALL_NATIVE d k a n d = natives[k](a, ..., a + n - 1)
+ * INVOKE d k r a n   d = r.constants[k](a, ..., a + n - 1)
+ * GET_FIELD d r k    d = r.constants[k]
+ * SET_FIELD r k s    r.constants[k] = s
+ * RETURN r           returns r to the caller
+ * RETURN_NIL         returns NIL to the caller
+ * </pre>
+ *
+ * Programs are immutable once compiled and can be serialized with
+ * {@link #toBytes()} and restored with {@link #fromBytes(ByteBuffer)} so that
+ * scripts can be precompiled.
+ */
+public final class Bytecode {
+
+    public static final int CONST = 0, MOVE = 1, LOAD_GLOBAL = 2, STORE_GLOBAL = 3, LOAD_EXTERNAL = 4, STORE_EXTERNAL = 5,
+            ADD = 6, SUB = 7, MUL = 8, DIV = 9, LT = 10, LE = 11, GT = 12, GE = 13, EQ = 14, NE = 15,
+            JUMP = 16, JUMP_IF_FALSE = 17, JUMP_IF_TRUE = 18, CHECK_BOOLEAN = 19,
+            CALL = 20, CALL_NATIVE = 21, INVOKE = 22, GET_FIELD = 23, SET_FIELD = 24, RETURN = 25, RETURN_NIL = 26;
+
+    /**
+     * Incremented whenever the instruction set or the serialized format
+     * changes, as serialized programs from other versions can't be loaded.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x504C4342; // "PLCB"
+    private static final byte NIL = 0, BOOLEAN = 1, INTEGER = 2, DECIMAL = 3, CHARACTER = 4, STRING = 5;
+
+    private final Object[] constants;
+    private final String[] globals;
+    private final Native[] natives;
+    private final Function[] functions;
+    private final int initializer;
+
+    Bytecode(Object[] constants, String[] globals, Native[] natives, Function[] functions, int initializer) {
+        this.constants = constants;
+        this.globals = globals;
+        this.natives = natives;
+        this.functions = functions;
+        this.initializer = initializer;
+    }
+
+    Object[] getConstants() {
+        return constants;
+    }
+
+    public List<String> getGlobals() {
+        return List.of(globals);
+    }
+
+    Native[] getNatives() {
+        return natives;
+    }
+
+    Function[] getFunctions() {
+        return functions;
+    }
+
+    /**
+     * Returns the index of the function evaluating the field initializers.
+     */
+    int getInitializer() {
+        return initializer;
+    }
+
+    /**
+     * Returns the index of the function with the given name and arity, or
+     * {@code -1} if the program does not define it.
+     */
+    public int lookupFunction(String name, int arity) {
+        for(int i = 0; i < functions.length; i++){
+            if(i != initializer && functions[i].getName().equals(name) && functions[i].getArity() == arity){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A compiled function. Arguments are passed in the first {@code arity}
+     * registers.
+     */
+    public static final class Function {
+
+        private final String name;
+        private final int arity;
+        private final int registers;
+        private final int[] code;
+
+        Function(String name, int arity, int registers, int[] code) {
+            this.name = name;
+            this.arity = arity;
+            this.registers = registers;
+            this.code = code;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getArity() {
+            return arity;
+        }
+
+        public int getRegisters() {
+            return registers;
+        }
+
+        int[] getCode() {
+            return code;
+        }
+
+    }
+
+    /**
+     * A function which is not defined by the program and is resolved from the
+     * scope of the {@link VirtualMachine} (such as {@code print}).
+     */
+    record Native(String name, int arity) {}
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(constants.length);
+            for(Object constant : constants){
+                writeConstant(out, constant);
+            }
+            out.writeInt(globals.length);
+            for(String global : globals){
+                writeString(out, global);
+            }
+            out.writeInt(natives.length);
+            for(Native n : natives){
+                writeString(out, n.name());
+                out.writeInt(n.arity());
+            }
+            out.writeInt(functions.length);
+            for(Function function : functions){
+                writeString(out, function.name);
+                out.writeInt(function.arity);
+                out.writeInt(function.registers);
+                out.writeInt(function.code.length);
+                for(int word : function.code){
+                    out.writeInt(word);
+                }
+            }
+            out.writeInt(initializer);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a program serialized by {@link #toBytes()}, starting at the
+     * buffer's current position. The buffer itself (including its position
+     * and byte order) is not modified.
+     */
+    public static Bytecode fromBytes(ByteBuffer buffer) {
+        buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if(buffer.getInt() != MAGIC){
+            throw new IllegalArgumentException("Not a serialized PLC program.");
+        }
+        int version = buffer.getInt();
+        if(version != VERSION){
+            throw new IllegalArgumentException("Unsupported bytecode version " + version + ".");
+        }
+        Object[] constants = new Object[readLength(buffer, 1)];
+        for(int i = 0; i < constants.length; i++){
+            constants[i] = readConstant(buffer);
+        }
+        String[] globals = new String[readLength(buffer, Integer.BYTES)];
+        for(int i = 0; i < globals.length; i++){
+            globals[i] = readString(buffer);
+        }
+        Native[] natives = new Native[readLength(buffer, 2 * Integer.BYTES)];
+        for(int i = 0; i < natives.length; i++){
+            natives[i] = new Native(readString(buffer), buffer.getInt());
+        }
+        Function[] functions = new Function[readLength(buffer, 4 * Integer.BYTES)];
+        for(int i = 0; i < functions.length; i++){
+            String name = readString(buffer);
+            int arity = buffer.getInt();
+            int registers = buffer.getInt();
+            int[] code = new int[readLength(buffer, Integer.BYTES)];
+            buffer.asIntBuffer().get(code);
+            buffer.position(buffer.position() + code.length * Integer.BYTES);
+            functions[i] = new Function(name, arity, registers, code);
+        }
+        return new Bytecode(constants, globals, natives, functions, buffer.getInt());
+    }
+
+    /**
+     * Reads the number of elements of an array, each taking at least the
+     * given number of bytes, so a corrupt count fails instead of allocating
+     * more than the buffer could hold.
+     */
+    private static int readLength(ByteBuffer buffer, int size) {
+        int length = buffer.getInt();
+        if(length < 0 || length > buffer.remaining() / size){
+            throw new IllegalArgumentException("Invalid length " + length + ".");
+        }
+        return length;
+    }
+
+    private static void writeConstant(DataOutputStream out, Object constant) throws IOException {
+        if(constant == Environment.NIL.getValue()){
+            out.writeByte(NIL);
+        }else if(constant instanceof Boolean value){
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(value);
+        }else if(constant instanceof BigInteger value){
+            out.writeByte(INTEGER);
+            writeBytes(out, value.toByteArray());
+        }else if(constant instanceof BigDecimal value){
+            out.writeByte(DECIMAL);
+            writeBytes(out, value.unscaledValue().toByteArray());
+            out.writeInt(value.scale());
+        }else if(constant instanceof Character value){
+            out.writeByte(CHARACTER);
+            out.writeChar(value);
+        }else if(constant instanceof String value){
+            out.writeByte(STRING);
+            writeString(out, value);
+        }else{
+            throw new IllegalArgumentException("Unsupported constant " + constant + ".");
+        }
+    }
+
+    private static Object readConstant(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch(tag){
+            case NIL -> Environment.NIL.getValue();
+            case BOOLEAN -> buffer.get() != 0;
+            case INTEGER -> new BigInteger(readBytes(buffer));
+            case DECIMAL -> new BigDecimal(new BigInteger(readBytes(buffer)), buffer.getInt());
+            case CHARACTER -> buffer.getChar();
+            case STRING -> readString(buffer);
+            default -> throw new IllegalArgumentException("Unknown constant tag " + tag + ".");
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[readLength(buffer, 1)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
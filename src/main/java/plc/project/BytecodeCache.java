@@ -0,0 +1,125 @@
+package plc.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.TreeMap;
+
+/**
+ * A persistent cache of compiled programs, so unchanged scripts skip the
+ * lexer, parser, analyzer and {@link BytecodeCompiler} on startup.
+ *
+ * Entries are stored in the cache directory under the SHA-256 hash of the
+ * source, {@link Bytecode#VERSION} and the signatures of the variables and
+ * functions of the scope, so editing a script, upgrading the compiler or
+ * analyzing against different definitions simply misses the cache. Hits are
+ * memory-mapped and decoded with {@link Bytecode#fromBytes(ByteBuffer)};
+ * unreadable entries are recompiled and replaced, and failing to write an
+ * entry doesn't fail loading.
+ */
+public final class BytecodeCache {
+
+    private final Path directory;
+    private final Scope scope;
+
+    /**
+     * Creates a cache in the given directory. Programs are analyzed in a
+     * child of the given scope, which should define any functions the
+     * scripts call besides {@code print}.
+     */
+    public BytecodeCache(Path directory, Scope scope) {
+        this.directory = directory;
+        this.scope = scope;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Bytecode load(Path script) throws IOException {
+        return load(Files.readString(script));
+    }
+
+    public Bytecode load(String source) {
+        Path path = getPath(source);
+        if(Files.exists(path)){
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+                return Bytecode.fromBytes(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }catch(IOException | RuntimeException e){
+                // Corrupt or truncated entries are recompiled below.
+            }
+        }
+        Bytecode program = compile(source);
+        store(path, program);
+        return program;
+    }
+
+    /**
+     * Returns the path of the cache entry for the given source.
+     */
+    Path getPath(String source) {
+        try{
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(Bytecode.VERSION).array());
+            for(Scope scope = this.scope; scope != null; scope = scope.getParent()){
+                digest.update(signature(scope).getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest.digest()) + ".plcb");
+        }catch(NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the names and types of what the scope defines, in a fixed
+     * order, since programs are only valid against the same definitions.
+     */
+    private static String signature(Scope scope) {
+        StringBuilder builder = new StringBuilder("{");
+        new TreeMap<>(scope.getVariables()).forEach((name, variable) -> builder.append(name).append(':').append(variable.getType().getName()).append(';'));
+        new TreeMap<>(scope.getFunctions()).forEach((name, function) -> {
+            builder.append(name).append('(');
+            function.getParameterTypes().forEach(type -> builder.append(type.getName()).append(','));
+            builder.append("):").append(function.getReturnType().getName()).append(';');
+        });
+        return builder.append('}').toString();
+    }
+
+    private Bytecode compile(String source) {
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        new Analyzer(scope).visit(ast);
+        return new BytecodeCompiler().compile(ast);
+    }
+
+    /**
+     * Writes the entry to a temporary file first and moves it into place, so
+     * concurrent processes never map a partially written entry. Storing is
+     * best-effort: if the cache can't be written (such as a read-only or full
+     * directory), the compiled program is still used and the entry is simply
+     * missing next time.
+     */
+    private void store(Path path, Bytecode program) {
+        try{
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "plcb", ".tmp");
+            try{
+                Files.write(temporary, program.toBytes());
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }finally{
+                Files.deleteIfExists(temporary);
+            }
+        }catch(IOException e){
+            // Not cached, which only costs recompiling next time.
+        }
+    }
+
+}
@@ -0,0 +1,367 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an {@link Ast.Source} into {@link Bytecode} for the
+ * {@link VirtualMachine}.
+ *
+ * Variables are resolved at compile time following the scoping rules of the
+ * {@link Interpreter}: locals (parameters and declarations) are assigned
+ * registers per block, fields become globals, and any other name is looked up
+ * in the scope of the virtual machine when the instruction runs. Temporary
+ * values are allocated above the locals like a stack and released at the end
+ * of each statement.
+ */
+public final class BytecodeCompiler {
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<List<Object>, Integer> constantIndices = new HashMap<>();
+    private final Map<String, Integer> globals = new HashMap<>();
+    private final List<Bytecode.Native> natives = new ArrayList<>();
+    private final Map<String, Integer> nativeIndices = new HashMap<>();
+    private final Map<String, Integer> functionIndices = new HashMap<>();
+
+    private final Deque<Map<String, Integer>> blocks = new ArrayDeque<>();
+    private int[] code = new int[64];
+    private int length = 0;
+    private int next = 0;
+    private int registers = 0;
+
+    public Bytecode compile(Ast.Source ast) {
+        for(Ast.Field field : ast.getFields()){
+            globals.put(field.getName(), globals.size());
+        }
+        for(int i = 0; i < ast.getMethods().size(); i++){
+            Ast.Method method = ast.getMethods().get(i);
+            functionIndices.putIfAbsent(method.getName() + "/" + method.getParameters().size(), i);
+        }
+        Bytecode.Function[] functions = new Bytecode.Function[ast.getMethods().size() + 1];
+        for(int i = 0; i < ast.getMethods().size(); i++){
+            functions[i] = compile(ast.getMethods().get(i));
+        }
+        functions[functions.length - 1] = compileInitializer(ast.getFields());
+        String[] globalNames = new String[globals.size()];
+        globals.forEach((name, index) -> globalNames[index] = name);
+        return new Bytecode(constants.toArray(), globalNames, natives.toArray(new Bytecode.Native[0]), functions, functions.length - 1);
+    }
+
+    private Bytecode.Function compileInitializer(List<Ast.Field> fields) {
+        begin();
+        for(Ast.Field field : fields){
+            int value = allocate();
+            if(field.getValue().isPresent()){
+                expression(field.getValue().get(), value);
+            }else{
+                emit(Bytecode.CONST, value, constant(Environment.NIL.getValue()));
+            }
+            emit(Bytecode.STORE_GLOBAL, globals.get(field.getName()), value);
+            next = 0;
+        }
+        emit(Bytecode.RETURN_NIL);
+        return end("<init>", 0);
+    }
+
+    private Bytecode.Function compile(Ast.Method ast) {
+        begin();
+        for(String parameter : ast.getParameters()){
+            blocks.peek().put(parameter, allocate());
+        }
+        statements(ast.getStatements());
+        emit(Bytecode.RETURN_NIL);
+        return end(ast.getName(), ast.getParameters().size());
+    }
+
+    private void begin() {
+        blocks.clear();
+        blocks.push(new HashMap<>());
+        code = new int[64];
+        length = 0;
+        next = 0;
+        registers = 0;
+    }
+
+    private Bytecode.Function end(String name, int arity) {
+        return new Bytecode.Function(name, arity, Math.max(registers, 1), Arrays.copyOf(code, length));
+    }
+
+    /**
+     * Compiles a list of statements, releasing the temporaries of each one.
+     * Declarations allocate their local as the first register above the mark,
+     * so it is kept until the end of the enclosing block.
+     */
+    private void statements(List<Ast.Statement> statements) {
+        for(Ast.Statement statement : statements){
+            int mark = next;
+            statement(statement);
+            next = statement instanceof Ast.Statement.Declaration ? mark + 1 : mark;
+        }
+    }
+
+    /**
+     * Compiles the statements of a nested block, releasing its locals once the
+     * block is complete.
+     */
+    private void block(List<Ast.Statement> statements) {
+        int mark = next;
+        blocks.push(new HashMap<>());
+        statements(statements);
+        blocks.pop();
+        next = mark;
+    }
+
+    private void statement(Ast.Statement ast) {
+        switch(ast){
+            case Ast.Statement.Expression statement -> expression(statement.getExpression(), allocate());
+            case Ast.Statement.Declaration statement -> {
+                int register = allocate();
+                if(statement.getValue().isPresent()){
+                    expression(statement.getValue().get(), register);
+                }else{
+                    emit(Bytecode.CONST, register, constant(Environment.NIL.getValue()));
+                }
+                blocks.peek().put(statement.getName(), register);
+            }
+            case Ast.Statement.Assignment statement -> assignment(statement);
+            case Ast.Statement.If statement -> {
+                int condition = operand(statement.getCondition());
+                int otherwise = jump(Bytecode.JUMP_IF_FALSE, condition);
+                block(statement.getThenStatements());
+                if(statement.getElseStatements().isEmpty()){
+                    patch(otherwise);
+                }else{
+                    int end = jump(Bytecode.JUMP);
+                    patch(otherwise);
+                    block(statement.getElseStatements());
+                    patch(end);
+                }
+            }
+            case Ast.Statement.For statement -> {
+                int mark = next;
+                blocks.push(new HashMap<>());
+                if(statement.getInitialization() != null){
+                    statement(statement.getInitialization());
+                }
+                loop(statement.getCondition(), statement.getStatements(), statement.getIncrement());
+                blocks.pop();
+                next = mark;
+            }
+            case Ast.Statement.While statement -> {
+                int mark = next;
+                blocks.push(new HashMap<>());
+                loop(statement.getCondition(), statement.getStatements(), null);
+                blocks.pop();
+                next = mark;
+            }
+            case Ast.Statement.Return statement -> emit(Bytecode.RETURN, operand(statement.getValue()));
+            default -> throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Compiles a loop whose body shares a single scope across iterations, as
+     * in the {@link Interpreter}.
+     */
+    private void loop(Ast.Expression condition, List<Ast.Statement> statements, Ast.Statement increment) {
+        int start = length;
+        int exit = -1;
+        if(condition != null){
+            int mark = next;
+            exit = jump(Bytecode.JUMP_IF_FALSE, operand(condition));
+            next = mark;
+        }
+        statements(statements);
+        if(increment != null){
+            int mark = next;
+            statement(increment);
+            next = mark;
+        }
+        emit(Bytecode.JUMP, start);
+        if(exit >= 0){
+            patch(exit);
+        }
+    }
+
+    private void assignment(Ast.Statement.Assignment ast) {
+        if(!(ast.getReceiver() instanceof Ast.Expression.Access access)){
+            throw new RuntimeException("Non-access expression");
+        }
+        int value = operand(ast.getValue());
+        if(access.getReceiver().isPresent()){
+            int receiver = operand(access.getReceiver().get());
+            emit(Bytecode.SET_FIELD, receiver, constant(access.getName()), value);
+            return;
+        }
+        Integer local = lookup(access.getName());
+        if(local != null){
+            emit(Bytecode.MOVE, local, value);
+        }else if(globals.containsKey(access.getName())){
+            emit(Bytecode.STORE_GLOBAL, globals.get(access.getName()), value);
+        }else{
+            emit(Bytecode.STORE_EXTERNAL, constant(access.getName()), value);
+        }
+    }
+
+    /**
+     * Returns a register holding the value of the expression, which is the
+     * local itself for plain local variable accesses and a new temporary
+     * otherwise.
+     */
+    private int operand(Ast.Expression ast) {
+        if(ast instanceof Ast.Expression.Access access && access.getReceiver().isEmpty()){
+            Integer local = lookup(access.getName());
+            if(local != null){
+                return local;
+            }
+        }
+        int register = allocate();
+        expression(ast, register);
+        return register;
+    }
+
+    /**
+     * Compiles an expression storing its value in the target register. The
+     * target is only written once all operands have been read, so it is safe
+     * for the target to be a local used by the expression.
+     */
+    private void expression(Ast.Expression ast, int target) {
+        switch(ast){
+            case Ast.Expression.Literal literal ->
+                    emit(Bytecode.CONST, target, constant(literal.getLiteral() == null ? Environment.NIL.getValue() : literal.getLiteral()));
+            case Ast.Expression.Group group -> expression(group.getExpression(), target);
+            case Ast.Expression.Binary binary -> binary(binary, target);
+            case Ast.Expression.Access access -> {
+                if(access.getReceiver().isPresent()){
+                    emit(Bytecode.GET_FIELD, target, operand(access.getReceiver().get()), constant(access.getName()));
+                    return;
+                }
+                Integer local = lookup(access.getName());
+                if(local != null){
+                    emit(Bytecode.MOVE, target, local);
+                }else if(globals.containsKey(access.getName())){
+                    emit(Bytecode.LOAD_GLOBAL, target, globals.get(access.getName()));
+                }else{
+                    emit(Bytecode.LOAD_EXTERNAL, target, constant(access.getName()));
+                }
+            }
+            case Ast.Expression.Function function -> call(function, target);
+            default -> throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        }
+    }
+
+    private void binary(Ast.Expression.Binary ast, int target) {
+        switch(ast.getOperator()){
+            case "AND", "&&", "OR", "||" -> {
+                boolean and = ast.getOperator().equals("AND") || ast.getOperator().equals("&&");
+                int result = allocate();
+                expression(ast.getLeft(), result);
+                int end = jump(and ? Bytecode.JUMP_IF_FALSE : Bytecode.JUMP_IF_TRUE, result);
+                expression(ast.getRight(), result);
+                emit(Bytecode.CHECK_BOOLEAN, result);
+                patch(end);
+                emit(Bytecode.MOVE, target, result);
+            }
+            default -> {
+                int opcode = switch(ast.getOperator()){
+                    case "+" -> Bytecode.ADD;
+                    case "-" -> Bytecode.SUB;
+                    case "*" -> Bytecode.MUL;
+                    case "/" -> Bytecode.DIV;
+                    case "<" -> Bytecode.LT;
+                    case "<=" -> Bytecode.LE;
+                    case ">" -> Bytecode.GT;
+                    case ">=" -> Bytecode.GE;
+                    case "==" -> Bytecode.EQ;
+                    case "!=" -> Bytecode.NE;
+                    default -> throw new RuntimeException("Invalid binary operator" + ast.getOperator());
+                };
+                int left = operand(ast.getLeft());
+                int right = operand(ast.getRight());
+                emit(opcode, target, left, right);
+            }
+        }
+    }
+
+    /**
+     * Compiles a call, evaluating the arguments into consecutive registers and
+     * then the receiver (if any) as the {@link Interpreter} does.
+     */
+    private void call(Ast.Expression.Function ast, int target) {
+        int arity = ast.getArguments().size();
+        int first = next;
+        for(int i = 0; i < arity; i++){
+            allocate();
+        }
+        for(int i = 0; i < arity; i++){
+            expression(ast.getArguments().get(i), first + i);
+        }
+        if(ast.getReceiver().isPresent()){
+            int receiver = operand(ast.getReceiver().get());
+            emit(Bytecode.INVOKE, target, constant(ast.getName()), receiver, first, arity);
+            return;
+        }
+        String key = ast.getName() + "/" + arity;
+        Integer function = functionIndices.get(key);
+        if(function != null){
+            emit(Bytecode.CALL, target, function, first, arity);
+        }else{
+            Integer index = nativeIndices.get(key);
+            if(index == null){
+                index = natives.size();
+                natives.add(new Bytecode.Native(ast.getName(), arity));
+                nativeIndices.put(key, index);
+            }
+            emit(Bytecode.CALL_NATIVE, target, index, first, arity);
+        }
+    }
+
+    private Integer lookup(String name) {
+        for(Map<String, Integer> block : blocks){
+            Integer register = block.get(name);
+            if(register != null){
+                return register;
+            }
+        }
+        return null;
+    }
+
+    private int allocate() {
+        registers = Math.max(registers, next + 1);
+        return next++;
+    }
+
+    private int constant(Object value) {
+        return constantIndices.computeIfAbsent(List.of(value.getClass(), value), k -> {
+            constants.add(value);
+            return constants.size() - 1;
+        });
+    }
+
+    private int jump(int opcode, int... operands) {
+        if(opcode == Bytecode.JUMP){
+            emit(opcode, -1);
+        }else{
+            emit(opcode, operands[0], -1);
+        }
+        return length - 1;
+    }
+
+    private void patch(int operand) {
+        code[operand] = length;
+    }
+
+    private void emit(int... words) {
+        if(length + words.length > code.length){
+            code = Arrays.copyOf(code, Math.max(code.length * 2, length + words.length));
+        }
+        System.arraycopy(words, 0, code, length, words.length);
+        length += words.length;
+    }
+
+}
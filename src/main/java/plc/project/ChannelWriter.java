@@ -0,0 +1,146 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A writer encoding characters as UTF-8 directly to a channel, for writing
+ * large amounts of generated source. Characters are collected in a reusable
+ * buffer and only encoded and written once it fills up (or the writer is
+ * flushed), so the many small writes of the {@link Generator} are cheap.
+ *
+ * Unlike {@link java.io.PrintWriter} and {@link java.io.BufferedWriter}, this
+ * writer is not synchronized and must only be used by one thread.
+ */
+public final class ChannelWriter extends Writer {
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+
+    public ChannelWriter(WritableByteChannel channel) {
+        this(channel, 1 << 16);
+    }
+
+    /**
+     * Creates a writer buffering the given number of characters, at least
+     * two so a surrogate pair always fits.
+     */
+    public ChannelWriter(WritableByteChannel channel, int capacity) {
+        capacity = Math.max(capacity, 2);
+        this.channel = channel;
+        this.chars = CharBuffer.allocate(capacity);
+        this.bytes = ByteBuffer.allocate((int) (capacity * encoder.maxBytesPerChar()));
+    }
+
+    /**
+     * Opens a writer replacing the contents of the file.
+     */
+    public static ChannelWriter open(Path path) throws IOException {
+        return new ChannelWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if(!chars.hasRemaining()){
+            drain(false);
+        }
+        chars.put((char) c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        while(length > 0){
+            if(!chars.hasRemaining()){
+                drain(false);
+            }
+            int count = Math.min(length, chars.remaining());
+            chars.put(buffer, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void write(String string) throws IOException {
+        write(string, 0, string.length());
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException {
+        while(length > 0){
+            if(!chars.hasRemaining()){
+                drain(false);
+            }
+            int count = Math.min(length, chars.remaining());
+            int position = chars.position();
+            string.getChars(offset, offset + count, chars.array(), chars.arrayOffset() + position);
+            chars.position(position + count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence sequence) throws IOException {
+        write(String.valueOf(sequence));
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(!channel.isOpen()){
+            return;
+        }
+        try{
+            drain(true);
+            encoder.flush(bytes);
+            writeBytes();
+        }finally{
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes the buffered characters and writes them to the channel. A high
+     * surrogate at the end of the buffer is kept until its pair is written.
+     */
+    private void drain(boolean end) throws IOException {
+        chars.flip();
+        while(true){
+            CoderResult result = encoder.encode(chars, bytes, end);
+            if(result.isError()){
+                result.throwException();
+            }
+            writeBytes();
+            if(result.isUnderflow()){
+                break;
+            }
+        }
+        chars.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while(bytes.hasRemaining()){
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+}
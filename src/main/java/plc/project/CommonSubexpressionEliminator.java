@@ -0,0 +1,323 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Computes repeated {@link Purity pure} expressions once per basic block,
+ * storing the value in a temporary which the other occurrences read.
+ *
+ * A basic block is a run of statements without {@code IF}, {@code WHILE} or
+ * {@code FOR}, whose bodies are blocks of their own. Two occurrences are the
+ * same value if they are equal and none of the variables they read were
+ * assigned in between. Fields are also considered changed by any statement
+ * calling a function that isn't pure, and expressions reading fields in such
+ * a statement are left alone, since the temporary is assigned before the
+ * statement runs.
+ *
+ * For the same reason, only occurrences which are evaluated whenever their
+ * statement runs introduce a value: occurrences in the right operand of
+ * {@code AND}/{@code OR} may only reuse a value computed before, as
+ * computing it early may fail (such as reading a variable holding NIL).
+ *
+ * Temporaries are declared at the start of the method, for the same reason as
+ * in {@link LoopInvariantCodeMotion}. Only analyzed trees are transformed.
+ */
+public final class CommonSubexpressionEliminator extends AstRewriter {
+
+    private final Set<String> names = new HashSet<>();
+    private final List<Ast.Statement> temporaries = new ArrayList<>();
+    private Set<Environment.Variable> locals;
+    private int counter = 0;
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        names.addAll(Names.collect(ast));
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Method ast) {
+        names.addAll(Names.collect(ast));
+        locals = LoopInvariantCodeMotion.locals(ast);
+        temporaries.clear();
+        Ast.Method method = (Ast.Method) super.visit(ast);
+        if(temporaries.isEmpty()){
+            return method;
+        }
+        List<Ast.Statement> statements = new ArrayList<>(temporaries);
+        statements.addAll(method.getStatements());
+        Ast.Method eliminated = new Ast.Method(method.getName(), method.getParameters(), method.getParameterTypeNames(), method.getReturnTypeName(), statements);
+        Environment.Function function = Ast.annotation(method::getFunction);
+        if(function != null){
+            eliminated.setFunction(function);
+        }
+        return eliminated;
+    }
+
+    @Override
+    protected List<Ast.Statement> rewriteStatements(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = new ArrayList<>();
+        int start = 0;
+        for(int i = 0; i <= statements.size(); i++){
+            if(i == statements.size() || isBranch(statements.get(i))){
+                eliminate(statements.subList(start, i), rewritten);
+                if(i < statements.size()){
+                    rewritten.add(rewrite(statements.get(i)));
+                }
+                start = i + 1;
+            }
+        }
+        return rewritten;
+    }
+
+    private static boolean isBranch(Ast.Statement statement) {
+        return statement instanceof Ast.Statement.If || statement instanceof Ast.Statement.While || statement instanceof Ast.Statement.For;
+    }
+
+    private void eliminate(List<Ast.Statement> block, List<Ast.Statement> rewritten) {
+        if(locals == null){
+            block.forEach(statement -> rewritten.add(rewrite(statement)));
+            return;
+        }
+        Numbering numbering = new Numbering();
+        for(Ast.Statement statement : block){
+            numbering.scan(statement);
+        }
+        Replacer replacer = new Replacer(numbering.occurrences, rewritten);
+        for(Ast.Statement statement : block){
+            // The temporaries are assigned while rewriting, so the statement
+            // is added after them.
+            Ast.Statement replaced = replacer.rewrite(statement);
+            rewritten.add(replaced);
+        }
+    }
+
+    private Ast.Expression.Access temporary(Environment.Type type) {
+        String name;
+        do{
+            name = "_cse" + counter++;
+        }while(names.contains(name));
+        names.add(name);
+        Environment.Variable variable = new Environment.Variable(name, name, type, false, Environment.NIL);
+        locals.add(variable);
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, Optional.of(type.getName()), Optional.empty());
+        declaration.setVariable(variable);
+        temporaries.add(declaration);
+        Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), name);
+        access.setVariable(variable);
+        return access;
+    }
+
+    /**
+     * An expression and the versions of the variables it reads, which
+     * occurrences share if they compute the same value.
+     */
+    private static final class Value {
+
+        private final Ast.Expression expression;
+        private final List<Integer> versions;
+        private int count = 1;
+        private Ast.Expression.Access temporary;
+
+        private Value(Ast.Expression expression, List<Integer> versions) {
+            this.expression = expression;
+            this.versions = versions;
+        }
+
+    }
+
+    /**
+     * Assigns values to the candidate expressions of a block. Only the first
+     * occurrence of a value is walked into, since the others are replaced as
+     * a whole, so values only occurring inside them aren't counted twice.
+     */
+    private final class Numbering extends AstScanner {
+
+        private final Map<Ast.Expression, Value> occurrences = new IdentityHashMap<>();
+        private final List<Value> values = new ArrayList<>();
+        private final Map<Environment.Variable, Integer> versions = new IdentityHashMap<>();
+        private int fields = 0;
+        private boolean calls;
+        private boolean guarded = false;
+
+        private void scan(Ast.Statement statement) {
+            Effects effects = new Effects();
+            effects.visit(statement);
+            calls = effects.calls;
+            if(statement instanceof Ast.Statement.Assignment ast){
+                visit(ast.getValue());
+            }else{
+                visit(statement);
+            }
+            if(effects.assigned != null){
+                versions.merge(effects.assigned, 1, Integer::sum);
+            }
+            if(effects.calls){
+                fields++;
+            }
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Binary ast) {
+            if(number(ast)){
+                return null;
+            }
+            if(guarded || !isShortCircuit(ast)){
+                return super.visit(ast);
+            }
+            visit(ast.getLeft());
+            guarded = true;
+            visit(ast.getRight());
+            guarded = false;
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Access ast) {
+            return ast.getReceiver().isPresent() && number(ast) ? null : super.visit(ast);
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Function ast) {
+            return number(ast) ? null : super.visit(ast);
+        }
+
+        /**
+         * Records the occurrence of a candidate expression, returning whether
+         * it repeats a previous one. Guarded occurrences aren't counted and
+         * don't introduce values.
+         */
+        private boolean number(Ast.Expression ast) {
+            if(typeOf(ast) == null || !Purity.isPure(ast)){
+                return false;
+            }
+            List<Integer> read = new ArrayList<>();
+            boolean[] stable = {true};
+            new AstScanner() {
+                @Override
+                public Void visit(Ast.Expression.Access ast) {
+                    if(ast.getReceiver().isEmpty()){
+                        Environment.Variable variable = ast.getVariable();
+                        read.add(versions.getOrDefault(variable, 0));
+                        if(!locals.contains(variable)){
+                            stable[0] &= !calls;
+                            read.add(fields);
+                        }
+                    }
+                    return super.visit(ast);
+                }
+            }.visit(ast);
+            if(!stable[0]){
+                return false;
+            }
+            for(Value value : values){
+                if(value.expression.equals(ast) && value.versions.equals(read)){
+                    if(!guarded){
+                        value.count++;
+                    }
+                    occurrences.put(ast, value);
+                    return true;
+                }
+            }
+            if(guarded){
+                return false;
+            }
+            Value value = new Value(ast, read);
+            values.add(value);
+            occurrences.put(ast, value);
+            return false;
+        }
+
+    }
+
+    /**
+     * The variable a statement assigns, and whether it may change fields.
+     */
+    private static final class Effects extends AstScanner {
+
+        private Environment.Variable assigned;
+        private boolean calls = false;
+
+        @Override
+        public Void visit(Ast.Statement.Assignment ast) {
+            if(ast.getReceiver() instanceof Ast.Expression.Access access && access.getReceiver().isEmpty()){
+                assigned = Ast.annotation(access::getVariable);
+            }else{
+                calls = true;
+            }
+            return super.visit(ast);
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Function ast) {
+            Environment.Function function = Ast.annotation(ast::getFunction);
+            if(function == null || !Environment.isPure(function)){
+                calls = true;
+            }
+            return super.visit(ast);
+        }
+
+    }
+
+    /**
+     * Replaces repeated values with their temporary, which is assigned before
+     * the statement of the first occurrence.
+     */
+    private final class Replacer extends AstRewriter {
+
+        private final Map<Ast.Expression, Value> occurrences;
+        private final List<Ast.Statement> rewritten;
+
+        private Replacer(Map<Ast.Expression, Value> occurrences, List<Ast.Statement> rewritten) {
+            this.occurrences = occurrences;
+            this.rewritten = rewritten;
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Binary ast) {
+            return replace(ast, () -> super.visit(ast));
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Access ast) {
+            return replace(ast, () -> super.visit(ast));
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Function ast) {
+            return replace(ast, () -> super.visit(ast));
+        }
+
+        /**
+         * Assignment targets are kept as they are.
+         */
+        @Override
+        public Ast visit(Ast.Statement.Assignment ast) {
+            return new Ast.Statement.Assignment(ast.getReceiver(), rewrite(ast.getValue()));
+        }
+
+        private Ast replace(Ast.Expression ast, Supplier<Ast> rewrite) {
+            Value value = occurrences.get(ast);
+            if(value == null || value.count < 2){
+                return rewrite.get();
+            }
+            if(value.temporary == null){
+                Ast.Expression expression = (Ast.Expression) rewrite.get();
+                value.temporary = temporary(typeOf(ast));
+                rewritten.add(new Ast.Statement.Assignment(value.temporary, expression));
+            }
+            Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), value.temporary.getName());
+            access.setVariable(value.temporary.getVariable());
+            return access;
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Folds binary expressions over literals, simplifies algebraic identities and
+ * removes the dead branch of {@code IF} statements with a literal condition.
+ *
+ * Folding is limited to results which both backends agree on: decimals and
+ * NIL are never folded (the {@link Generator} uses {@code double} and
+ * {@code null}), integers are only folded within the range of an
+ * {@code int}, and expressions which fail at runtime (such as division by
+ * zero) are left in place so they still fail. Identities are only applied
+ * when the type of the remaining operand is known, since the interpreter
+ * rejects {@code TRUE AND 1} and {@code "a" + 0} is not {@code "a"}.
+ */
+public final class ConstantFolder extends AstRewriter {
+
+    private static final BigInteger MIN = BigInteger.valueOf(Integer.MIN_VALUE);
+    private static final BigInteger MAX = BigInteger.valueOf(Integer.MAX_VALUE);
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression.Group group = (Ast.Expression.Group) super.visit(ast);
+        if(group.getExpression() instanceof Ast.Expression.Binary){
+            return group;
+        }
+        return group.getExpression();
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) super.visit(ast);
+        Ast.Expression left = binary.getLeft();
+        Ast.Expression right = binary.getRight();
+        if(left instanceof Ast.Expression.Literal l && right instanceof Ast.Expression.Literal r){
+            Object value = fold(binary.getOperator(), l.getLiteral(), r.getLiteral());
+            if(value != null){
+                return literal(value, binary);
+            }
+        }
+        switch(binary.getOperator()){
+            case "AND", "&&" -> {
+                if(isLiteral(left, false)){
+                    return literal(false, binary);
+                }
+                if(isLiteral(left, true) && typeOf(right) == Environment.Type.BOOLEAN){
+                    return right;
+                }
+            }
+            case "OR", "||" -> {
+                if(isLiteral(left, true)){
+                    return literal(true, binary);
+                }
+                if(isLiteral(left, false) && typeOf(right) == Environment.Type.BOOLEAN){
+                    return right;
+                }
+            }
+            case "+" -> {
+                if(isLiteral(right, BigInteger.ZERO) && typeOf(left) == Environment.Type.INTEGER){
+                    return left;
+                }
+                if(isLiteral(left, BigInteger.ZERO) && typeOf(right) == Environment.Type.INTEGER){
+                    return right;
+                }
+            }
+            case "-" -> {
+                if(isLiteral(right, BigInteger.ZERO) && typeOf(left) == Environment.Type.INTEGER){
+                    return left;
+                }
+            }
+            case "*" -> {
+                if(isLiteral(right, BigInteger.ONE) && typeOf(left) == Environment.Type.INTEGER){
+                    return left;
+                }
+                if(isLiteral(left, BigInteger.ONE) && typeOf(right) == Environment.Type.INTEGER){
+                    return right;
+                }
+            }
+            case "/" -> {
+                if(isLiteral(right, BigInteger.ONE) && typeOf(left) == Environment.Type.INTEGER){
+                    return left;
+                }
+            }
+            default -> {}
+        }
+        return binary;
+    }
+
+    @Override
+    protected void rewriteStatement(Ast.Statement statement, List<Ast.Statement> rewritten) {
+        rewriteSelectingBranch(statement, rewritten);
+    }
+
+    /**
+     * Returns the value of the operator applied to the literals, or
+     * {@code null} if it can't be folded.
+     */
+    private static Object fold(String operator, Object left, Object right) {
+        if(!foldable(left) || !foldable(right)){
+            return null;
+        }
+        if(operator.equals("AND") || operator.equals("&&") || operator.equals("OR") || operator.equals("||")){
+            if(!(left instanceof Boolean l) || !(right instanceof Boolean r)){
+                return null;
+            }
+            return operator.equals("AND") || operator.equals("&&") ? l && r : l || r;
+        }
+        Object value;
+        try{
+            value = Interpreter.evaluate(operator, Environment.create(left), Environment.create(right)).getValue();
+        }catch(RuntimeException e){
+            return null;
+        }
+        return foldable(value) ? value : null;
+    }
+
+    private static boolean foldable(Object value) {
+        if(value instanceof BigInteger integer){
+            return integer.compareTo(MIN) >= 0 && integer.compareTo(MAX) <= 0;
+        }
+        if(value instanceof String string){
+            // The generator doesn't escape quotes or backslashes in strings.
+            return string.indexOf('"') < 0 && string.indexOf('\\') < 0;
+        }
+        return value instanceof Boolean || value instanceof Character;
+    }
+
+    private static boolean isLiteral(Ast.Expression ast, Object value) {
+        return ast instanceof Ast.Expression.Literal literal && value.equals(literal.getLiteral());
+    }
+
+    private static Ast.Expression.Literal literal(Object value, Ast.Expression.Binary original) {
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(value);
+        if(Ast.annotation(original::getType) != null){
+            literal.setType(typeOf(new Ast.Expression.Literal(value)));
+        }
+        return literal;
+    }
+
+}
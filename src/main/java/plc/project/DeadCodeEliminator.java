@@ -0,0 +1,162 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes code which can never run or whose result is never used:
+ *
+ * <ul>
+ *     <li>statements following a {@code RETURN} (or an {@code IF} whose
+ *     branches all return) in the same block,</li>
+ *     <li>{@code IF} statements with a literal condition, which are replaced
+ *     by the branch taken,</li>
+ *     <li>declarations of variables which are never accessed, if their
+ *     initializer is {@link Purity pure}, and</li>
+ *     <li>methods which are not reachable from {@code main} or the field
+ *     initializers. Sources without a {@code main} method are assumed to be
+ *     invoked externally and keep all of their methods.</li>
+ * </ul>
+ *
+ * Unused declarations are found through the variables resolved by the
+ * {@link Analyzer}, so they are only removed from analyzed trees.
+ */
+public final class DeadCodeEliminator extends AstRewriter {
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        Ast.Source source = (Ast.Source) super.visit(ast);
+        Map<String, Ast.Method> methods = new HashMap<>();
+        for(Ast.Method method : source.getMethods()){
+            methods.putIfAbsent(signature(method.getName(), method.getParameters().size()), method);
+        }
+        if(!methods.containsKey(signature("main", 0))){
+            return source;
+        }
+        Set<Ast.Method> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Ast> pending = new ArrayDeque<>(source.getFields());
+        pending.add(methods.get(signature("main", 0)));
+        while(!pending.isEmpty()){
+            Ast next = pending.pop();
+            if(next instanceof Ast.Method method && !reachable.add(method)){
+                continue;
+            }
+            new AstScanner() {
+                @Override
+                public Void visit(Ast.Expression.Function ast) {
+                    Ast.Method callee = methods.get(signature(ast.getName(), ast.getArguments().size()));
+                    if(ast.getReceiver().isEmpty() && callee != null && !reachable.contains(callee)){
+                        pending.add(callee);
+                    }
+                    return super.visit(ast);
+                }
+            }.visit(next);
+        }
+        List<Ast.Method> kept = new ArrayList<>();
+        for(Ast.Method method : source.getMethods()){
+            if(reachable.contains(method)){
+                kept.add(method);
+            }
+        }
+        return new Ast.Source(source.getFields(), kept);
+    }
+
+    /**
+     * Removes unused declarations until none are left, since removing one may
+     * leave the variables of its initializer unused.
+     */
+    @Override
+    public Ast visit(Ast.Method ast) {
+        Ast.Method method = (Ast.Method) super.visit(ast);
+        while(true){
+            Set<Environment.Variable> used = Collections.newSetFromMap(new IdentityHashMap<>());
+            new AstScanner() {
+                @Override
+                public Void visit(Ast.Expression.Access ast) {
+                    Environment.Variable variable = Ast.annotation(ast::getVariable);
+                    if(variable != null){
+                        used.add(variable);
+                    }
+                    return super.visit(ast);
+                }
+            }.visit(method);
+            UnusedDeclarations remover = new UnusedDeclarations(used);
+            Ast.Method rewritten = remover.rewrite(method);
+            if(!remover.removed){
+                return method;
+            }
+            method = rewritten;
+        }
+    }
+
+    @Override
+    protected List<Ast.Statement> rewriteStatements(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = new ArrayList<>();
+        for(Ast.Statement statement : statements){
+            rewriteStatement(statement, rewritten);
+            if(!rewritten.isEmpty() && returns(rewritten.get(rewritten.size() - 1))){
+                break;
+            }
+        }
+        return rewritten;
+    }
+
+    @Override
+    protected void rewriteStatement(Ast.Statement statement, List<Ast.Statement> rewritten) {
+        rewriteSelectingBranch(statement, rewritten);
+    }
+
+    /**
+     * Returns whether the statement always returns, so any statements after
+     * it are unreachable.
+     */
+    private static boolean returns(Ast.Statement statement) {
+        if(statement instanceof Ast.Statement.Return){
+            return true;
+        }
+        if(statement instanceof Ast.Statement.If ast){
+            return returns(ast.getThenStatements()) && returns(ast.getElseStatements());
+        }
+        return false;
+    }
+
+    private static boolean returns(List<Ast.Statement> statements) {
+        return !statements.isEmpty() && returns(statements.get(statements.size() - 1));
+    }
+
+    private static String signature(String name, int arity) {
+        return name + "/" + arity;
+    }
+
+    private static final class UnusedDeclarations extends AstRewriter {
+
+        private final Set<Environment.Variable> used;
+        private boolean removed = false;
+
+        private UnusedDeclarations(Set<Environment.Variable> used) {
+            this.used = used;
+        }
+
+        @Override
+        protected void rewriteStatement(Ast.Statement statement, List<Ast.Statement> rewritten) {
+            if(statement instanceof Ast.Statement.Declaration declaration) {
+                Environment.Variable variable = Ast.annotation(declaration::getVariable);
+                if(variable != null && !used.contains(variable) && declaration.getValue().map(Purity::isPure).orElse(true)){
+                    removed = true;
+                    return;
+                }
+            }
+            super.rewriteStatement(statement, rewritten);
+        }
+
+    }
+
+}
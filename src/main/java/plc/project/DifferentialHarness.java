@@ -0,0 +1,219 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * Runs a program with the {@link Interpreter} and as Java compiled from the
+ * output of the {@link Generator}, comparing what they print and return and
+ * how long they take. Differences in behavior (such as integers overflowing
+ * in Java, but not in the interpreter) show up as a mismatch, and the ratio
+ * of the times is the overhead of interpreting.
+ *
+ * The Java source is compiled in memory with the system compiler, so this
+ * needs a JDK. Output of the compiled program is captured by temporarily
+ * replacing {@link System#out}, so nothing else should print while it runs.
+ */
+public final class DifferentialHarness {
+
+    private static final Object OUTPUT = new Object();
+
+    private final int iterations;
+    private final Generator.Arithmetic arithmetic;
+
+    public DifferentialHarness(int iterations) {
+        this(iterations, Generator.Arithmetic.WRAPPING);
+    }
+
+    /**
+     * Creates a harness running each program the given number of times in
+     * each mode, with the given arithmetic in the generated Java.
+     */
+    public DifferentialHarness(int iterations, Generator.Arithmetic arithmetic) {
+        this.iterations = Math.max(iterations, 1);
+        this.arithmetic = arithmetic;
+    }
+
+    /**
+     * Compares the two modes on the source of a program, which must pass the
+     * {@link Analyzer}.
+     */
+    public Result run(String source) {
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return run(ast);
+    }
+
+    /**
+     * Compares the two modes on an analyzed program.
+     */
+    public Result run(Ast.Source ast) {
+        Outcome interpreted = null;
+        long start = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            Outcome outcome = interpret(ast);
+            if(interpreted == null){
+                interpreted = outcome;
+            }
+        }
+        long interpretNanos = System.nanoTime() - start;
+
+        StringWriter java = new StringWriter();
+        new Generator(new PrintWriter(java), arithmetic).visit(ast);
+        start = System.nanoTime();
+        Method main = compile(java.toString());
+        long compileNanos = System.nanoTime() - start;
+
+        Outcome compiled = null;
+        start = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            Outcome outcome = execute(main);
+            if(compiled == null){
+                compiled = outcome;
+            }
+        }
+        long executeNanos = System.nanoTime() - start;
+        return new Result(interpreted, compiled, interpretNanos / iterations, compileNanos, executeNanos / iterations);
+    }
+
+    private static Outcome interpret(Ast.Source ast) {
+        StringBuilder output = new StringBuilder();
+        try{
+            Object result = new Interpreter(new Scope(null), value -> output.append(value).append(System.lineSeparator())).visit(ast).getValue();
+            return new Outcome(output.toString(), String.valueOf(result), null);
+        }catch(RuntimeException e){
+            return new Outcome(output.toString(), null, e);
+        }
+    }
+
+    private static Outcome execute(Method main) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        synchronized(OUTPUT){
+            PrintStream previous = System.out;
+            System.setOut(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+            try{
+                Object instance = main.getDeclaringClass().getDeclaredConstructor().newInstance();
+                Object result = main.invoke(instance);
+                return new Outcome(bytes.toString(StandardCharsets.UTF_8), String.valueOf(result), null);
+            }catch(InvocationTargetException e){
+                return new Outcome(bytes.toString(StandardCharsets.UTF_8), null, e.getCause());
+            }catch(ReflectiveOperationException e){
+                throw new IllegalStateException(e);
+            }finally{
+                System.setOut(previous);
+            }
+        }
+    }
+
+    /**
+     * Compiles the generated class {@code Main} in memory, returning its
+     * {@code main()} instance method.
+     */
+    private static Method compile(String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null){
+            throw new IllegalStateException("Compiling generated Java requires a JDK.");
+        }
+        Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileManager manager = new ForwardingJavaFileManager<>(compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("memory:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return classes.computeIfAbsent(name, n -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        };
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("memory:///Main.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        if(!compiler.getTask(null, manager, diagnostics, List.of("-nowarn"), null, List.of(file)).call()){
+            throw new IllegalStateException("The generated Java doesn't compile: " + diagnostics.getDiagnostics());
+        }
+        ClassLoader loader = new ClassLoader(DifferentialHarness.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream bytes = classes.get(name);
+                if(bytes == null){
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+            }
+        };
+        try{
+            Method main = loader.loadClass("Main").getDeclaredMethod("main");
+            main.setAccessible(true);
+            return main;
+        }catch(ReflectiveOperationException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * What a program printed and returned (as a string, so the values of both
+     * modes compare equal), or the exception it failed with.
+     */
+    public record Outcome(String output, String result, Throwable error) {
+
+        boolean matches(Outcome other) {
+            return output.equals(other.output) && Objects.equals(result, other.result) && (error == null) == (other.error == null);
+        }
+
+    }
+
+    /**
+     * The outcome of each mode and the average time of a run, in
+     * nanoseconds. Compilation of the generated Java is timed separately.
+     */
+    public record Result(Outcome interpreted, Outcome compiled, long interpretNanos, long compileNanos, long executeNanos) {
+
+        /**
+         * Returns whether both modes printed and returned the same, or both
+         * failed after printing the same.
+         */
+        public boolean matches() {
+            return interpreted.matches(compiled);
+        }
+
+        /**
+         * Returns how many times slower interpreting is than running the
+         * compiled program.
+         */
+        public double overhead() {
+            return (double) interpretNanos / Math.max(executeNanos, 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: interpreted %.3fms, compiled %.3fms (+%.1fms to compile), overhead %.1fx",
+                    matches() ? "match" : "MISMATCH", interpretNanos / 1e6, executeNanos / 1e6, compileNanos / 1e6, overhead());
+        }
+
+    }
+
+}
@@ -2,9 +2,12 @@ package plc.project;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public final class Environment {
 
@@ -12,6 +15,23 @@ public final class Environment {
         return new PlcObject(new Scope(null), value);
     }
 
+    /**
+     * Returns the shared object for a boolean value. Its scope is frozen, as
+     * it may be returned by any number of expressions.
+     */
+    public static PlcObject create(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    private static final PlcObject TRUE = constant(true);
+    private static final PlcObject FALSE = constant(false);
+
+    private static PlcObject constant(Object value) {
+        Scope scope = new Scope(null);
+        scope.freeze();
+        return new PlcObject(scope, value);
+    }
+
     public static final PlcObject NIL = new PlcObject(Type.NIL, new Scope(null), new Object() {
 
         @Override
@@ -21,20 +41,55 @@ public final class Environment {
 
     });
 
-    private static final Map<String, Type> TYPES = new HashMap<>();
+    /**
+     * The registered types, which is never modified: registering a type
+     * replaces it with a copy, so lookups from any number of threads don't
+     * need to synchronize.
+     */
+    private static volatile Map<String, Type> types = Map.of();
 
     public static Type getType(String name) {
-        if (!TYPES.containsKey(name)) {
+        Type type = types.get(name);
+        if (type == null) {
             throw new RuntimeException("Unknown type " + name + ".");
         }
-        return TYPES.get(name);
+        return type;
     }
 
-    public static void registerType(Type type) {
-        if (TYPES.containsKey(type.getName())) {
+    /**
+     * Registers a type, freezing its scope so the members of registered types
+     * can be shared between threads.
+     */
+    public static synchronized void registerType(Type type) {
+        if (types.containsKey(type.getName())) {
             throw new IllegalArgumentException("Duplicate registration of type " + type.getName() + ".");
         }
-        TYPES.put(type.getName(), type);
+        type.scope.freeze();
+        Map<String, Type> copy = new HashMap<>(types);
+        copy.put(type.getName(), type);
+        types = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * The pure members, copied on registration like the types.
+     */
+    private static volatile Set<Named> pure = Set.of();
+
+    /**
+     * Marks a builtin field or function as pure: accessing or calling it has
+     * no side effects, and the result depends only on the receiver and
+     * arguments. Optimizations may then remove, reuse or move it (see
+     * {@link Purity}).
+     */
+    public static synchronized void registerPure(Named member) {
+        Set<Named> copy = Collections.newSetFromMap(new IdentityHashMap<>());
+        copy.addAll(pure);
+        copy.add(member);
+        pure = Collections.unmodifiableSet(copy);
+    }
+
+    public static boolean isPure(Named member) {
+        return pure.contains(member);
     }
 
     public static final class Type {
@@ -300,6 +355,14 @@ public final class Environment {
     }
 
     static {
+        registerPure(Type.ANY.scope.defineFunction("stringify", "toString", Arrays.asList(), Type.STRING, args -> Environment.NIL));
+        Type.COMPARABLE.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.COMPARABLE), Type.COMPARABLE, args -> Environment.NIL);
+        registerPure(Type.INTEGER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.INTEGER), Type.INTEGER, args -> Environment.NIL));
+        registerPure(Type.DECIMAL.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.DECIMAL), Type.DECIMAL, args -> Environment.NIL));
+        registerPure(Type.CHARACTER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.CHARACTER), Type.CHARACTER, args -> Environment.NIL));
+        Type.STRING.scope.defineVariable("length", "length()", Type.INTEGER, false, Environment.NIL);
+        Type.STRING.scope.defineFunction("slice", "substring", Arrays.asList(Type.ANY, Type.INTEGER, Type.INTEGER), Type.STRING, args -> Environment.NIL);
+        registerPure(Type.STRING.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.STRING), Type.STRING, args -> Environment.NIL));
         registerType(Type.ANY);
         registerType(Type.NIL);
         registerType(Type.COMPARABLE);
@@ -308,14 +371,6 @@ public final class Environment {
         registerType(Type.DECIMAL);
         registerType(Type.CHARACTER);
         registerType(Type.STRING);
-        Type.ANY.scope.defineFunction("stringify", "toString", Arrays.asList(), Type.STRING, args -> Environment.NIL);
-        Type.COMPARABLE.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.COMPARABLE), Type.COMPARABLE, args -> Environment.NIL);
-        Type.INTEGER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.INTEGER), Type.INTEGER, args -> Environment.NIL);
-        Type.DECIMAL.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.DECIMAL), Type.DECIMAL, args -> Environment.NIL);
-        Type.CHARACTER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.CHARACTER), Type.CHARACTER, args -> Environment.NIL);
-        Type.STRING.scope.defineVariable("length", "length()", Type.INTEGER, false, Environment.NIL);
-        Type.STRING.scope.defineFunction("slice", "substring", Arrays.asList(Type.ANY, Type.INTEGER, Type.INTEGER), Type.STRING, args -> Environment.NIL);
-        Type.STRING.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.STRING), Type.STRING, args -> Environment.NIL);
     }
 
 }
@@ -0,0 +1,31 @@
+package plc.project;
+
+/**
+ * Receives events from an {@link Interpreter} as it runs a program, such as
+ * {@link MethodMetrics}. Interpreters use {@link #NONE} unless given another
+ * listener, whose empty methods the JIT removes entirely.
+ *
+ * Listeners are called on the thread running the interpreter, and one
+ * listener should only be given to one interpreter at a time.
+ */
+public interface ExecutionListener {
+
+    ExecutionListener NONE = new ExecutionListener() {};
+
+    /**
+     * Called when a method of the program is invoked, after its arguments
+     * have been evaluated.
+     */
+    default void enter(Ast.Method method) {}
+
+    /**
+     * Called when a method returns, normally or with an exception.
+     */
+    default void exit(Ast.Method method) {}
+
+    /**
+     * Called when a value is created while evaluating an expression.
+     */
+    default void allocate(Environment.PlcObject value) {}
+
+}
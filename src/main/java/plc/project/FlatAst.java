@@ -0,0 +1,342 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+/**
+ * A compact, arena allocated representation of a source file. Instead of one
+ * object per node, nodes are indices into parallel arrays: a {@code byte} kind
+ * and four {@code int} operands per node. Operands refer to other nodes,
+ * interned strings, pooled literals or child lists (stored inline in a single
+ * {@code int[]} as a length followed by the elements), with {@code -1} for
+ * absent values.
+ *
+ * <pre>
+ * SOURCE     fields (list), methods (list)
+ * FIELD      name, type name, constant (0 or 1), value
+ * METHOD     name, signature (list of strings: return type then each
+ *            parameter's name and type name), statements (list)
+ * EXPRESSION expression
+ * DECLARATION name, type name, value
+ * ASSIGNMENT receiver, value
+ * IF         condition, then statements (list), else statements (list)
+ * FOR        initialization, condition, increment, statements (list)
+ * WHILE      condition, statements (list)
+ * RETURN     value
+ * LITERAL    literal
+ * GROUP      expression
+ * BINARY     operator, left, right
+ * ACCESS     receiver, name
+ * FUNCTION   receiver, name, arguments (list)
+ * </pre>
+ *
+ * Use {@link Parser#parseFlatSource()} to build one, and {@link #view()} or
+ * {@link #transientView()} to run existing passes such as the
+ * {@link Analyzer} and {@link Interpreter} over it.
+ */
+public final class FlatAst {
+
+    public static final byte SOURCE = 1, FIELD = 2, METHOD = 3,
+            EXPRESSION = 4, DECLARATION = 5, ASSIGNMENT = 6, IF = 7, FOR = 8, WHILE = 9, RETURN = 10,
+            LITERAL = 11, GROUP = 12, BINARY = 13, ACCESS = 14, FUNCTION = 15;
+
+    private static final int OPERANDS = 4;
+
+    private final byte[] kinds;
+    private final int[] operands;
+    private final int[] lists;
+    private final String[] strings;
+    private final Object[] literals;
+    private final int root;
+
+    private FlatAst(byte[] kinds, int[] operands, int[] lists, String[] strings, Object[] literals, int root) {
+        this.kinds = kinds;
+        this.operands = operands;
+        this.lists = lists;
+        this.strings = strings;
+        this.literals = literals;
+        this.root = root;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public int getSize() {
+        return kinds.length;
+    }
+
+    public byte getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * Returns the operand of the node, which is interpreted according to the
+     * node's kind (see the class documentation).
+     */
+    public int getOperand(int node, int operand) {
+        return operands[node * OPERANDS + operand];
+    }
+
+    public String getString(int string) {
+        return string < 0 ? null : strings[string];
+    }
+
+    public Object getLiteral(int literal) {
+        return literals[literal];
+    }
+
+    public int getListSize(int list) {
+        return lists[list];
+    }
+
+    public int getListElement(int list, int index) {
+        return lists[list + 1 + index];
+    }
+
+    /**
+     * Returns an {@link Ast.Source} backed by this tree. Nodes are created the
+     * first time they're reached through a child list and reused afterwards,
+     * so annotations set by the {@link Analyzer} are kept and code that is
+     * never visited (such as uncalled methods) is never materialized. Once
+     * visited, however, nodes stay reachable from the view alongside the
+     * arena, so passes which don't need annotations from an earlier pass
+     * should use {@link #transientView()} instead.
+     */
+    public Ast.Source view() {
+        return (Ast.Source) materialize(root, true);
+    }
+
+    /**
+     * Returns an {@link Ast.Source} backed by this tree which doesn't keep the
+     * nodes it creates: each access to a child list creates the element anew.
+     * Only the nodes a pass is currently visiting (or holds on to itself)
+     * exist as objects, but annotations are lost between accesses and code
+     * that is visited repeatedly is recreated each time. This is only meant
+     * for passes which visit each node once, such as the {@link Generator}
+     * or {@link AstSerializer}; the {@link Interpreter} would recreate the
+     * body of a loop on every iteration and of a method on every call, so it
+     * should use {@link #view()}.
+     */
+    public Ast.Source transientView() {
+        return (Ast.Source) materialize(root, false);
+    }
+
+    private Ast materialize(int node, boolean cache) {
+        if(node < 0){
+            return null;
+        }
+        int a = getOperand(node, 0), b = getOperand(node, 1), c = getOperand(node, 2), d = getOperand(node, 3);
+        switch(kinds[node]){
+            case SOURCE:
+                return new Ast.Source(new View<>(a, cache), new View<>(b, cache));
+            case FIELD:
+                return new Ast.Field(getString(a), getString(b), c != 0, Optional.ofNullable(expression(d, cache)));
+            case METHOD: {
+                List<String> parameters = new ArrayList<>();
+                List<String> parameterTypeNames = new ArrayList<>();
+                for(int i = 1; i < getListSize(b); i += 2){
+                    parameters.add(getString(getListElement(b, i)));
+                    parameterTypeNames.add(getString(getListElement(b, i + 1)));
+                }
+                return new Ast.Method(getString(a), parameters, parameterTypeNames, Optional.ofNullable(getString(getListElement(b, 0))), new View<>(c, cache));
+            }
+            case EXPRESSION:
+                return new Ast.Statement.Expression(expression(a, cache));
+            case DECLARATION:
+                return new Ast.Statement.Declaration(getString(a), Optional.ofNullable(getString(b)), Optional.ofNullable(expression(c, cache)));
+            case ASSIGNMENT:
+                return new Ast.Statement.Assignment(expression(a, cache), expression(b, cache));
+            case IF:
+                return new Ast.Statement.If(expression(a, cache), new View<>(b, cache), new View<>(c, cache));
+            case FOR:
+                return new Ast.Statement.For((Ast.Statement) materialize(a, cache), expression(b, cache), (Ast.Statement) materialize(c, cache), new View<>(d, cache));
+            case WHILE:
+                return new Ast.Statement.While(expression(a, cache), new View<>(b, cache));
+            case RETURN:
+                return new Ast.Statement.Return(expression(a, cache));
+            case LITERAL:
+                return new Ast.Expression.Literal(literals[a]);
+            case GROUP:
+                return new Ast.Expression.Group(expression(a, cache));
+            case BINARY:
+                return new Ast.Expression.Binary(getString(a), expression(b, cache), expression(c, cache));
+            case ACCESS:
+                return new Ast.Expression.Access(Optional.ofNullable(expression(a, cache)), getString(b));
+            case FUNCTION:
+                return new Ast.Expression.Function(Optional.ofNullable(expression(a, cache)), getString(b), new View<>(c, cache));
+            default:
+                throw new AssertionError("Unknown node kind " + kinds[node] + ".");
+        }
+    }
+
+    private Ast.Expression expression(int node, boolean cache) {
+        return (Ast.Expression) materialize(node, cache);
+    }
+
+    /**
+     * A child list of a view, materializing elements on access and keeping
+     * them if caching.
+     */
+    private final class View<T extends Ast> extends AbstractList<T> implements RandomAccess {
+
+        private final int list;
+        private final Ast[] elements;
+
+        private View(int list, boolean cache) {
+            this.list = list;
+            this.elements = cache ? new Ast[getListSize(list)] : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, size());
+            if(elements == null){
+                return (T) materialize(getListElement(list, index), false);
+            }
+            if(elements[index] == null){
+                elements[index] = materialize(getListElement(list, index), true);
+            }
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return getListSize(list);
+        }
+
+    }
+
+    /**
+     * Appends nodes to the arena. Top level declarations are added as soon as
+     * they are parsed so that their object trees can be discarded right away.
+     */
+    public static final class Builder {
+
+        private byte[] kinds = new byte[256];
+        private int[] operands = new int[256 * OPERANDS];
+        private int size = 0;
+        private int[] lists = new int[256];
+        private int listsLength = 0;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+        private final List<Object> literals = new ArrayList<>();
+        private final List<Integer> fields = new ArrayList<>();
+        private final List<Integer> methods = new ArrayList<>();
+
+        public Builder addField(Ast.Field ast) {
+            fields.add(add(ast));
+            return this;
+        }
+
+        public Builder addMethod(Ast.Method ast) {
+            methods.add(add(ast));
+            return this;
+        }
+
+        public FlatAst build() {
+            int root = node(SOURCE, list(fields.stream().mapToInt(Integer::intValue).toArray()),
+                    list(methods.stream().mapToInt(Integer::intValue).toArray()), -1, -1);
+            return new FlatAst(Arrays.copyOf(kinds, size), Arrays.copyOf(operands, size * OPERANDS),
+                    Arrays.copyOf(lists, listsLength), strings.toArray(new String[0]), literals.toArray(), root);
+        }
+
+        private int add(Ast ast) {
+            if(ast == null){
+                return -1;
+            }
+            switch(ast){
+                case Ast.Field field:
+                    return node(FIELD, string(field.getName()), string(field.getTypeName()), field.getConstant() ? 1 : 0, add(field.getValue().orElse(null)));
+                case Ast.Method method: {
+                    int[] signature = new int[1 + 2 * method.getParameters().size()];
+                    signature[0] = string(method.getReturnTypeName().orElse(null));
+                    for(int i = 0; i < method.getParameters().size(); i++){
+                        signature[1 + 2 * i] = string(method.getParameters().get(i));
+                        signature[2 + 2 * i] = string(method.getParameterTypeNames().get(i));
+                    }
+                    return node(METHOD, string(method.getName()), list(signature), nodes(method.getStatements()), -1);
+                }
+                case Ast.Statement.Expression statement:
+                    return node(EXPRESSION, add(statement.getExpression()), -1, -1, -1);
+                case Ast.Statement.Declaration statement:
+                    return node(DECLARATION, string(statement.getName()), string(statement.getTypeName().orElse(null)), add(statement.getValue().orElse(null)), -1);
+                case Ast.Statement.Assignment statement:
+                    return node(ASSIGNMENT, add(statement.getReceiver()), add(statement.getValue()), -1, -1);
+                case Ast.Statement.If statement:
+                    return node(IF, add(statement.getCondition()), nodes(statement.getThenStatements()), nodes(statement.getElseStatements()), -1);
+                case Ast.Statement.For statement:
+                    return node(FOR, add(statement.getInitialization()), add(statement.getCondition()), add(statement.getIncrement()), nodes(statement.getStatements()));
+                case Ast.Statement.While statement:
+                    return node(WHILE, add(statement.getCondition()), nodes(statement.getStatements()), -1, -1);
+                case Ast.Statement.Return statement:
+                    return node(RETURN, add(statement.getValue()), -1, -1, -1);
+                case Ast.Expression.Literal expression:
+                    literals.add(expression.getLiteral());
+                    return node(LITERAL, literals.size() - 1, -1, -1, -1);
+                case Ast.Expression.Group expression:
+                    return node(GROUP, add(expression.getExpression()), -1, -1, -1);
+                case Ast.Expression.Binary expression:
+                    return node(BINARY, string(expression.getOperator()), add(expression.getLeft()), add(expression.getRight()), -1);
+                case Ast.Expression.Access expression:
+                    return node(ACCESS, add(expression.getReceiver().orElse(null)), string(expression.getName()), -1, -1);
+                case Ast.Expression.Function expression:
+                    return node(FUNCTION, add(expression.getReceiver().orElse(null)), string(expression.getName()), nodes(expression.getArguments()), -1);
+                default:
+                    throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+            }
+        }
+
+        private int node(byte kind, int a, int b, int c, int d) {
+            if(size == kinds.length){
+                kinds = Arrays.copyOf(kinds, size * 2);
+                operands = Arrays.copyOf(operands, size * 2 * OPERANDS);
+            }
+            kinds[size] = kind;
+            operands[size * OPERANDS] = a;
+            operands[size * OPERANDS + 1] = b;
+            operands[size * OPERANDS + 2] = c;
+            operands[size * OPERANDS + 3] = d;
+            return size++;
+        }
+
+        private int nodes(List<? extends Ast> asts) {
+            int[] elements = new int[asts.size()];
+            for(int i = 0; i < elements.length; i++){
+                elements[i] = add(asts.get(i));
+            }
+            return list(elements);
+        }
+
+        private int list(int[] elements) {
+            if(listsLength + elements.length + 1 > lists.length){
+                lists = Arrays.copyOf(lists, Math.max(lists.length * 2, listsLength + elements.length + 1));
+            }
+            int list = listsLength;
+            lists[listsLength++] = elements.length;
+            System.arraycopy(elements, 0, lists, listsLength, elements.length);
+            listsLength += elements.length;
+            return list;
+        }
+
+        private int string(String string) {
+            if(string == null){
+                return -1;
+            }
+            return stringIndices.computeIfAbsent(string, k -> {
+                strings.add(k);
+                return strings.size() - 1;
+            });
+        }
+
+    }
+
+}
@@ -1,32 +1,104 @@
 package plc.project;
 
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public final class Generator implements Ast.Visitor<Void> {
 
-    private final PrintWriter writer;
+    /**
+     * How {@code Integer} values are generated. Integers are unbounded in the
+     * {@link Interpreter}, but {@code int} in generated code unless the
+     * arithmetic is {@link #UNBOUNDED}.
+     */
+    public enum Arithmetic {
+        /**
+         * {@code int}, silently wrapping around on overflow.
+         */
+        WRAPPING,
+        /**
+         * {@code int}, throwing an {@link ArithmeticException} on overflow.
+         */
+        CHECKED,
+        /**
+         * {@link java.math.BigInteger}, computing the same values as the
+         * interpreter at the cost of allocating for each operation.
+         */
+        UNBOUNDED
+    }
+
+    /**
+     * Line separators followed by each level of indentation, so a new line
+     * is a single write.
+     */
+    private static final String[] NEWLINES = new String[16];
+
+    static {
+        NEWLINES[0] = System.lineSeparator();
+        for(int i = 1; i < NEWLINES.length; i++){
+            NEWLINES[i] = NEWLINES[i - 1] + "    ";
+        }
+    }
+
+    private final Writer writer;
+    private final Arithmetic arithmetic;
+    private final ForkJoinPool pool;
     private int indent = 0;
 
-    public Generator(PrintWriter writer) {
+    /**
+     * Creates a generator writing to the given writer, which may be a
+     * {@link java.io.PrintWriter} or, for large outputs, a
+     * {@link ChannelWriter}. The writer is not flushed.
+     */
+    public Generator(Writer writer) {
+        this(writer, Arithmetic.WRAPPING);
+    }
+
+    public Generator(Writer writer, Arithmetic arithmetic) {
+        this(writer, arithmetic, null);
+    }
+
+    /**
+     * Creates a generator which renders the methods of a source concurrently
+     * on the given pool, each into its own buffer, and writes them in
+     * declaration order. The output is the same as without a pool, but the
+     * code of every method (other than {@code main}) is held in memory as a
+     * string until it is written, so this gives up the streaming of a
+     * {@link ChannelWriter} in exchange for using several cores.
+     */
+    public Generator(Writer writer, Arithmetic arithmetic, ForkJoinPool pool) {
         this.writer = writer;
+        this.arithmetic = arithmetic;
+        this.pool = pool;
     }
 
     private void print(Object... objects) {
         for (Object object : objects) {
             if (object instanceof Ast) {
                 visit((Ast) object);
-            }else if(object != null){
-                writer.write(object.toString());
             }else{
-                writer.write("null");
+                write(String.valueOf(object));
             }
         }
     }
 
     private void newline(int indent) {
-        writer.println();
-        for (int i = 0; i < indent; i++) {
-            writer.write("    ");
+        if(indent < NEWLINES.length){
+            write(NEWLINES[indent]);
+        }else{
+            write(NEWLINES[NEWLINES.length - 1] + "    ".repeat(indent - NEWLINES.length + 1));
+        }
+    }
+
+    private void write(String string) {
+        try{
+            writer.write(string);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -47,17 +119,20 @@ public final class Generator implements Ast.Visitor<Void> {
                 newline(0);
             }
 
-            for(Ast.Method method : ast.getMethods()){
-                if(method.getName().equals("main")) continue;
+            // main is emitted last, so it isn't rendered on the pool.
+            List<Ast.Method> methods = ast.getMethods().stream().filter(method -> !method.getName().equals("main")).toList();
+            List<String> rendered = render(methods);
+            for(int i = 0; i < methods.size(); i++){
                 newline(indent);
-                visit(method);
+                method(methods.get(i), rendered.get(i));
                 newline(0);
             }
         }
         newline(indent);
         print("public static void main(String[] args) {");
         newline(indent + 1);
-        print("System.exit(new Main().main());");
+        boolean unboundedMain = ast.getMethods().stream().anyMatch(method -> method.getName().equals("main") && isUnbounded(method.getFunction().getReturnType()));
+        print(unboundedMain ? "System.exit(new Main().main().intValue());" : "System.exit(new Main().main());");
         newline(indent);
         print("}");
 
@@ -74,10 +149,43 @@ public final class Generator implements Ast.Visitor<Void> {
         return null;
     }
 
+    /**
+     * Renders the methods on the pool, returning their code in the same
+     * order, or {@code null} for each method if there is no pool.
+     */
+    private List<String> render(List<Ast.Method> methods) {
+        if(pool == null || methods.size() < 2){
+            return Collections.nCopies(methods.size(), null);
+        }
+        return pool.submit(() -> methods.parallelStream().map(method -> {
+            StringWriter buffer = new StringWriter();
+            Generator generator = new Generator(buffer, arithmetic);
+            generator.indent = indent;
+            generator.visit(method);
+            return buffer.toString();
+        }).toList()).join();
+    }
+
+    private void method(Ast.Method method, String rendered) {
+        if(rendered == null){
+            visit(method);
+        }else{
+            write(rendered);
+        }
+    }
+
+    private boolean isUnbounded(Environment.Type type) {
+        return arithmetic == Arithmetic.UNBOUNDED && type == Environment.Type.INTEGER;
+    }
+
+    private String jvmName(Environment.Type type) {
+        return isUnbounded(type) ? "java.math.BigInteger" : type.getJvmName();
+    }
+
     @Override
     public Void visit(Ast.Field ast) {
         if (ast.getConstant()) print("final ");
-        print(ast.getVariable().getType().getJvmName(), " ", ast.getVariable().getJvmName());
+        print(jvmName(ast.getVariable().getType()), " ", ast.getVariable().getJvmName());
         if(ast.getValue().isPresent()){
             print(" = ", ast.getValue().get());
         }
@@ -87,10 +195,10 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Method ast) {
-        print(ast.getFunction().getReturnType().getJvmName(), " ", ast.getFunction().getJvmName(), "(");
+        print(jvmName(ast.getFunction().getReturnType()), " ", ast.getFunction().getJvmName(), "(");
         for(int i = 0; i < ast.getParameters().size(); i++){
             if(i > 0) print(", ");
-            print(ast.getFunction().getParameterTypes().get(i).getJvmName(), " ", ast.getParameters().get(i));
+            print(jvmName(ast.getFunction().getParameterTypes().get(i)), " ", ast.getParameters().get(i));
         }
         print(") {");
         indent++;
@@ -118,7 +226,7 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Statement.Declaration ast) {
-        print(ast.getVariable().getType().getJvmName(), " ", ast.getVariable().getJvmName());
+        print(jvmName(ast.getVariable().getType()), " ", ast.getVariable().getJvmName());
         if(ast.getValue().isPresent()){
             print(" = ", ast.getValue().get());
         }
@@ -171,7 +279,7 @@ public final class Generator implements Ast.Visitor<Void> {
         if(ast.getInitialization() != null){
             switch(ast.getInitialization()){
                 case Ast.Statement.Declaration decl ->{
-                    print(decl.getVariable().getType().getJvmName(), " ", decl.getVariable().getJvmName());
+                    print(jvmName(decl.getVariable().getType()), " ", decl.getVariable().getJvmName());
                     if(decl.getValue().isPresent()){
                         print(" = ", decl.getValue().get());
                     }
@@ -245,6 +353,9 @@ public final class Generator implements Ast.Visitor<Void> {
             print("\"", ast.getLiteral().toString().replace("\n", "\\n"), "\"");
         } else if(ast.getLiteral() instanceof Character){
             print("'", ast.getLiteral().toString(), "'");
+        }else if(ast.getLiteral() instanceof java.math.BigInteger && arithmetic == Arithmetic.UNBOUNDED){
+            // The Analyzer limits literals to the range of an int.
+            print("java.math.BigInteger.valueOf(", ast.getLiteral(), ")");
         }else{
             print(ast.getLiteral());
         }
@@ -259,6 +370,31 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Expression.Binary ast) {
+        if(isUnbounded(ast.getLeft().getType()) && isUnbounded(ast.getRight().getType())){
+            switch(ast.getOperator()){
+                case "+" -> print(ast.getLeft(), ".add(", ast.getRight(), ")");
+                case "-" -> print(ast.getLeft(), ".subtract(", ast.getRight(), ")");
+                case "*" -> print(ast.getLeft(), ".multiply(", ast.getRight(), ")");
+                case "/" -> print(ast.getLeft(), ".divide(", ast.getRight(), ")");
+                case "==" -> print(ast.getLeft(), ".equals(", ast.getRight(), ")");
+                case "!=" -> print("!", ast.getLeft(), ".equals(", ast.getRight(), ")");
+                default -> print(ast.getLeft(), ".compareTo(", ast.getRight(), ") ", ast.getOperator(), " 0");
+            }
+            return null;
+        }
+        if(arithmetic == Arithmetic.CHECKED && ast.getType() == Environment.Type.INTEGER){
+            String method = switch(ast.getOperator()){
+                case "+" -> "addExact";
+                case "-" -> "subtractExact";
+                case "*" -> "multiplyExact";
+                case "/" -> "divideExact";
+                default -> null;
+            };
+            if(method != null){
+                print("Math.", method, "(", ast.getLeft(), ", ", ast.getRight(), ")");
+                return null;
+            }
+        }
         if(ast.getOperator().equals("*") && ast.getLeft() instanceof Ast.Expression.Binary && ((Ast.Expression.Binary)ast.getLeft()).getOperator().equals("/")){
             print("(");
             visit(ast.getLeft());
@@ -275,16 +411,31 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Expression.Access ast) {
+        // Members of builtin types are Java members using int.
+        boolean widen = ast.getReceiver().isPresent() && isUnbounded(ast.getVariable().getType());
+        if(widen){
+            print("java.math.BigInteger.valueOf(");
+        }
         if(ast.getReceiver().isPresent()){
             print(ast.getReceiver().get(), ".");
         }
         print(ast.getVariable().getJvmName());
+        if(widen){
+            print(")");
+        }
         return null;
     }
 
     @Override
     public Void visit(Ast.Expression.Function ast) {
-        if(ast.getReceiver().isPresent()){
+        // Members of builtin types are Java methods using int, and the first
+        // parameter type of a member is its receiver.
+        boolean member = ast.getReceiver().isPresent();
+        boolean widen = member && isUnbounded(ast.getFunction().getReturnType());
+        if(widen){
+            print("java.math.BigInteger.valueOf(");
+        }
+        if(member){
             print(ast.getReceiver().get(), ".");
         }
         print(ast.getFunction().getJvmName(), "(");
@@ -293,8 +444,14 @@ public final class Generator implements Ast.Visitor<Void> {
                 print(", ");
             }
             print(ast.getArguments().get(i));
+            if(member && isUnbounded(ast.getFunction().getParameterTypes().get(i + 1)) && !isUnbounded(ast.getReceiver().get().getType())){
+                print(".intValueExact()");
+            }
         }
         print(")");
+        if(widen){
+            print(")");
+        }
         return null;
     }
 }
@@ -0,0 +1,346 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Replaces calls to small, non-recursive methods with the statements of the
+ * method, avoiding the cost of the call (a new scope and an exception for the
+ * {@code RETURN} in the interpreter).
+ *
+ * Calls are inlined where they are the whole statement or the value of a
+ * declaration, an assignment to a variable, or a {@code RETURN}, so the body
+ * can be placed before the statement. A method is inlined if:
+ *
+ * <ul>
+ *     <li>it doesn't call itself, directly or through other methods,</li>
+ *     <li>its body has at most {@code threshold} nodes,</li>
+ *     <li>its only {@code RETURN} is its last statement (which is required
+ *     unless the result is discarded),</li>
+ *     <li>all of its declarations have an initial value, and</li>
+ *     <li>none of the fields it accesses are shadowed at the call site.</li>
+ * </ul>
+ *
+ * Parameters and locals of the method are renamed to temporaries declared at
+ * the start of the calling method, for the same reason as in
+ * {@link LoopInvariantCodeMotion}. Arguments which are literals or locals of
+ * the caller are substituted directly if the method doesn't assign the
+ * parameter. Calls in inlined bodies are not inlined again; running the pass
+ * again will.
+ *
+ * Only analyzed trees are transformed, since the temporaries need types.
+ */
+public final class Inliner extends AstRewriter {
+
+    private final int threshold;
+    private final Map<String, Ast.Method> methods = new HashMap<>();
+    private final Set<Ast.Method> recursive = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<String> names = new HashSet<>();
+    private final List<Ast.Statement> temporaries = new ArrayList<>();
+    private Set<Environment.Variable> locals;
+    private Set<String> shadowed;
+    private int counter = 0;
+
+    public Inliner() {
+        this(20);
+    }
+
+    public Inliner(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        names.addAll(Names.collect(ast));
+        for(Ast.Method method : ast.getMethods()){
+            methods.putIfAbsent(signature(method.getName(), method.getParameters().size()), method);
+        }
+        for(Ast.Method method : ast.getMethods()){
+            if(calls(method, method)){
+                recursive.add(method);
+            }
+        }
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Method ast) {
+        locals = LoopInvariantCodeMotion.locals(ast);
+        shadowed = new HashSet<>(ast.getParameters());
+        for(Environment.Variable variable : locals){
+            shadowed.add(variable.getName());
+        }
+        temporaries.clear();
+        Ast.Method method = (Ast.Method) super.visit(ast);
+        if(temporaries.isEmpty()){
+            return method;
+        }
+        List<Ast.Statement> statements = new ArrayList<>(temporaries);
+        statements.addAll(method.getStatements());
+        Ast.Method inlined = new Ast.Method(method.getName(), method.getParameters(), method.getParameterTypeNames(), method.getReturnTypeName(), statements);
+        Environment.Function function = Ast.annotation(method::getFunction);
+        if(function != null){
+            inlined.setFunction(function);
+        }
+        return inlined;
+    }
+
+    @Override
+    protected void rewriteStatement(Ast.Statement statement, List<Ast.Statement> rewritten) {
+        Ast.Expression.Function call = switch(statement){
+            case Ast.Statement.Expression ast -> ast.getExpression() instanceof Ast.Expression.Function function ? function : null;
+            case Ast.Statement.Declaration ast -> ast.getValue().orElse(null) instanceof Ast.Expression.Function function ? function : null;
+            case Ast.Statement.Assignment ast -> ast.getReceiver() instanceof Ast.Expression.Access access && access.getReceiver().isEmpty()
+                    && ast.getValue() instanceof Ast.Expression.Function function ? function : null;
+            case Ast.Statement.Return ast -> ast.getValue() instanceof Ast.Expression.Function function ? function : null;
+            default -> null;
+        };
+        Ast.Method callee = call == null || locals == null ? null : inlinable(call, !(statement instanceof Ast.Statement.Expression));
+        if(callee == null){
+            super.rewriteStatement(statement, rewritten);
+            return;
+        }
+        Ast.Expression value = inline(callee, call, rewritten);
+        switch(statement){
+            case Ast.Statement.Expression ast -> {
+                if(value != null){
+                    discard(value, rewritten);
+                }
+            }
+            case Ast.Statement.Declaration ast -> {
+                Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(ast.getName(), ast.getTypeName(), Optional.of(value));
+                declaration.setVariable(ast.getVariable());
+                rewritten.add(declaration);
+            }
+            case Ast.Statement.Assignment ast -> rewritten.add(new Ast.Statement.Assignment(rewrite(ast.getReceiver()), value));
+            default -> rewritten.add(new Ast.Statement.Return(value));
+        }
+    }
+
+    /**
+     * Returns the method called if the call can be inlined, or {@code null}
+     * otherwise.
+     */
+    private Ast.Method inlinable(Ast.Expression.Function call, boolean value) {
+        Ast.Method method = methods.get(signature(call.getName(), call.getArguments().size()));
+        if(call.getReceiver().isPresent() || method == null || recursive.contains(method) || Ast.annotation(method::getFunction) == null){
+            return null;
+        }
+        List<Ast.Statement> statements = method.getStatements();
+        boolean returns = !statements.isEmpty() && statements.get(statements.size() - 1) instanceof Ast.Statement.Return;
+        if(value && !returns){
+            return null;
+        }
+        Set<Environment.Variable> own = LoopInvariantCodeMotion.locals(method);
+        int[] size = {0};
+        int[] returnCount = {0};
+        boolean[] valid = {true};
+        new AstScanner() {
+            @Override
+            public Void visit(Ast.Statement.Declaration ast) {
+                valid[0] &= ast.getValue().isPresent();
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast.Statement.Return ast) {
+                returnCount[0]++;
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast.Expression.Access ast) {
+                Environment.Variable variable = Ast.annotation(ast::getVariable);
+                valid[0] &= variable != null && (ast.getReceiver().isPresent() || own.contains(variable) || !shadowed.contains(ast.getName()));
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast ast) {
+                size[0]++;
+                return super.visit(ast);
+            }
+        }.visit(method);
+        if(!valid[0] || size[0] > threshold || returnCount[0] > (returns ? 1 : 0)){
+            return null;
+        }
+        return method;
+    }
+
+    /**
+     * Appends the statements of the method, with the parameters bound to the
+     * arguments of the call, and returns the value of its final
+     * {@code RETURN} (or {@code null} if there is none).
+     */
+    private Ast.Expression inline(Ast.Method method, Ast.Expression.Function call, List<Ast.Statement> rewritten) {
+        Map<String, Environment.Variable> parameters = new HashMap<>();
+        Set<Environment.Variable> assigned = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Environment.Variable> declared = Collections.newSetFromMap(new IdentityHashMap<>());
+        new AstScanner() {
+            @Override
+            public Void visit(Ast.Statement.Declaration ast) {
+                declared.add(ast.getVariable());
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast.Statement.Assignment ast) {
+                if(ast.getReceiver() instanceof Ast.Expression.Access access && access.getReceiver().isEmpty()){
+                    assigned.add(access.getVariable());
+                }
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast.Expression.Access ast) {
+                if(ast.getReceiver().isEmpty() && method.getParameters().contains(ast.getName()) && !declared.contains(ast.getVariable())){
+                    parameters.put(ast.getName(), ast.getVariable());
+                }
+                return super.visit(ast);
+            }
+        }.visit(method);
+        Map<Environment.Variable, Ast.Expression> replacements = new IdentityHashMap<>();
+        for(int i = 0; i < call.getArguments().size(); i++){
+            Ast.Expression argument = rewrite(call.getArguments().get(i));
+            Environment.Variable parameter = parameters.get(method.getParameters().get(i));
+            if(parameter == null){
+                discard(argument, rewritten);
+            }else if(!assigned.contains(parameter) && substitutable(argument)){
+                replacements.put(parameter, argument);
+            }else{
+                Ast.Expression.Access temporary = temporary(parameter.getName(), parameter.getType());
+                rewritten.add(new Ast.Statement.Assignment(temporary, argument));
+                replacements.put(parameter, temporary);
+            }
+        }
+        for(Environment.Variable variable : declared){
+            replacements.put(variable, temporary(variable.getName(), variable.getType()));
+        }
+        Body body = new Body(replacements);
+        List<Ast.Statement> statements = method.getStatements();
+        Ast.Expression value = null;
+        for(Ast.Statement statement : statements){
+            if(statement instanceof Ast.Statement.Return ast){
+                value = body.rewrite(ast.getValue());
+            }else{
+                body.rewriteStatement(statement, rewritten);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Arguments which can't change while the method runs are used in place
+     * of the parameter.
+     */
+    private boolean substitutable(Ast.Expression argument) {
+        if(argument instanceof Ast.Expression.Literal){
+            return typeOf(argument) != null;
+        }
+        return argument instanceof Ast.Expression.Access access && access.getReceiver().isEmpty()
+                && locals.contains(Ast.annotation(access::getVariable));
+    }
+
+    /**
+     * Appends a statement evaluating the expression for its effects, unless
+     * it is pure.
+     */
+    private void discard(Ast.Expression expression, List<Ast.Statement> rewritten) {
+        if(Purity.isPure(expression)){
+            return;
+        }
+        if(expression instanceof Ast.Expression.Function){
+            rewritten.add(new Ast.Statement.Expression(expression));
+        }else{
+            rewritten.add(new Ast.Statement.Assignment(temporary("result", typeOf(expression)), expression));
+        }
+    }
+
+    private Ast.Expression.Access temporary(String base, Environment.Type type) {
+        String name;
+        do{
+            name = "_" + base + counter++;
+        }while(names.contains(name));
+        names.add(name);
+        Environment.Variable variable = new Environment.Variable(name, name, type, false, Environment.NIL);
+        locals.add(variable);
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, Optional.of(type.getName()), Optional.empty());
+        declaration.setVariable(variable);
+        temporaries.add(declaration);
+        Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), name);
+        access.setVariable(variable);
+        return access;
+    }
+
+    /**
+     * Returns whether the method may call the target, directly or through
+     * other methods.
+     */
+    private boolean calls(Ast.Method method, Ast.Method target) {
+        Set<Ast.Method> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Ast.Method> pending = new ArrayList<>(List.of(method));
+        while(!pending.isEmpty()){
+            Ast.Method next = pending.remove(pending.size() - 1);
+            boolean[] found = {false};
+            new AstScanner() {
+                @Override
+                public Void visit(Ast.Expression.Function ast) {
+                    Ast.Method callee = methods.get(signature(ast.getName(), ast.getArguments().size()));
+                    if(ast.getReceiver().isEmpty() && callee != null){
+                        found[0] |= callee == target;
+                        if(visited.add(callee)){
+                            pending.add(callee);
+                        }
+                    }
+                    return super.visit(ast);
+                }
+            }.visit(next);
+            if(found[0]){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String signature(String name, int arity) {
+        return name + "/" + arity;
+    }
+
+    /**
+     * Copies the body of an inlined method, replacing its parameters and
+     * locals and turning its declarations into assignments.
+     */
+    private static final class Body extends AstRewriter {
+
+        private final Map<Environment.Variable, Ast.Expression> replacements;
+
+        private Body(Map<Environment.Variable, Ast.Expression> replacements) {
+            this.replacements = replacements;
+        }
+
+        @Override
+        protected void rewriteStatement(Ast.Statement statement, List<Ast.Statement> rewritten) {
+            if(statement instanceof Ast.Statement.Declaration ast){
+                rewritten.add(new Ast.Statement.Assignment(rewrite(replacements.get(ast.getVariable())), rewrite(ast.getValue().get())));
+            }else{
+                super.rewriteStatement(statement, rewritten);
+            }
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Access ast) {
+            Ast.Expression replacement = ast.getReceiver().isEmpty() ? replacements.get(ast.getVariable()) : null;
+            // Replacements are copied, since they may be used more than once.
+            return replacement == null ? super.visit(ast) : new AstRewriter() {}.rewrite(replacement);
+        }
+
+    }
+
+}
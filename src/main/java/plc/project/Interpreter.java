@@ -1,20 +1,42 @@
 package plc.project;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     private Scope scope = new Scope(null);
+    private final Budget.Meter meter;
+    private Profiler.Stack stack;
+    private ExecutionListener listener = ExecutionListener.NONE;
 
     public Interpreter(Scope parent) {
+        this(parent, System.out::println);
+    }
+
+    /**
+     * Creates an interpreter whose {@code print} passes the printed values to
+     * the given consumer instead of writing them to standard output.
+     */
+    public Interpreter(Scope parent, Consumer<Object> print) {
+        this(parent, print, Budget.UNLIMITED);
+    }
+
+    /**
+     * Creates an interpreter which throws a {@link BudgetExceededException}
+     * once it exceeds the budget, measured from now on.
+     */
+    public Interpreter(Scope parent, Budget budget) {
+        this(parent, System.out::println, budget);
+    }
+
+    public Interpreter(Scope parent, Consumer<Object> print, Budget budget) {
+        meter = budget.start();
         scope = new Scope(parent);
         scope.defineFunction("print", 1, args -> {
-            System.out.println(args.get(0).getValue());
+            print.accept(args.get(0).getValue());
             return Environment.NIL;
         });
     }
@@ -23,6 +45,36 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         return scope;
     }
 
+    /**
+     * Returns the resources used so far.
+     */
+    public Budget.Meter getMeter() {
+        return meter;
+    }
+
+    /**
+     * Records where this interpreter spends its time with the profiler.
+     */
+    public void setProfiler(Profiler profiler) {
+        stack = profiler.stack();
+    }
+
+    /**
+     * Notifies the listener of the methods invoked and values created.
+     */
+    public void setListener(ExecutionListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast ast) {
+        meter.step();
+        if(stack != null){
+            stack.visit(ast);
+        }
+        return Ast.Visitor.super.visit(ast);
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Source ast) {
         for(Ast.Field f : ast.getFields()){
@@ -46,7 +98,13 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         Scope defScope = scope;
         scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
             Scope curr = scope;
-            Scope methodScope = new Scope(defScope);
+            Scope methodScope = meter.allocate(new Scope(defScope));
+            Profiler.Stack frames = stack;
+            ExecutionListener events = listener;
+            if(frames != null){
+                frames.enter(ast);
+            }
+            events.enter(ast);
             try{
                 for(int i = 0; i < args.size(); i++){
                     methodScope.defineVariable(ast.getParameters().get(i), false, args.get(i));
@@ -60,6 +118,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                 return returnVal.value;
             }finally{
                 scope = curr;
+                if(frames != null){
+                    frames.exit();
+                }
+                events.exit(ast);
             }
         });
         return Environment.NIL;
@@ -102,7 +164,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         Environment.PlcObject cond = visit(ast.getCondition());
         requireType(Boolean.class, cond);
         Scope curr = scope;
-        scope = new Scope(curr);
+        scope = meter.allocate(new Scope(curr));
         try{
             if((Boolean) cond.getValue()){
                 for(Ast.Statement statement : ast.getThenStatements()){
@@ -122,7 +184,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Statement.For ast) {
         Scope curr = scope;
-        scope = new Scope(curr);
+        scope = meter.allocate(new Scope(curr));
         try{
             if(ast.getInitialization() != null){
                 visit(ast.getInitialization());
@@ -151,7 +213,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Statement.While ast) {
         Scope curr = scope;
-        scope = new Scope(curr);
+        scope = meter.allocate(new Scope(curr));
         try{
             while(true){
                 Environment.PlcObject cond = visit(ast.getCondition());
@@ -180,7 +242,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         if(ast.getLiteral() == null){
             return Environment.NIL;
         }
-        return Environment.create(ast.getLiteral());
+        return allocate(Environment.create(ast.getLiteral()));
     }
 
     @Override
@@ -199,8 +261,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                     return Environment.create(false);
                 }
                 Environment.PlcObject right = visit(ast.getRight());
-                requireType(Boolean.class, right);
-                return Environment.create((Boolean) right.getValue());
+                return Environment.create((boolean) requireType(Boolean.class, right));
             }
             case "OR":
             case "||":{
@@ -209,104 +270,22 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                     return Environment.create(true);
                 }
                 Environment.PlcObject right = visit(ast.getRight());
-                requireType(Boolean.class, right);
-                return Environment.create((Boolean) right.getValue());
-            }
-            case "<":{
-                Environment.PlcObject right = visit(ast.getRight());
-                if(!(left.getValue() instanceof Comparable) || left.getValue().getClass() != right.getValue().getClass()){
-                    throw new RuntimeException("Operands not Comparable or same type");
-                }
-                Comparable<Object> leftComparable = (Comparable<Object>) left.getValue();
-                int comparison = leftComparable.compareTo(right.getValue());
-                return Environment.create(comparison < 0);
-            }
-            case "<=":{
-                Environment.PlcObject right = visit(ast.getRight());
-                if(!(left.getValue() instanceof Comparable) || left.getValue().getClass() != right.getValue().getClass()){
-                    throw new RuntimeException("Operands not Comparable or same type");
-                }
-                Comparable<Object> leftComparable = (Comparable<Object>) left.getValue();
-                int comparison = leftComparable.compareTo(right.getValue());
-                return Environment.create(comparison <= 0);
-            }
-            case ">":{
-                Environment.PlcObject right = visit(ast.getRight());
-                if(!(left.getValue() instanceof Comparable) || left.getValue().getClass() != right.getValue().getClass()){
-                    throw new RuntimeException("Operands not Comparable or same type");
-                }
-                Comparable<Object> leftComparable = (Comparable<Object>) left.getValue();
-                int comparison = leftComparable.compareTo(right.getValue());
-                return Environment.create(comparison > 0);
-            }
-            case ">=":{
-                Environment.PlcObject right = visit(ast.getRight());
-                if(!(left.getValue() instanceof Comparable) || left.getValue().getClass() != right.getValue().getClass()){
-                    throw new RuntimeException("Operands not Comparable or same type");
-                }
-                Comparable<Object> leftComparable = (Comparable<Object>) left.getValue();
-                int comparison = leftComparable.compareTo(right.getValue());
-                return Environment.create(comparison >= 0);
-            }
-            case "==":{
-                Environment.PlcObject right = visit(ast.getRight());
-                return Environment.create(Objects.equals(left.getValue(), right.getValue()));
-            }
-            case "!=":{
-                Environment.PlcObject right = visit(ast.getRight());
-                return Environment.create(!Objects.equals(left.getValue(), right.getValue()));
-            }
-            case "+":{
-                Environment.PlcObject right = visit(ast.getRight());
-                if(left.getValue() instanceof String || right.getValue() instanceof String){
-                    return Environment.create(left.getValue().toString() + right.getValue().toString());
-                }
-                if(left.getValue() instanceof BigInteger && right.getValue() instanceof BigInteger){
-                    return Environment.create(((BigInteger) left.getValue()).add((BigInteger) right.getValue()));
-                }
-                if(left.getValue() instanceof BigDecimal && right.getValue() instanceof BigDecimal){
-                    return Environment.create(((BigDecimal) left.getValue()).add((BigDecimal) right.getValue()));
-                }
-                throw new RuntimeException("Invalid operands");
-            }
-            case "-":{
-                Environment.PlcObject right = visit(ast.getRight());
-                if(left.getValue() instanceof BigInteger && right.getValue() instanceof BigInteger){
-                    return Environment.create(((BigInteger) left.getValue()).subtract((BigInteger) right.getValue()));
-                }
-                if(left.getValue() instanceof BigDecimal && right.getValue() instanceof BigDecimal){
-                    return Environment.create(((BigDecimal) left.getValue()).subtract((BigDecimal) right.getValue()));
-                }
-                throw new RuntimeException("Invalid operands");
-            }
-            case "*":{
-                Environment.PlcObject right = visit(ast.getRight());
-                if(left.getValue() instanceof BigInteger && right.getValue() instanceof BigInteger){
-                    return Environment.create(((BigInteger) left.getValue()).multiply((BigInteger) right.getValue()));
-                }
-                if(left.getValue() instanceof BigDecimal && right.getValue() instanceof BigDecimal){
-                    return Environment.create(((BigDecimal) left.getValue()).multiply((BigDecimal) right.getValue()));
-                }
-                throw new RuntimeException("Invalid operands");
-            }
-            case "/":{
-                Environment.PlcObject right = visit(ast.getRight());
-                if(left.getValue() instanceof BigInteger && right.getValue() instanceof BigInteger divisor){
-                    if(divisor.equals(BigInteger.ZERO)){
-                        throw new RuntimeException("Division by zero");
-                    }
-                    return Environment.create(((BigInteger) left.getValue()).divide(divisor));
-                }
-                if(left.getValue() instanceof BigDecimal && right.getValue() instanceof BigDecimal divisor){
-                    if(divisor.equals(BigDecimal.ZERO)){
-                        throw new RuntimeException("Division by zero");
-                    }
-                    return Environment.create(((BigDecimal) left.getValue()).divide(divisor, RoundingMode.HALF_EVEN));
-                }
-                throw new RuntimeException("Invalid operands");
+                return Environment.create((boolean) requireType(Boolean.class, right));
             }
+            case "<":
+                return Environment.create(ast.getComparison().compare(left.getValue(), visit(ast.getRight()).getValue()) < 0);
+            case "<=":
+                return Environment.create(ast.getComparison().compare(left.getValue(), visit(ast.getRight()).getValue()) <= 0);
+            case ">":
+                return Environment.create(ast.getComparison().compare(left.getValue(), visit(ast.getRight()).getValue()) > 0);
+            case ">=":
+                return Environment.create(ast.getComparison().compare(left.getValue(), visit(ast.getRight()).getValue()) >= 0);
+            case "==":
+                return Environment.create(Objects.equals(left.getValue(), visit(ast.getRight()).getValue()));
+            case "!=":
+                return Environment.create(!Objects.equals(left.getValue(), visit(ast.getRight()).getValue()));
             default:
-                throw new RuntimeException("Invalid binary operator" + ast.getOperator());
+                return allocate(evaluate(ast.getOperator(), left, visit(ast.getRight())));
         }
     }
 
@@ -334,10 +313,47 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         }
     }
 
+    private Environment.PlcObject allocate(Environment.PlcObject value) {
+        listener.allocate(value);
+        return meter.allocate(value);
+    }
+
+    /**
+     * Evaluates a non short-circuiting binary operator on two already evaluated
+     * operands. Shared with the other execution modes so that every backend
+     * agrees on the semantics of the arithmetic and comparison operators.
+     */
+    static Environment.PlcObject evaluate(String operator, Environment.PlcObject left, Environment.PlcObject right) {
+        switch(operator){
+            case "<":
+                return Environment.create(Operators.compare(left.getValue(), right.getValue()) < 0);
+            case "<=":
+                return Environment.create(Operators.compare(left.getValue(), right.getValue()) <= 0);
+            case ">":
+                return Environment.create(Operators.compare(left.getValue(), right.getValue()) > 0);
+            case ">=":
+                return Environment.create(Operators.compare(left.getValue(), right.getValue()) >= 0);
+            case "==":
+                return Environment.create(Objects.equals(left.getValue(), right.getValue()));
+            case "!=":
+                return Environment.create(!Objects.equals(left.getValue(), right.getValue()));
+            case "+":
+                return Environment.create(Operators.add(left.getValue(), right.getValue()));
+            case "-":
+                return Environment.create(Operators.subtract(left.getValue(), right.getValue()));
+            case "*":
+                return Environment.create(Operators.multiply(left.getValue(), right.getValue()));
+            case "/":
+                return Environment.create(Operators.divide(left.getValue(), right.getValue()));
+            default:
+                throw new RuntimeException("Invalid binary operator" + operator);
+        }
+    }
+
     /**
      * Helper function to ensure an object is of the appropriate type.
      */
-    private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+    static <T> T requireType(Class<T> type, Environment.PlcObject object) {
         if (type.isInstance(object.getValue())) {
             return type.cast(object.getValue());
         } else {
@@ -0,0 +1,454 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Hoists loop-invariant expressions out of {@code WHILE} and {@code FOR}
+ * loops. An expression is invariant if it is {@link Purity pure} and none of
+ * the variables it reads may change while the loop runs, meaning they are
+ * neither assigned nor declared in the loop and, if the loop calls a function
+ * that isn't pure, are locals of the method (which a call can't modify).
+ *
+ * Hoisting evaluates an expression before the loop even if the loop would
+ * never have evaluated it, so a pure expression that may fail (reading a
+ * variable that holds NIL, or a member of a builtin type, which the
+ * interpreter doesn't define) is only hoisted from where it is evaluated
+ * whenever the loop is reached: the condition, outside the right operand of
+ * {@code AND}/{@code OR}. Elsewhere, expressions are only hoisted if every
+ * variable they read is definitely initialized (see {@link #initialized}).
+ *
+ * Each hoisted expression is assigned to a temporary right before the loop.
+ * Temporaries are declared at the start of the method rather than before the
+ * loop, since the loop may itself be in a loop body, where the interpreter
+ * would define the declaration again on every iteration.
+ *
+ * Only analyzed trees are transformed, since the temporaries need types.
+ */
+public final class LoopInvariantCodeMotion extends AstRewriter {
+
+    private final Set<String> names = new HashSet<>();
+    private final List<Ast.Statement> temporaries = new ArrayList<>();
+    private Set<Environment.Variable> program;
+    private Set<Environment.Variable> initialized;
+    private Set<Environment.Variable> locals;
+    private int counter = 0;
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        names.addAll(Names.collect(ast));
+        program = initialized(ast.getFields(), ast.getMethods(), true);
+        try{
+            return super.visit(ast);
+        }finally{
+            program = null;
+        }
+    }
+
+    @Override
+    public Ast visit(Ast.Method ast) {
+        names.addAll(Names.collect(ast));
+        // Without the rest of the program, fields and parameters may be NIL.
+        initialized = program != null ? program : initialized(List.of(), List.of(ast), false);
+        locals = locals(ast);
+        temporaries.clear();
+        Ast.Method method = (Ast.Method) super.visit(ast);
+        if(temporaries.isEmpty()){
+            return method;
+        }
+        List<Ast.Statement> statements = new ArrayList<>(temporaries);
+        statements.addAll(method.getStatements());
+        Ast.Method hoisted = new Ast.Method(method.getName(), method.getParameters(), method.getParameterTypeNames(), method.getReturnTypeName(), statements);
+        Environment.Function function = Ast.annotation(method::getFunction);
+        if(function != null){
+            hoisted.setFunction(function);
+        }
+        return hoisted;
+    }
+
+    @Override
+    protected void rewriteStatement(Ast.Statement statement, List<Ast.Statement> rewritten) {
+        if(!(statement instanceof Ast.Statement.While) && !(statement instanceof Ast.Statement.For)){
+            super.rewriteStatement(statement, rewritten);
+            return;
+        }
+        // Outer loops are handled first, so expressions invariant in several
+        // nested loops are hoisted out of all of them at once.
+        Effects effects = new Effects();
+        effects.visit(statement);
+        Hoister hoister = new Hoister(effects);
+        Ast.Statement loop;
+        if(statement instanceof Ast.Statement.While ast){
+            Ast.Expression condition = hoister.rewrite(ast.getCondition());
+            hoister.conditional = true;
+            loop = new Ast.Statement.While(condition, hoister.rewriteStatements(ast.getStatements()));
+        }else{
+            Ast.Statement.For ast = (Ast.Statement.For) statement;
+            // The condition is evaluated after the initialization, which must
+            // not have side effects that would be skipped if it fails.
+            Effects initialization = new Effects();
+            if(ast.getInitialization() != null){
+                initialization.visit(ast.getInitialization());
+            }
+            hoister.conditional = initialization.calls;
+            Ast.Expression condition = hoister.rewrite(ast.getCondition());
+            hoister.conditional = true;
+            loop = new Ast.Statement.For(
+                    ast.getInitialization(),
+                    condition,
+                    ast.getIncrement() == null ? null : hoister.rewrite(ast.getIncrement()),
+                    hoister.rewriteStatements(ast.getStatements())
+            );
+        }
+        for(int i = 0; i < hoister.expressions.size(); i++){
+            rewritten.add(new Ast.Statement.Assignment(hoister.accesses.get(i), hoister.expressions.get(i)));
+        }
+        rewritten.add(rewrite(loop));
+    }
+
+    /**
+     * Returns the variables which only the method can modify: its parameters
+     * and local declarations.
+     */
+    static Set<Environment.Variable> locals(Ast.Method method) {
+        Set<Environment.Variable> locals = Collections.newSetFromMap(new IdentityHashMap<>());
+        new AstScanner() {
+            @Override
+            public Void visit(Ast.Statement.Declaration ast) {
+                Environment.Variable variable = Ast.annotation(ast::getVariable);
+                if(variable != null){
+                    locals.add(variable);
+                }
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast.Expression.Access ast) {
+                // Parameters shadow fields, so any unqualified access by the
+                // name of a parameter is either the parameter or a local.
+                Environment.Variable variable = Ast.annotation(ast::getVariable);
+                if(variable != null && ast.getReceiver().isEmpty() && method.getParameters().contains(ast.getName())){
+                    locals.add(variable);
+                }
+                return super.visit(ast);
+            }
+        }.visit(method);
+        return locals;
+    }
+
+    /**
+     * Returns the variables which are definitely initialized, meaning they
+     * never hold NIL: fields, locals and parameters which are only ever
+     * assigned values that can't be NIL. Binary expressions always produce a
+     * value, while the results of calls (and members of other values) are
+     * unknown. Parameters are found through the calls of the program, so if
+     * the methods are not the whole program they may hold NIL as well.
+     *
+     * The analysis ignores control flow, so a variable assigned NIL anywhere
+     * is never initialized.
+     */
+    static Set<Environment.Variable> initialized(List<Ast.Field> fields, List<Ast.Method> methods, boolean program) {
+        Set<Environment.Variable> declared = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Environment.Variable> nil = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<Environment.Function, List<Set<Environment.Variable>>> parameters = new IdentityHashMap<>();
+        for(Ast.Field field : fields){
+            Environment.Variable variable = Ast.annotation(field::getVariable);
+            if(variable != null){
+                declared.add(variable);
+            }
+        }
+        for(Ast.Method method : methods){
+            List<Set<Environment.Variable>> variables = new ArrayList<>();
+            for(int i = 0; i < method.getParameters().size(); i++){
+                variables.add(Collections.newSetFromMap(new IdentityHashMap<>()));
+            }
+            new AstScanner() {
+                @Override
+                public Void visit(Ast.Statement.Declaration ast) {
+                    Environment.Variable variable = Ast.annotation(ast::getVariable);
+                    if(variable != null){
+                        declared.add(variable);
+                    }
+                    return super.visit(ast);
+                }
+
+                @Override
+                public Void visit(Ast.Expression.Access ast) {
+                    // As in locals(), any access by the name of a parameter is
+                    // the parameter or a local, so marking both is safe.
+                    int index = method.getParameters().indexOf(ast.getName());
+                    Environment.Variable variable = Ast.annotation(ast::getVariable);
+                    if(index >= 0 && ast.getReceiver().isEmpty() && variable != null){
+                        variables.get(index).add(variable);
+                    }
+                    return super.visit(ast);
+                }
+            }.visit(method);
+            variables.forEach(declared::addAll);
+            if(!program){
+                variables.forEach(nil::addAll);
+            }
+            Environment.Function function = Ast.annotation(method::getFunction);
+            if(function != null){
+                parameters.put(function, variables);
+            }
+        }
+        AstScanner scanner = new AstScanner() {
+            @Override
+            public Void visit(Ast.Field ast) {
+                mark(Ast.annotation(ast::getVariable), ast.getValue());
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast.Statement.Declaration ast) {
+                mark(Ast.annotation(ast::getVariable), ast.getValue());
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast.Statement.Assignment ast) {
+                if(ast.getReceiver() instanceof Ast.Expression.Access access && access.getReceiver().isEmpty()){
+                    mark(Ast.annotation(access::getVariable), Optional.of(ast.getValue()));
+                }
+                return super.visit(ast);
+            }
+
+            @Override
+            public Void visit(Ast.Expression.Function ast) {
+                Environment.Function function = Ast.annotation(ast::getFunction);
+                List<Set<Environment.Variable>> variables = function == null ? null : parameters.get(function);
+                if(ast.getReceiver().isEmpty() && variables != null){
+                    for(int i = 0; i < variables.size(); i++){
+                        if(nullable(ast.getArguments().get(i))){
+                            nil.addAll(variables.get(i));
+                        }
+                    }
+                }
+                return super.visit(ast);
+            }
+
+            private void mark(Environment.Variable variable, Optional<Ast.Expression> value) {
+                if(variable != null && value.map(this::nullable).orElse(true)){
+                    nil.add(variable);
+                }
+            }
+
+            private boolean nullable(Ast.Expression ast) {
+                return switch(ast){
+                    case Ast.Expression.Literal literal -> literal.getLiteral() == null;
+                    case Ast.Expression.Group group -> nullable(group.getExpression());
+                    case Ast.Expression.Binary binary -> false;
+                    case Ast.Expression.Access access -> {
+                        Environment.Variable variable = Ast.annotation(access::getVariable);
+                        yield access.getReceiver().isPresent() || !declared.contains(variable) || nil.contains(variable);
+                    }
+                    default -> true;
+                };
+            }
+        };
+        int size;
+        do{
+            size = nil.size();
+            fields.forEach(scanner::visit);
+            methods.forEach(scanner::visit);
+        }while(nil.size() != size);
+        declared.removeAll(nil);
+        return declared;
+    }
+
+    private Ast.Expression.Access temporary(Environment.Type type) {
+        String name;
+        do{
+            name = "_licm" + counter++;
+        }while(names.contains(name));
+        names.add(name);
+        Environment.Variable variable = new Environment.Variable(name, name, type, false, Environment.NIL);
+        locals.add(variable);
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, Optional.of(type.getName()), Optional.empty());
+        declaration.setVariable(variable);
+        temporaries.add(declaration);
+        Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), name);
+        access.setVariable(variable);
+        return access;
+    }
+
+    /**
+     * The variables and state a loop may modify.
+     */
+    private static final class Effects extends AstScanner {
+
+        private final Set<Environment.Variable> variables = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean calls = false;
+
+        @Override
+        public Void visit(Ast.Statement.Declaration ast) {
+            Environment.Variable variable = Ast.annotation(ast::getVariable);
+            if(variable != null){
+                variables.add(variable);
+            }
+            return super.visit(ast);
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Assignment ast) {
+            if(ast.getReceiver() instanceof Ast.Expression.Access access){
+                Environment.Variable variable = Ast.annotation(access::getVariable);
+                if(access.getReceiver().isEmpty() && variable != null){
+                    variables.add(variable);
+                }
+            }
+            return super.visit(ast);
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Function ast) {
+            Environment.Function function = Ast.annotation(ast::getFunction);
+            if(function == null || !Environment.isPure(function)){
+                calls = true;
+            }
+            return super.visit(ast);
+        }
+
+    }
+
+    /**
+     * Replaces the largest invariant subexpressions of a loop with
+     * temporaries, reusing the temporary for equal expressions. Nodes don't
+     * implement {@code hashCode}, so equal expressions are found by search.
+     */
+    private final class Hoister extends AstRewriter {
+
+        private final Effects effects;
+        private final List<Ast.Expression> expressions = new ArrayList<>();
+        private final List<Ast.Expression.Access> accesses = new ArrayList<>();
+        private boolean conditional = false;
+
+        private Hoister(Effects effects) {
+            this.effects = effects;
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Group ast) {
+            return hoist(ast) ? replace(ast) : super.visit(ast);
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Binary ast) {
+            if(hoist(ast)){
+                return replace(ast);
+            }
+            if(conditional || !isShortCircuit(ast)){
+                return super.visit(ast);
+            }
+            // The right operand is only evaluated depending on the left one.
+            Ast.Expression left = rewrite(ast.getLeft());
+            conditional = true;
+            Ast.Expression right = rewrite(ast.getRight());
+            conditional = false;
+            Ast.Expression.Binary binary = new Ast.Expression.Binary(ast.getOperator(), left, right);
+            binary.setType(Ast.annotation(ast::getType));
+            return binary;
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Access ast) {
+            return ast.getReceiver().isPresent() && hoist(ast) ? replace(ast) : super.visit(ast);
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Function ast) {
+            return hoist(ast) ? replace(ast) : super.visit(ast);
+        }
+
+        /**
+         * Assignment targets are kept as they are.
+         */
+        @Override
+        public Ast visit(Ast.Statement.Assignment ast) {
+            return new Ast.Statement.Assignment(ast.getReceiver(), rewrite(ast.getValue()));
+        }
+
+        private boolean hoist(Ast.Expression ast) {
+            if(typeOf(ast) == null || !Purity.isPure(ast)){
+                return false;
+            }
+            boolean[] invariant = {true};
+            new AstScanner() {
+                @Override
+                public Void visit(Ast.Expression.Access ast) {
+                    // Pure fields depend only on their receiver, which is
+                    // checked when visiting it.
+                    if(ast.getReceiver().isEmpty()){
+                        Environment.Variable variable = ast.getVariable();
+                        invariant[0] &= !effects.variables.contains(variable) && (!effects.calls || locals.contains(variable));
+                        invariant[0] &= !conditional || initialized.contains(variable);
+                    }else{
+                        invariant[0] &= !conditional;
+                    }
+                    return super.visit(ast);
+                }
+
+                @Override
+                public Void visit(Ast.Expression.Function ast) {
+                    invariant[0] &= !conditional;
+                    return super.visit(ast);
+                }
+
+                @Override
+                public Void visit(Ast.Expression.Binary ast) {
+                    invariant[0] &= !conditional || !isRelational(ast) || isTotalComparison(ast);
+                    return super.visit(ast);
+                }
+            }.visit(ast);
+            return invariant[0];
+        }
+
+        /**
+         * Returns whether the comparison can't fail, which requires operands
+         * of the same builtin type (Comparable operands may hold values of
+         * different classes) that are known not to be NIL.
+         */
+        private boolean isTotalComparison(Ast.Expression.Binary ast) {
+            Environment.Type type = typeOf(ast.getLeft());
+            return type == typeOf(ast.getRight())
+                    && (type == Environment.Type.INTEGER || type == Environment.Type.DECIMAL || type == Environment.Type.CHARACTER || type == Environment.Type.STRING)
+                    && isNonNil(ast.getLeft()) && isNonNil(ast.getRight());
+        }
+
+        private static boolean isRelational(Ast.Expression.Binary ast) {
+            return switch(ast.getOperator()){
+                case "<", "<=", ">", ">=" -> true;
+                default -> false;
+            };
+        }
+
+        private boolean isNonNil(Ast.Expression ast) {
+            return switch(ast){
+                case Ast.Expression.Literal literal -> literal.getLiteral() != null;
+                case Ast.Expression.Group group -> isNonNil(group.getExpression());
+                case Ast.Expression.Binary binary -> true;
+                case Ast.Expression.Access access -> access.getReceiver().isEmpty() && initialized.contains(access.getVariable());
+                default -> false;
+            };
+        }
+
+        private Ast.Expression.Access replace(Ast.Expression ast) {
+            int index = expressions.indexOf(ast);
+            if(index < 0){
+                expressions.add(ast);
+                accesses.add(temporary(typeOf(ast)));
+                index = expressions.size() - 1;
+            }
+            return accesses.get(index);
+        }
+
+    }
+
+}
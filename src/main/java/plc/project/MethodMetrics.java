@@ -0,0 +1,244 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects statistics of the methods of programs run by any number of
+ * interpreters, each using its own {@link #listener()}: the number of
+ * invocations, the total time spent in each method and the time excluding
+ * the methods it called, the values created and the deepest recursion.
+ *
+ * Methods are identified by name and arity, so the same method of separately
+ * parsed copies of a program is counted together. The statistics can be
+ * published as one MXBean per method with {@link #register(MBeanServer, String)}
+ * and written as text with {@link #write(Writer)}.
+ */
+public final class MethodMetrics {
+
+    private final Map<String, Method> methods = new ConcurrentHashMap<>();
+    private volatile MBeanServer server;
+    private volatile String domain;
+
+    /**
+     * Creates a listener recording into these metrics, for one interpreter.
+     */
+    public ExecutionListener listener() {
+        return new Recorder();
+    }
+
+    /**
+     * Returns the statistics of each method invoked so far, keyed by name and
+     * arity ({@code name/arity}).
+     */
+    public Map<String, Method> getMethods() {
+        return Map.copyOf(methods);
+    }
+
+    /**
+     * Registers the statistics of each method as an MXBean named
+     * {@code domain:type=Method,name=name/arity}, including methods first
+     * invoked later.
+     */
+    public synchronized void register(MBeanServer server, String domain) throws JMException {
+        this.domain = domain;
+        this.server = server;
+        for(Method method : methods.values()){
+            register(method);
+        }
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server.
+     */
+    public void register(String domain) throws JMException {
+        register(ManagementFactory.getPlatformMBeanServer(), domain);
+    }
+
+    public synchronized void unregister() throws JMException {
+        if(server != null){
+            for(Method method : methods.values()){
+                if(server.isRegistered(name(method))){
+                    server.unregisterMBean(name(method));
+                }
+            }
+            server = null;
+        }
+    }
+
+    private synchronized void register(Method method) throws JMException {
+        if(server != null && !server.isRegistered(name(method))){
+            server.registerMBean(method, name(method));
+        }
+    }
+
+    private ObjectName name(Method method) throws JMException {
+        return new ObjectName(domain + ":type=Method,name=" + ObjectName.quote(method.getName()));
+    }
+
+    /**
+     * Writes one line per method, starting with the most total time.
+     */
+    public void write(Writer writer) throws IOException {
+        List<Method> sorted = new ArrayList<>(methods.values());
+        sorted.sort(Comparator.comparingLong(Method::getTotalTime).reversed().thenComparing(Method::getName));
+        for(Method method : sorted){
+            writer.write(String.format("%s invocations=%d total=%.3fms self=%.3fms allocations=%d depth=%d%n",
+                    method.getName(), method.getInvocations(), method.getTotalTime() / 1e6, method.getSelfTime() / 1e6,
+                    method.getAllocations(), method.getMaxDepth()));
+        }
+        writer.flush();
+    }
+
+    private Method method(Ast.Method ast) {
+        String name = ast.getName() + "/" + ast.getParameters().size();
+        Method method = methods.get(name);
+        if(method == null){
+            Method created = new Method(name);
+            method = methods.putIfAbsent(name, created);
+            if(method == null){
+                method = created;
+                try{
+                    register(method);
+                }catch(JMException e){
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return method;
+    }
+
+    /**
+     * The attributes of the statistics of a method, times in nanoseconds.
+     */
+    public interface MethodMXBean {
+
+        String getName();
+
+        long getInvocations();
+
+        long getTotalTime();
+
+        long getSelfTime();
+
+        long getAllocations();
+
+        int getMaxDepth();
+
+    }
+
+    public static final class Method implements MethodMXBean {
+
+        private final String name;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+        private final LongAdder selfTime = new LongAdder();
+        private final LongAdder allocations = new LongAdder();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+
+        private Method(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        @Override
+        public long getTotalTime() {
+            return totalTime.sum();
+        }
+
+        @Override
+        public long getSelfTime() {
+            return selfTime.sum();
+        }
+
+        @Override
+        public long getAllocations() {
+            return allocations.sum();
+        }
+
+        @Override
+        public int getMaxDepth() {
+            return maxDepth.get();
+        }
+
+    }
+
+    /**
+     * Tracks the methods an interpreter is running. A recursive invocation
+     * counts towards the total time of the method only once, at the
+     * outermost invocation.
+     */
+    private final class Recorder implements ExecutionListener {
+
+        private final Map<Ast.Method, Method> resolved = new IdentityHashMap<>();
+        private final Map<Method, int[]> active = new IdentityHashMap<>();
+        private Method[] stack = new Method[16];
+        private long[] starts = new long[16];
+        private long[] children = new long[16];
+        private int depth = 0;
+
+        @Override
+        public void enter(Ast.Method ast) {
+            Method method = resolved.computeIfAbsent(ast, MethodMetrics.this::method);
+            if(depth == stack.length){
+                stack = Arrays.copyOf(stack, depth * 2);
+                starts = Arrays.copyOf(starts, depth * 2);
+                children = Arrays.copyOf(children, depth * 2);
+            }
+            stack[depth] = method;
+            starts[depth] = System.nanoTime();
+            children[depth] = 0;
+            depth++;
+            method.invocations.increment();
+            int recursion = ++active.computeIfAbsent(method, m -> new int[1])[0];
+            if(recursion > method.maxDepth.get()){
+                method.maxDepth.accumulateAndGet(recursion, Math::max);
+            }
+        }
+
+        @Override
+        public void exit(Ast.Method ast) {
+            depth--;
+            Method method = stack[depth];
+            long elapsed = System.nanoTime() - starts[depth];
+            method.selfTime.add(elapsed - children[depth]);
+            if(--active.get(method)[0] == 0){
+                method.totalTime.add(elapsed);
+            }
+            if(depth > 0){
+                children[depth - 1] += elapsed;
+            }
+        }
+
+        @Override
+        public void allocate(Environment.PlcObject value) {
+            if(depth > 0){
+                stack[depth - 1].allocations.increment();
+            }
+        }
+
+    }
+
+}
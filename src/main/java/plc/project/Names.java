@@ -0,0 +1,53 @@
+package plc.project;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects the identifiers used by a tree, so passes which introduce
+ * temporaries can pick names that don't clash with the program's.
+ */
+final class Names extends AstScanner {
+
+    private final Set<String> names = new HashSet<>();
+
+    private Names() {}
+
+    static Set<String> collect(Ast ast) {
+        Names names = new Names();
+        names.visit(ast);
+        return names.names;
+    }
+
+    @Override
+    public Void visit(Ast.Field ast) {
+        names.add(ast.getName());
+        return super.visit(ast);
+    }
+
+    @Override
+    public Void visit(Ast.Method ast) {
+        names.add(ast.getName());
+        names.addAll(ast.getParameters());
+        return super.visit(ast);
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Declaration ast) {
+        names.add(ast.getName());
+        return super.visit(ast);
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Access ast) {
+        names.add(ast.getName());
+        return super.visit(ast);
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Function ast) {
+        names.add(ast.getName());
+        return super.visit(ast);
+    }
+
+}
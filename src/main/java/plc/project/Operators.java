@@ -0,0 +1,139 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * The semantics of the binary operators on raw runtime values (the result of
+ * {@link Environment.PlcObject#getValue()}). Every execution mode goes through
+ * these helpers so they agree on arithmetic, concatenation and comparison.
+ */
+final class Operators {
+
+    private Operators() {}
+
+    static Object add(Object left, Object right) {
+        if(left instanceof String || right instanceof String){
+            return left.toString() + right.toString();
+        }
+        if(left instanceof BigInteger && right instanceof BigInteger){
+            return ((BigInteger) left).add((BigInteger) right);
+        }
+        if(left instanceof BigDecimal && right instanceof BigDecimal){
+            return ((BigDecimal) left).add((BigDecimal) right);
+        }
+        throw new RuntimeException("Invalid operands");
+    }
+
+    static Object subtract(Object left, Object right) {
+        if(left instanceof BigInteger && right instanceof BigInteger){
+            return ((BigInteger) left).subtract((BigInteger) right);
+        }
+        if(left instanceof BigDecimal && right instanceof BigDecimal){
+            return ((BigDecimal) left).subtract((BigDecimal) right);
+        }
+        throw new RuntimeException("Invalid operands");
+    }
+
+    static Object multiply(Object left, Object right) {
+        if(left instanceof BigInteger && right instanceof BigInteger){
+            return ((BigInteger) left).multiply((BigInteger) right);
+        }
+        if(left instanceof BigDecimal && right instanceof BigDecimal){
+            return ((BigDecimal) left).multiply((BigDecimal) right);
+        }
+        throw new RuntimeException("Invalid operands");
+    }
+
+    static Object divide(Object left, Object right) {
+        if(left instanceof BigInteger && right instanceof BigInteger divisor){
+            if(divisor.equals(BigInteger.ZERO)){
+                throw new RuntimeException("Division by zero");
+            }
+            return ((BigInteger) left).divide(divisor);
+        }
+        if(left instanceof BigDecimal && right instanceof BigDecimal divisor){
+            if(divisor.equals(BigDecimal.ZERO)){
+                throw new RuntimeException("Division by zero");
+            }
+            return ((BigDecimal) left).divide(divisor, RoundingMode.HALF_EVEN);
+        }
+        throw new RuntimeException("Invalid operands");
+    }
+
+    /**
+     * Compares two values of the same {@link Comparable} class, as used by the
+     * {@code <}, {@code <=}, {@code >} and {@code >=} operators.
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(Object left, Object right) {
+        if(!(left instanceof Comparable) || left.getClass() != right.getClass()){
+            throw new RuntimeException("Operands not Comparable or same type");
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    /**
+     * A comparison specialized to the type of its operands, which the
+     * {@link Analyzer} has already checked, so values are compared directly
+     * rather than going through a raw {@link Comparable}. Operands which
+     * aren't of that type anyway (such as NIL, in a variable declared without
+     * a value) fall back to {@link Operators#compare(Object, Object)} and
+     * fail the same way.
+     */
+    enum Comparison {
+
+        INTEGER {
+            @Override
+            int compare(Object left, Object right) {
+                return left instanceof BigInteger l && right instanceof BigInteger r ? l.compareTo(r) : Operators.compare(left, right);
+            }
+        },
+        DECIMAL {
+            @Override
+            int compare(Object left, Object right) {
+                return left instanceof BigDecimal l && right instanceof BigDecimal r ? l.compareTo(r) : Operators.compare(left, right);
+            }
+        },
+        CHARACTER {
+            @Override
+            int compare(Object left, Object right) {
+                return left instanceof Character l && right instanceof Character r ? Character.compare(l, r) : Operators.compare(left, right);
+            }
+        },
+        STRING {
+            @Override
+            int compare(Object left, Object right) {
+                return left instanceof String l && right instanceof String r ? l.compareTo(r) : Operators.compare(left, right);
+            }
+        },
+        GENERIC {
+            @Override
+            int compare(Object left, Object right) {
+                return Operators.compare(left, right);
+            }
+        };
+
+        abstract int compare(Object left, Object right);
+
+        /**
+         * Returns the comparison for operands of the given type, or the
+         * generic comparison if it isn't one of the builtin types.
+         */
+        static Comparison of(Environment.Type type) {
+            if(type == Environment.Type.INTEGER){
+                return INTEGER;
+            }else if(type == Environment.Type.DECIMAL){
+                return DECIMAL;
+            }else if(type == Environment.Type.CHARACTER){
+                return CHARACTER;
+            }else if(type == Environment.Type.STRING){
+                return STRING;
+            }
+            return GENERIC;
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package plc.project;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs the optimization passes over a tree between the {@link Analyzer} and
+ * a backend ({@link Interpreter}, {@link Generator}, or
+ * {@link BytecodeCompiler}). Optimizing is optional; every pass preserves the
+ * behavior of the program and the analyzer's annotations.
+ */
+public final class Optimizer {
+
+    /**
+     * Passes are created per run since they may keep state while rewriting.
+     */
+    private final List<Supplier<AstRewriter>> passes;
+
+    public Optimizer() {
+        this(List.of(Inliner::new, ConstantFolder::new, DeadCodeEliminator::new, LoopInvariantCodeMotion::new, CommonSubexpressionEliminator::new));
+    }
+
+    public Optimizer(List<Supplier<AstRewriter>> passes) {
+        this.passes = passes;
+    }
+
+    public Ast.Source optimize(Ast.Source ast) {
+        for(Supplier<AstRewriter> pass : passes){
+            ast = pass.get().rewrite(ast);
+        }
+        return ast;
+    }
+
+}
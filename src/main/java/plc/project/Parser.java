@@ -21,9 +21,39 @@ import java.util.stream.Stream;
 public final class Parser {
 
     private final TokenStream tokens;
+    private final boolean recordPositions;
+    private final Map<Ast, Integer> positions = new IdentityHashMap<>();
 
     public Parser(List<Token> tokens) {
+        this(tokens, false);
+    }
+
+    /**
+     * Creates a parser which, if {@code recordPositions} is set, records the
+     * position of each method and statement it parses (see
+     * {@link #getPositions()}).
+     */
+    public Parser(List<Token> tokens, boolean recordPositions) {
         this.tokens = new TokenStream(tokens);
+        this.recordPositions = recordPositions;
+    }
+
+    /**
+     * Returns the index in the source of the first token of each method and
+     * statement parsed so far, for tools reporting on the source such as the
+     * {@link Profiler}. This is empty unless the parser was created to record
+     * positions, and is cleared after each declaration of
+     * {@link #parseFlatSource()} as the parsed objects are discarded.
+     */
+    public Map<Ast, Integer> getPositions() {
+        return positions;
+    }
+
+    private <T extends Ast> T position(T ast, int index) {
+        if (recordPositions) {
+            positions.put(ast, index);
+        }
+        return ast;
     }
 
     private void skipNewline() {
@@ -54,6 +84,31 @@ public final class Parser {
         return new Ast.Source(fields, methods);
     }
 
+    /**
+     * Parses the {@code source} rule into a {@link FlatAst}. Each field and
+     * method is added to the arena as soon as it is parsed, so only one
+     * declaration exists as objects at a time.
+     */
+    public FlatAst parseFlatSource() throws ParseException {
+        FlatAst.Builder builder = new FlatAst.Builder();
+        while(peek("LET")){
+            builder.addField(parseField());
+            positions.clear();
+            skipNewline();
+        }
+        while(peek("DEF")){
+            builder.addMethod(parseMethod());
+            positions.clear();
+            skipNewline();
+        }
+
+        if (tokens.has(0)) {
+            throw new ParseException("Unexpected token: ", tokens.get(0).getIndex());
+        }
+
+        return builder.build();
+    }
+
     /**
      * Parses the {@code field} rule. This method should only be called if the
      * next tokens start a field, aka {@code LET}.
@@ -93,6 +148,7 @@ public final class Parser {
      * next tokens start a method, aka {@code DEF}.
      */
     public Ast.Method parseMethod() throws ParseException {
+        int index = tokens.get(0).getIndex();
         match("DEF");
         if(!peek(Token.Type.IDENTIFIER)){
             throw new ParseException("No identifier after DEF", tokens.get(0).getIndex());
@@ -144,7 +200,7 @@ public final class Parser {
             body.add(parseStatement());
         }
         match("END");
-        return new Ast.Method(name, paramNames, paramTypes, returnType, body);
+        return position(new Ast.Method(name, paramNames, paramTypes, returnType, body), index);
     }
 
     /**
@@ -153,16 +209,17 @@ public final class Parser {
      * statement, then it is an expression/assignment statement.
      */
     public Ast.Statement parseStatement() throws ParseException {
+        int index = tokens.has(0) ? tokens.get(0).getIndex() : -1;
         if(peek("LET")){
-            return parseDeclarationStatement();
+            return position(parseDeclarationStatement(), index);
         }else if(peek("IF")){
-            return parseIfStatement();
+            return position(parseIfStatement(), index);
         }else if(peek("FOR")){
-            return parseForStatement();
+            return position(parseForStatement(), index);
         }else if(peek("WHILE")){
-            return parseWhileStatement();
+            return position(parseWhileStatement(), index);
         }else if(peek("RETURN")){
-            return parseReturnStatement();
+            return position(parseReturnStatement(), index);
         }
         Ast.Expression leftSide = parseExpression();
         if(match("=")){
@@ -170,9 +227,9 @@ public final class Parser {
             if(!match(";")){
                 throw new ParseException("Missing semicolon after assignment", tokens.has(0) ? tokens.get(0).getIndex() : tokens.get(-1).getIndex() + 1);
             }
-            return new Ast.Statement.Assignment(leftSide, rightSide);
+            return position(new Ast.Statement.Assignment(leftSide, rightSide), index);
         }else if(match(";")){
-                return new Ast.Statement.Expression(leftSide);
+                return position(new Ast.Statement.Expression(leftSide), index);
         }
         throw new ParseException("Invalid Expression Case", tokens.has(0) ? tokens.get(0).getIndex() : tokens.get(-1).getIndex() + 1);
     }
@@ -0,0 +1,155 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A sampling profiler for programs run by the {@link Interpreter}, recording
+ * where in the program (rather than in the interpreter) time is spent.
+ *
+ * Each profiled interpreter keeps a {@link Stack} of the methods it is
+ * running and the statement each of them is at. A timer thread only
+ * advances a tick counter, and interpreters record their stack the next
+ * time they visit a node after it changed, so the stacks are always
+ * consistent and the cost between samples is a single volatile read per
+ * node. Samples are aggregated in the collapsed stack format read by flame
+ * graph tools, one line per distinct stack:
+ *
+ * <pre>
+ * main:40;fib:12;fib:12 57
+ * </pre>
+ *
+ * Frames are method names followed by the source index of the current
+ * statement, if the {@link Parser#getPositions() positions} of the program
+ * were given.
+ */
+public final class Profiler implements AutoCloseable {
+
+    private final Map<Ast, Integer> positions;
+    private final Map<String, Long> samples = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private volatile long tick;
+
+    public Profiler(Duration interval) {
+        this(interval, Map.of());
+    }
+
+    public Profiler(Duration interval, Map<Ast, Integer> positions) {
+        this.positions = positions;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plc-profiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long nanos = Math.max(interval.toNanos(), 1);
+        timer.scheduleAtFixedRate(this::tick, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Requests a sample from every profiled interpreter.
+     */
+    void tick() {
+        tick++;
+    }
+
+    /**
+     * Creates the stack of an interpreter being profiled.
+     */
+    Stack stack() {
+        return new Stack();
+    }
+
+    /**
+     * Returns the number of samples of each stack, keyed by the frames
+     * separated by {@code ;}.
+     */
+    public Map<String, Long> getSamples() {
+        return new TreeMap<>(samples);
+    }
+
+    /**
+     * Writes the samples in the collapsed stack format.
+     */
+    public void write(Writer writer) throws IOException {
+        for(Map.Entry<String, Long> entry : getSamples().entrySet()){
+            writer.write(entry.getKey() + " " + entry.getValue() + System.lineSeparator());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Stops sampling. Samples taken so far remain available.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * The methods an interpreter is running, only used by its thread.
+     */
+    final class Stack {
+
+        private Ast.Method[] methods = new Ast.Method[16];
+        private Ast.Statement[] statements = new Ast.Statement[16];
+        private int depth = 0;
+        private long sampled = tick;
+
+        void enter(Ast.Method method) {
+            if(depth == methods.length){
+                methods = Arrays.copyOf(methods, depth * 2);
+                statements = Arrays.copyOf(statements, depth * 2);
+            }
+            methods[depth] = method;
+            statements[depth] = null;
+            depth++;
+        }
+
+        void exit() {
+            depth--;
+        }
+
+        /**
+         * Updates the current statement and takes a sample if one was
+         * requested since the last.
+         */
+        void visit(Ast ast) {
+            if(ast instanceof Ast.Statement statement && depth > 0){
+                statements[depth - 1] = statement;
+            }
+            long current = tick;
+            if(current != sampled){
+                sampled = current;
+                sample();
+            }
+        }
+
+        private void sample() {
+            if(depth == 0){
+                return;
+            }
+            StringBuilder builder = new StringBuilder();
+            for(int i = 0; i < depth; i++){
+                if(i > 0){
+                    builder.append(';');
+                }
+                builder.append(methods[i].getName());
+                Integer position = statements[i] == null ? null : positions.get(statements[i]);
+                if(position != null){
+                    builder.append(':').append(position);
+                }
+            }
+            samples.merge(builder.toString(), 1L, Long::sum);
+        }
+
+    }
+
+}
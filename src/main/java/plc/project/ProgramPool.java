@@ -0,0 +1,66 @@
+package plc.project;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs one compiled program many times, possibly concurrently.
+ *
+ * The {@link Bytecode} is immutable and shared by all runs, so it is only
+ * lexed, parsed and compiled once. Everything a run changes (the fields of
+ * the program, registers and resolved natives) belongs to a
+ * {@link VirtualMachine}, and each run borrows an idle machine from the pool
+ * or creates one, returning it afterwards so later runs don't allocate it
+ * again. At most {@code capacity} idle machines are kept.
+ *
+ * Machines resolve any other names in children of the same parent scope,
+ * which is shared between threads and should therefore not be modified
+ * while the pool is in use. Programs assigning variables of that scope are
+ * not isolated from each other.
+ */
+public final class ProgramPool {
+
+    private final Bytecode program;
+    private final Scope parent;
+    private final BlockingQueue<VirtualMachine> idle;
+
+    public ProgramPool(Bytecode program, Scope parent) {
+        this(program, parent, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ProgramPool(Bytecode program, Scope parent, int capacity) {
+        this.program = program;
+        this.parent = parent;
+        this.idle = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+    }
+
+    public Bytecode getProgram() {
+        return program;
+    }
+
+    /**
+     * Runs {@code main/0} of the program on the calling thread, returning
+     * its result.
+     */
+    public Environment.PlcObject run() {
+        VirtualMachine machine = idle.poll();
+        if(machine == null){
+            machine = new VirtualMachine(program, parent);
+        }
+        try{
+            return machine.run();
+        }finally{
+            idle.offer(machine);
+        }
+    }
+
+    /**
+     * Runs {@code main/0} of the program on the executor.
+     */
+    public CompletableFuture<Environment.PlcObject> submit(Executor executor) {
+        return CompletableFuture.supplyAsync(this::run, executor);
+    }
+
+}
@@ -0,0 +1,61 @@
+package plc.project;
+
+import java.math.BigInteger;
+
+/**
+ * Determines whether evaluating an expression is free of side effects, so
+ * optimization passes may remove, reorder or reuse it. The answer is
+ * conservative: anything that is not known to be pure is treated as impure.
+ *
+ * Pure expressions may still fail at runtime, such as when a variable they
+ * read holds NIL or a comparison of Comparable operands holds values of
+ * different classes, so passes which evaluate an expression where it wasn't
+ * evaluated before must check that separately.
+ */
+final class Purity {
+
+    private Purity() {}
+
+    static boolean isPure(Ast.Expression ast) {
+        switch(ast){
+            case Ast.Expression.Literal literal:
+                return true;
+            case Ast.Expression.Group group:
+                return isPure(group.getExpression());
+            case Ast.Expression.Binary binary:
+                // Operand types are only guaranteed once analyzed.
+                if(Ast.annotation(binary::getType) == null){
+                    return false;
+                }
+                if(binary.getOperator().equals("/") && !isNonZeroLiteral(binary.getRight())){
+                    return false;
+                }
+                return isPure(binary.getLeft()) && isPure(binary.getRight());
+            case Ast.Expression.Access access: {
+                Environment.Variable variable = Ast.annotation(access::getVariable);
+                if(variable == null){
+                    return false;
+                }
+                // Reading a resolved variable has no side effects, but fields
+                // are only pure if registered as such.
+                return access.getReceiver().map(receiver -> isPure(receiver) && Environment.isPure(variable)).orElse(true);
+            }
+            case Ast.Expression.Function function: {
+                // Only builtins registered as pure are known to be free of
+                // side effects.
+                Environment.Function annotation = Ast.annotation(function::getFunction);
+                if(annotation == null || !Environment.isPure(annotation)){
+                    return false;
+                }
+                return function.getReceiver().map(Purity::isPure).orElse(true) && function.getArguments().stream().allMatch(Purity::isPure);
+            }
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isNonZeroLiteral(Ast.Expression ast) {
+        return ast instanceof Ast.Expression.Literal literal && literal.getLiteral() instanceof BigInteger value && value.signum() != 0;
+    }
+
+}
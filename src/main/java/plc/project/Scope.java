@@ -1,6 +1,7 @@
 package plc.project;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,8 +10,9 @@ import java.util.function.Function;
 public final class Scope {
 
     private final Scope parent;
-    public final Map<String, Environment.Variable> variables = new HashMap<>();
-    public final Map<String, Environment.Function> functions = new HashMap<>();
+    private final Map<String, Environment.Variable> variables = new HashMap<>();
+    private final Map<String, Environment.Function> functions = new HashMap<>();
+    private volatile boolean frozen;
 
     public Scope(Scope parent) {
         this.parent = parent;
@@ -20,11 +22,47 @@ public final class Scope {
         return parent;
     }
 
+    /**
+     * Returns a read-only view of the variables defined in this scope (not
+     * its parents), by name.
+     */
+    public Map<String, Environment.Variable> getVariables() {
+        return Collections.unmodifiableMap(variables);
+    }
+
+    /**
+     * Returns a read-only view of the functions defined in this scope (not
+     * its parents), by name and arity as {@code name/arity}.
+     */
+    public Map<String, Environment.Function> getFunctions() {
+        return Collections.unmodifiableMap(functions);
+    }
+
+    /**
+     * Prevents defining any more variables or functions in this scope, so it
+     * can be read from several threads (such as the scope of a registered
+     * type). Values of the variables can still be changed.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void requireUnfrozen() {
+        if (frozen) {
+            throw new IllegalStateException("The scope is frozen.");
+        }
+    }
+
     public void defineVariable(String name, boolean constant, Environment.PlcObject value) {
         defineVariable(name, name, Environment.Type.ANY, constant, value);
     }
 
     public Environment.Variable defineVariable(String name, String jvmName, Environment.Type type, boolean constant, Environment.PlcObject value) {
+        requireUnfrozen();
         if (variables.containsKey(name)) {
             throw new RuntimeException("The variable " + name + " is already defined in this scope.");
         } else {
@@ -53,6 +91,7 @@ public final class Scope {
     }
 
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
+        requireUnfrozen();
         if (functions.containsKey(name + "/" + parameterTypes.size())) {
             throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
         } else {
@@ -0,0 +1,91 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs analyzed programs with the {@link Interpreter}, each invocation on its
+ * own virtual thread, so many scripts can wait (for example on I/O done by
+ * functions of the scope) without occupying platform threads.
+ *
+ * Each invocation has its own interpreter and therefore its own fields,
+ * while the program itself is only read and can be shared by invocations.
+ * At most {@code concurrency} invocations run at a time; the others wait for
+ * a permit, which only parks their virtual thread. Output of {@code print}
+ * is written a line at a time under a {@link ReentrantLock} rather than a
+ * monitor, so a blocked write doesn't pin the carrier thread.
+ *
+ * Each invocation is limited by the {@link Budget} of the executor, failing
+ * with a {@link BudgetExceededException} when it exceeds it.
+ *
+ * Variables and functions of the parent scope are shared by all invocations
+ * and must be thread safe.
+ */
+public final class ScriptExecutor implements AutoCloseable {
+
+    private final Scope parent;
+    private final Semaphore permits;
+    private final Writer output;
+    private final Budget budget;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ScriptExecutor(Scope parent, int concurrency) {
+        this(parent, concurrency, new OutputStreamWriter(System.out));
+    }
+
+    public ScriptExecutor(Scope parent, int concurrency, Writer output) {
+        this(parent, concurrency, output, Budget.UNLIMITED);
+    }
+
+    public ScriptExecutor(Scope parent, int concurrency, Writer output, Budget budget) {
+        this.parent = parent;
+        this.permits = new Semaphore(concurrency);
+        this.output = output;
+        this.budget = budget;
+    }
+
+    /**
+     * Invokes {@code main/0} of the analyzed program on a new virtual thread,
+     * completing with its result or the exception it threw.
+     */
+    public CompletableFuture<Environment.PlcObject> submit(Ast.Source program) {
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try{
+                return new Interpreter(parent, this::print, budget).visit(program);
+            }finally{
+                permits.release();
+            }
+        }, threads);
+    }
+
+    private void print(Object value) {
+        lock.lock();
+        try{
+            output.write(String.valueOf(value));
+            output.write(System.lineSeparator());
+            output.flush();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting programs and waits for the submitted ones to finish.
+     */
+    @Override
+    public void close() {
+        threads.close();
+    }
+
+}
@@ -0,0 +1,476 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An intermediate representation of a method as a control flow graph in
+ * static single assignment form. Each {@link Value} is defined once, by an
+ * instruction in a {@link Block} or by a {@link Phi} at the start of one, and
+ * blocks end with a {@link Terminator} transferring control to other blocks.
+ *
+ * Locals of the method (its parameters and declarations) are SSA values,
+ * while fields are read and written with {@link Load} and {@link Store}, since
+ * calls may change them. Methods are lowered by {@link SsaBuilder}, printed by
+ * {@link SsaPrinter} and translated back to a tree for the
+ * {@link Interpreter} and {@link Generator} by {@link SsaDestructor}.
+ */
+public final class Ssa {
+
+    private Ssa() {}
+
+    public static final class Function {
+
+        private final String name;
+        private final List<String> parameters;
+        private final List<Parameter> parameterValues = new ArrayList<>();
+        private final Environment.Type returnType;
+        private final Environment.Function function;
+        private final List<Block> blocks = new ArrayList<>();
+
+        public Function(String name, List<String> parameters, Environment.Type returnType, Environment.Function function) {
+            this.name = name;
+            this.parameters = parameters;
+            this.returnType = returnType;
+            this.function = function;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getParameters() {
+            return parameters;
+        }
+
+        public List<Parameter> getParameterValues() {
+            return parameterValues;
+        }
+
+        public Environment.Type getReturnType() {
+            return returnType;
+        }
+
+        /**
+         * Returns the function the analyzer defined for the method.
+         */
+        public Environment.Function getFunction() {
+            return function;
+        }
+
+        /**
+         * Returns the blocks of the function, starting with the entry block.
+         */
+        public List<Block> getBlocks() {
+            return blocks;
+        }
+
+        @Override
+        public String toString() {
+            return SsaPrinter.print(this);
+        }
+
+    }
+
+    public static final class Block {
+
+        private int id;
+        private final List<Block> predecessors = new ArrayList<>();
+        private final List<Phi> phis = new ArrayList<>();
+        private final List<Value> instructions = new ArrayList<>();
+        private Terminator terminator;
+
+        public Block(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        void setId(int id) {
+            this.id = id;
+        }
+
+        public List<Block> getPredecessors() {
+            return predecessors;
+        }
+
+        public List<Phi> getPhis() {
+            return phis;
+        }
+
+        public List<Value> getInstructions() {
+            return instructions;
+        }
+
+        public Terminator getTerminator() {
+            return terminator;
+        }
+
+        public void setTerminator(Terminator terminator) {
+            this.terminator = terminator;
+        }
+
+        public List<Block> getSuccessors() {
+            return switch(terminator){
+                case Jump jump -> List.of(jump.getTarget());
+                case Branch branch -> List.of(branch.getThenBlock(), branch.getElseBlock());
+                case null, default -> List.of();
+            };
+        }
+
+    }
+
+    /**
+     * A value computed by an instruction. Instructions which only have an
+     * effect, like {@link Store} or calls to methods without a result, have
+     * the type {@code Nil}.
+     */
+    public static abstract class Value {
+
+        private int id;
+        private final Environment.Type type;
+
+        protected Value(Environment.Type type) {
+            this.type = type;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        void setId(int id) {
+            this.id = id;
+        }
+
+        public Environment.Type getType() {
+            return type;
+        }
+
+        /**
+         * Returns the values this instruction uses.
+         */
+        public abstract List<Value> getOperands();
+
+        /**
+         * Replaces the operand at the given index.
+         */
+        abstract void setOperand(int index, Value value);
+
+    }
+
+    public static final class Parameter extends Value {
+
+        private final int index;
+
+        public Parameter(int index, Environment.Type type) {
+            super(type);
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public List<Value> getOperands() {
+            return List.of();
+        }
+
+        @Override
+        void setOperand(int index, Value value) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+    }
+
+    public static final class Constant extends Value {
+
+        private final Object literal;
+
+        public Constant(Object literal, Environment.Type type) {
+            super(type);
+            this.literal = literal;
+        }
+
+        public Object getLiteral() {
+            return literal;
+        }
+
+        @Override
+        public List<Value> getOperands() {
+            return List.of();
+        }
+
+        @Override
+        void setOperand(int index, Value value) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+    }
+
+    public static final class Binary extends Value {
+
+        private final String operator;
+        private Value left;
+        private Value right;
+
+        public Binary(String operator, Value left, Value right, Environment.Type type) {
+            super(type);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        public String getOperator() {
+            return operator;
+        }
+
+        public Value getLeft() {
+            return left;
+        }
+
+        public Value getRight() {
+            return right;
+        }
+
+        @Override
+        public List<Value> getOperands() {
+            return List.of(left, right);
+        }
+
+        @Override
+        void setOperand(int index, Value value) {
+            if(index == 0){
+                left = value;
+            }else{
+                right = value;
+            }
+        }
+
+    }
+
+    /**
+     * Reads a field, or a field of a receiver.
+     */
+    public static final class Load extends Value {
+
+        private Value receiver;
+        private final Environment.Variable variable;
+
+        public Load(Optional<Value> receiver, Environment.Variable variable) {
+            super(variable.getType());
+            this.receiver = receiver.orElse(null);
+            this.variable = variable;
+        }
+
+        public Optional<Value> getReceiver() {
+            return Optional.ofNullable(receiver);
+        }
+
+        public Environment.Variable getVariable() {
+            return variable;
+        }
+
+        @Override
+        public List<Value> getOperands() {
+            return receiver == null ? List.of() : List.of(receiver);
+        }
+
+        @Override
+        void setOperand(int index, Value value) {
+            receiver = value;
+        }
+
+    }
+
+    /**
+     * Writes a field, or a field of a receiver.
+     */
+    public static final class Store extends Value {
+
+        private Value receiver;
+        private final Environment.Variable variable;
+        private Value value;
+
+        public Store(Optional<Value> receiver, Environment.Variable variable, Value value) {
+            super(Environment.Type.NIL);
+            this.receiver = receiver.orElse(null);
+            this.variable = variable;
+            this.value = value;
+        }
+
+        public Optional<Value> getReceiver() {
+            return Optional.ofNullable(receiver);
+        }
+
+        public Environment.Variable getVariable() {
+            return variable;
+        }
+
+        public Value getValue() {
+            return value;
+        }
+
+        @Override
+        public List<Value> getOperands() {
+            return receiver == null ? List.of(value) : List.of(value, receiver);
+        }
+
+        @Override
+        void setOperand(int index, Value value) {
+            if(index == 0){
+                this.value = value;
+            }else{
+                receiver = value;
+            }
+        }
+
+    }
+
+    public static final class Call extends Value {
+
+        private Value receiver;
+        private final Environment.Function function;
+        private final List<Value> arguments;
+
+        public Call(Optional<Value> receiver, Environment.Function function, List<Value> arguments) {
+            super(function.getReturnType());
+            this.receiver = receiver.orElse(null);
+            this.function = function;
+            this.arguments = new ArrayList<>(arguments);
+        }
+
+        public Optional<Value> getReceiver() {
+            return Optional.ofNullable(receiver);
+        }
+
+        public Environment.Function getFunction() {
+            return function;
+        }
+
+        public List<Value> getArguments() {
+            return arguments;
+        }
+
+        @Override
+        public List<Value> getOperands() {
+            List<Value> operands = new ArrayList<>(arguments);
+            if(receiver != null){
+                operands.add(receiver);
+            }
+            return operands;
+        }
+
+        @Override
+        void setOperand(int index, Value value) {
+            if(index < arguments.size()){
+                arguments.set(index, value);
+            }else{
+                receiver = value;
+            }
+        }
+
+    }
+
+    /**
+     * Selects the operand of the predecessor control came from, in the order
+     * of {@link Block#getPredecessors()}.
+     */
+    public static final class Phi extends Value {
+
+        private final Block block;
+        private final List<Value> operands = new ArrayList<>();
+
+        public Phi(Block block, Environment.Type type) {
+            super(type);
+            this.block = block;
+        }
+
+        public Block getBlock() {
+            return block;
+        }
+
+        @Override
+        public List<Value> getOperands() {
+            return operands;
+        }
+
+        @Override
+        void setOperand(int index, Value value) {
+            operands.set(index, value);
+        }
+
+    }
+
+    public static abstract class Terminator {
+
+        private Terminator() {}
+
+    }
+
+    public static final class Jump extends Terminator {
+
+        private final Block target;
+
+        public Jump(Block target) {
+            this.target = target;
+        }
+
+        public Block getTarget() {
+            return target;
+        }
+
+    }
+
+    public static final class Branch extends Terminator {
+
+        private Value condition;
+        private final Block thenBlock;
+        private final Block elseBlock;
+
+        public Branch(Value condition, Block thenBlock, Block elseBlock) {
+            this.condition = condition;
+            this.thenBlock = thenBlock;
+            this.elseBlock = elseBlock;
+        }
+
+        public Value getCondition() {
+            return condition;
+        }
+
+        void setCondition(Value condition) {
+            this.condition = condition;
+        }
+
+        public Block getThenBlock() {
+            return thenBlock;
+        }
+
+        public Block getElseBlock() {
+            return elseBlock;
+        }
+
+    }
+
+    public static final class Return extends Terminator {
+
+        private Value value;
+
+        public Return(Value value) {
+            this.value = value;
+        }
+
+        public Value getValue() {
+            return value;
+        }
+
+        void setValue(Value value) {
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,409 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Lowers an analyzed method to {@link Ssa} form, following Braun et al.,
+ * "Simple and Efficient Construction of Static Single Assignment Form". Phis
+ * are created lazily when a local is read in a block with several
+ * predecessors, and those which turn out to select a single value are removed
+ * once the method is lowered.
+ *
+ * Control flow follows the {@link Interpreter}: {@code AND} and {@code OR}
+ * short-circuit, arguments are evaluated before the receiver, and a method
+ * which doesn't return returns {@code NIL}.
+ */
+public final class SsaBuilder {
+
+    private final Ssa.Function function;
+    private final Set<Environment.Variable> locals;
+    private final Map<Environment.Variable, Map<Ssa.Block, Ssa.Value>> definitions = new IdentityHashMap<>();
+    private final Map<Ssa.Block, Map<Environment.Variable, Ssa.Phi>> incomplete = new IdentityHashMap<>();
+    private final Set<Ssa.Block> sealed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Ssa.Block block;
+    private int blocks = 0;
+
+    private SsaBuilder(Ast.Method method) {
+        Environment.Function annotation = method.getFunction();
+        function = new Ssa.Function(method.getName(), method.getParameters(), annotation.getReturnType(), annotation);
+        locals = LoopInvariantCodeMotion.locals(method);
+    }
+
+    public static Ssa.Function build(Ast.Method method) {
+        SsaBuilder builder = new SsaBuilder(method);
+        builder.lower(method);
+        return builder.function;
+    }
+
+    private void lower(Ast.Method method) {
+        block = newBlock();
+        seal(block);
+        Map<String, Environment.Variable> parameters = parameters(method);
+        List<Environment.Type> types = method.getFunction().getParameterTypes();
+        for(int i = 0; i < method.getParameters().size(); i++){
+            Ssa.Parameter parameter = new Ssa.Parameter(i, types.get(i));
+            function.getParameterValues().add(parameter);
+            Environment.Variable variable = parameters.get(method.getParameters().get(i));
+            if(variable != null){
+                write(variable, block, parameter);
+            }
+        }
+        lower(method.getStatements());
+        if(block.getTerminator() == null){
+            block.setTerminator(new Ssa.Return(constant(null, Environment.Type.NIL)));
+        }
+        finish();
+    }
+
+    /**
+     * Returns the variables of the parameters which are accessed, by name.
+     */
+    private static Map<String, Environment.Variable> parameters(Ast.Method method) {
+        Set<Environment.Variable> declared = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<String, Environment.Variable> parameters = new HashMap<>();
+        new AstScanner() {
+            @Override
+            public Void visit(Ast.Statement.Declaration ast) {
+                declared.add(ast.getVariable());
+                return super.visit(ast);
+            }
+        }.visit(method);
+        new AstScanner() {
+            @Override
+            public Void visit(Ast.Expression.Access ast) {
+                if(ast.getReceiver().isEmpty() && method.getParameters().contains(ast.getName()) && !declared.contains(ast.getVariable())){
+                    parameters.put(ast.getName(), ast.getVariable());
+                }
+                return super.visit(ast);
+            }
+        }.visit(method);
+        return parameters;
+    }
+
+    private void lower(List<Ast.Statement> statements) {
+        for(Ast.Statement statement : statements){
+            lower(statement);
+        }
+    }
+
+    private void lower(Ast.Statement statement) {
+        switch(statement){
+            case Ast.Statement.Expression ast -> lower(ast.getExpression());
+            case Ast.Statement.Declaration ast -> {
+                Ssa.Value value = ast.getValue().isPresent() ? lower(ast.getValue().get()) : constant(null, Environment.Type.NIL);
+                write(ast.getVariable(), block, value);
+            }
+            case Ast.Statement.Assignment ast -> {
+                Ast.Expression.Access access = (Ast.Expression.Access) ast.getReceiver();
+                Ssa.Value value = lower(ast.getValue());
+                if(access.getReceiver().isPresent()){
+                    Ssa.Value receiver = lower(access.getReceiver().get());
+                    append(new Ssa.Store(Optional.of(receiver), access.getVariable(), value));
+                }else if(locals.contains(access.getVariable())){
+                    write(access.getVariable(), block, value);
+                }else{
+                    append(new Ssa.Store(Optional.empty(), access.getVariable(), value));
+                }
+            }
+            case Ast.Statement.If ast -> {
+                Ssa.Value condition = lower(ast.getCondition());
+                Ssa.Block thenBlock = newBlock();
+                Ssa.Block elseBlock = newBlock();
+                Ssa.Block join = newBlock();
+                branch(condition, thenBlock, elseBlock);
+                seal(thenBlock);
+                seal(elseBlock);
+                block = thenBlock;
+                lower(ast.getThenStatements());
+                jump(join);
+                block = elseBlock;
+                lower(ast.getElseStatements());
+                jump(join);
+                seal(join);
+                block = join;
+            }
+            case Ast.Statement.While ast -> loop(null, ast.getCondition(), ast.getStatements(), null);
+            case Ast.Statement.For ast -> loop(ast.getInitialization(), ast.getCondition(), ast.getStatements(), ast.getIncrement());
+            case Ast.Statement.Return ast -> {
+                block.setTerminator(new Ssa.Return(lower(ast.getValue())));
+                // Anything after the return is unreachable, and is lowered
+                // to a block without predecessors which is removed later.
+                block = newBlock();
+                seal(block);
+            }
+            default -> throw new AssertionError(statement.getClass());
+        }
+    }
+
+    private void loop(Ast.Statement initialization, Ast.Expression condition, List<Ast.Statement> statements, Ast.Statement increment) {
+        if(initialization != null){
+            lower(initialization);
+        }
+        Ssa.Block header = newBlock();
+        Ssa.Block body = newBlock();
+        Ssa.Block exit = newBlock();
+        jump(header);
+        block = header;
+        if(condition != null){
+            branch(lower(condition), body, exit);
+        }else{
+            jump(body);
+        }
+        seal(body);
+        block = body;
+        lower(statements);
+        if(increment != null){
+            lower(increment);
+        }
+        jump(header);
+        seal(header);
+        seal(exit);
+        block = exit;
+    }
+
+    private Ssa.Value lower(Ast.Expression expression) {
+        switch(expression){
+            case Ast.Expression.Literal ast -> {
+                return constant(ast.getLiteral(), ast.getType());
+            }
+            case Ast.Expression.Group ast -> {
+                return lower(ast.getExpression());
+            }
+            case Ast.Expression.Binary ast -> {
+                String operator = ast.getOperator();
+                if(operator.equals("&&") || operator.equals("AND") || operator.equals("||") || operator.equals("OR")){
+                    return shortCircuit(ast, operator.equals("&&") || operator.equals("AND"));
+                }
+                Ssa.Value left = lower(ast.getLeft());
+                Ssa.Value right = lower(ast.getRight());
+                return append(new Ssa.Binary(operator, left, right, ast.getType()));
+            }
+            case Ast.Expression.Access ast -> {
+                if(ast.getReceiver().isPresent()){
+                    return append(new Ssa.Load(Optional.of(lower(ast.getReceiver().get())), ast.getVariable()));
+                }else if(locals.contains(ast.getVariable())){
+                    return read(ast.getVariable(), block);
+                }
+                return append(new Ssa.Load(Optional.empty(), ast.getVariable()));
+            }
+            case Ast.Expression.Function ast -> {
+                List<Ssa.Value> arguments = new ArrayList<>();
+                for(Ast.Expression argument : ast.getArguments()){
+                    arguments.add(lower(argument));
+                }
+                Optional<Ssa.Value> receiver = ast.getReceiver().map(this::lower);
+                return append(new Ssa.Call(receiver, ast.getFunction(), arguments));
+            }
+            default -> throw new AssertionError(expression.getClass());
+        }
+    }
+
+    /**
+     * Lowers {@code AND}/{@code OR} to a branch on the left operand, which
+     * skips the right operand if it decides the result.
+     */
+    private Ssa.Value shortCircuit(Ast.Expression.Binary ast, boolean and) {
+        Ssa.Value left = lower(ast.getLeft());
+        Ssa.Value skipped = constant(!and, Environment.Type.BOOLEAN);
+        Ssa.Block right = newBlock();
+        Ssa.Block join = newBlock();
+        if(and){
+            branch(left, right, join);
+        }else{
+            branch(left, join, right);
+        }
+        Ssa.Block from = block;
+        seal(right);
+        block = right;
+        Ssa.Value value = lower(ast.getRight());
+        jump(join);
+        seal(join);
+        block = join;
+        Ssa.Phi phi = new Ssa.Phi(join, Environment.Type.BOOLEAN);
+        for(Ssa.Block predecessor : join.getPredecessors()){
+            phi.getOperands().add(predecessor == from ? skipped : value);
+        }
+        join.getPhis().add(phi);
+        return phi;
+    }
+
+    private Ssa.Block newBlock() {
+        Ssa.Block block = new Ssa.Block(blocks++);
+        function.getBlocks().add(block);
+        return block;
+    }
+
+    private <T extends Ssa.Value> T append(T value) {
+        block.getInstructions().add(value);
+        return value;
+    }
+
+    private Ssa.Constant constant(Object literal, Environment.Type type) {
+        return append(new Ssa.Constant(literal, type));
+    }
+
+    private void jump(Ssa.Block target) {
+        block.setTerminator(new Ssa.Jump(target));
+        target.getPredecessors().add(block);
+    }
+
+    private void branch(Ssa.Value condition, Ssa.Block thenBlock, Ssa.Block elseBlock) {
+        block.setTerminator(new Ssa.Branch(condition, thenBlock, elseBlock));
+        thenBlock.getPredecessors().add(block);
+        elseBlock.getPredecessors().add(block);
+    }
+
+    private void write(Environment.Variable variable, Ssa.Block block, Ssa.Value value) {
+        definitions.computeIfAbsent(variable, v -> new IdentityHashMap<>()).put(block, value);
+    }
+
+    private Ssa.Value read(Environment.Variable variable, Ssa.Block block) {
+        Ssa.Value value = definitions.getOrDefault(variable, Map.of()).get(block);
+        if(value != null){
+            return value;
+        }
+        if(!sealed.contains(block)){
+            // More predecessors may be added, so the operands are filled in
+            // once the block is sealed.
+            Ssa.Phi phi = new Ssa.Phi(block, variable.getType());
+            block.getPhis().add(phi);
+            incomplete.computeIfAbsent(block, b -> new IdentityHashMap<>()).put(variable, phi);
+            value = phi;
+        }else if(block.getPredecessors().size() == 1){
+            value = read(variable, block.getPredecessors().get(0));
+        }else if(block.getPredecessors().isEmpty()){
+            // Only unreachable blocks (and the entry block, for a variable
+            // read before it is declared) have no predecessors.
+            value = new Ssa.Constant(null, Environment.Type.NIL);
+            block.getInstructions().add(0, value);
+        }else{
+            Ssa.Phi phi = new Ssa.Phi(block, variable.getType());
+            block.getPhis().add(phi);
+            write(variable, block, phi);
+            addOperands(variable, phi);
+            value = phi;
+        }
+        write(variable, block, value);
+        return value;
+    }
+
+    private void addOperands(Environment.Variable variable, Ssa.Phi phi) {
+        for(Ssa.Block predecessor : phi.getBlock().getPredecessors()){
+            phi.getOperands().add(read(variable, predecessor));
+        }
+    }
+
+    private void seal(Ssa.Block block) {
+        Map<Environment.Variable, Ssa.Phi> phis = incomplete.remove(block);
+        if(phis != null){
+            phis.forEach(this::addOperands);
+        }
+        sealed.add(block);
+    }
+
+    /**
+     * Removes unreachable blocks and trivial phis, then numbers the values.
+     */
+    private void finish() {
+        Set<Ssa.Block> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Ssa.Block> pending = new ArrayList<>(List.of(function.getBlocks().get(0)));
+        while(!pending.isEmpty()){
+            Ssa.Block next = pending.remove(pending.size() - 1);
+            if(reachable.add(next)){
+                pending.addAll(next.getSuccessors());
+            }
+        }
+        function.getBlocks().retainAll(reachable);
+        for(Ssa.Block block : function.getBlocks()){
+            List<Ssa.Block> predecessors = block.getPredecessors();
+            for(int i = predecessors.size() - 1; i >= 0; i--){
+                if(!reachable.contains(predecessors.get(i))){
+                    predecessors.remove(i);
+                    for(Ssa.Phi phi : block.getPhis()){
+                        phi.getOperands().remove(i);
+                    }
+                }
+            }
+        }
+        Map<Ssa.Value, Ssa.Value> replacements = new IdentityHashMap<>();
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(Ssa.Block block : function.getBlocks()){
+                for(Ssa.Phi phi : block.getPhis()){
+                    if(replacements.containsKey(phi)){
+                        continue;
+                    }
+                    Ssa.Value same = null;
+                    boolean trivial = true;
+                    for(Ssa.Value operand : phi.getOperands()){
+                        operand = resolve(replacements, operand);
+                        if(operand == phi || operand == same){
+                            continue;
+                        }
+                        if(same != null){
+                            trivial = false;
+                            break;
+                        }
+                        same = operand;
+                    }
+                    if(trivial){
+                        // A phi without other operands is only left in
+                        // unreachable cycles, and is undefined.
+                        if(same == null){
+                            same = new Ssa.Constant(null, Environment.Type.NIL);
+                            function.getBlocks().get(0).getInstructions().add(0, same);
+                        }
+                        replacements.put(phi, same);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        for(int i = 0; i < function.getBlocks().size(); i++){
+            function.getBlocks().get(i).setId(i);
+        }
+        int id = 0;
+        for(Ssa.Parameter parameter : function.getParameterValues()){
+            parameter.setId(id++);
+        }
+        for(Ssa.Block block : function.getBlocks()){
+            block.getPhis().removeIf(replacements::containsKey);
+            for(Ssa.Value value : block.getPhis()){
+                value.setId(id++);
+                replaceOperands(replacements, value);
+            }
+            for(Ssa.Value value : block.getInstructions()){
+                value.setId(id++);
+                replaceOperands(replacements, value);
+            }
+            switch(block.getTerminator()){
+                case Ssa.Branch branch -> branch.setCondition(resolve(replacements, branch.getCondition()));
+                case Ssa.Return ret -> ret.setValue(resolve(replacements, ret.getValue()));
+                default -> {}
+            }
+        }
+    }
+
+    private static void replaceOperands(Map<Ssa.Value, Ssa.Value> replacements, Ssa.Value value) {
+        List<Ssa.Value> operands = value.getOperands();
+        for(int i = 0; i < operands.size(); i++){
+            value.setOperand(i, resolve(replacements, operands.get(i)));
+        }
+    }
+
+    private static Ssa.Value resolve(Map<Ssa.Value, Ssa.Value> replacements, Ssa.Value value) {
+        while(replacements.containsKey(value)){
+            value = replacements.get(value);
+        }
+        return value;
+    }
+
+}
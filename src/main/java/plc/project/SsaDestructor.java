@@ -0,0 +1,257 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Translates an {@link Ssa} function back to an analyzed method, which can be
+ * run by the {@link Interpreter} or compiled by the {@link Generator}.
+ *
+ * Each value (other than constants, which are inlined, and parameters) is
+ * stored in a local declared at the start of the method. Functions with a
+ * single block are translated to straight line code; otherwise the blocks
+ * are placed in a loop dispatching on the index of the current block, since
+ * trees only have structured control flow:
+ *
+ * <pre>
+ * LET _block: Integer = 0;
+ * WHILE TRUE DO
+ *     IF _block == 0 DO ... _block = 2; END
+ *     ...
+ * END
+ * </pre>
+ *
+ * Phis are replaced by assignments in their predecessors, which go through
+ * temporaries when one phi reads another of the same block. Locals are
+ * initialized with a default value so the generated Java definitely assigns
+ * them.
+ */
+public final class SsaDestructor {
+
+    private final Ssa.Function function;
+    private final Set<String> names = new HashSet<>();
+    private final Map<Ssa.Value, Ast.Expression.Access> variables = new IdentityHashMap<>();
+    private final List<Ast.Statement> declarations = new ArrayList<>();
+    private Ast.Expression.Access block;
+
+    private SsaDestructor(Ssa.Function function) {
+        this.function = function;
+    }
+
+    public static Ast.Method destruct(Ssa.Function function) {
+        return new SsaDestructor(function).method();
+    }
+
+    private Ast.Method method() {
+        names.addAll(function.getParameters());
+        for(Ssa.Block block : function.getBlocks()){
+            for(Ssa.Value value : block.getInstructions()){
+                switch(value){
+                    case Ssa.Load load -> names.add(load.getVariable().getJvmName());
+                    case Ssa.Store store -> names.add(store.getVariable().getJvmName());
+                    case Ssa.Call call -> names.add(call.getFunction().getJvmName());
+                    default -> {}
+                }
+            }
+        }
+        Set<Ssa.Value> used = used();
+        for(int i = 0; i < function.getParameterValues().size(); i++){
+            Ssa.Parameter parameter = function.getParameterValues().get(i);
+            String name = function.getParameters().get(i);
+            Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), name);
+            access.setVariable(new Environment.Variable(name, name, parameter.getType(), false, Environment.NIL));
+            variables.put(parameter, access);
+        }
+        List<Ast.Statement> statements = new ArrayList<>();
+        if(function.getBlocks().size() == 1){
+            block(function.getBlocks().get(0), used, statements);
+        }else{
+            block = local("block", Environment.Type.INTEGER);
+            List<Ast.Statement> dispatch = new ArrayList<>();
+            for(int i = 0; i < function.getBlocks().size(); i++){
+                List<Ast.Statement> body = new ArrayList<>();
+                block(function.getBlocks().get(i), used, body);
+                dispatch.add(new Ast.Statement.If(binary("==", copy(block), literal(BigInteger.valueOf(i), Environment.Type.INTEGER), Environment.Type.BOOLEAN), body, List.of()));
+            }
+            statements.add(new Ast.Statement.While(literal(true, Environment.Type.BOOLEAN), dispatch));
+        }
+        List<Ast.Statement> body = new ArrayList<>(declarations);
+        body.addAll(statements);
+        List<String> parameterTypeNames = new ArrayList<>();
+        for(Ssa.Parameter parameter : function.getParameterValues()){
+            parameterTypeNames.add(parameter.getType().getName());
+        }
+        Ast.Method method = new Ast.Method(function.getName(), function.getParameters(), parameterTypeNames, Optional.of(function.getReturnType().getName()), body);
+        method.setFunction(function.getFunction());
+        return method;
+    }
+
+    /**
+     * Returns the values which are operands of other values or terminators.
+     */
+    private Set<Ssa.Value> used() {
+        Set<Ssa.Value> used = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Ssa.Block block : function.getBlocks()){
+            block.getPhis().forEach(phi -> used.addAll(phi.getOperands()));
+            block.getInstructions().forEach(value -> used.addAll(value.getOperands()));
+            switch(block.getTerminator()){
+                case Ssa.Branch branch -> used.add(branch.getCondition());
+                case Ssa.Return ret -> used.add(ret.getValue());
+                default -> {}
+            }
+        }
+        return used;
+    }
+
+    private void block(Ssa.Block block, Set<Ssa.Value> used, List<Ast.Statement> statements) {
+        for(Ssa.Value value : block.getInstructions()){
+            switch(value){
+                case Ssa.Constant constant -> {}
+                case Ssa.Store store -> statements.add(new Ast.Statement.Assignment(access(store.getReceiver(), store.getVariable()), expression(store.getValue())));
+                case Ssa.Call call when !used.contains(call) -> statements.add(new Ast.Statement.Expression(call(call)));
+                default -> statements.add(new Ast.Statement.Assignment(variable(value), switch(value){
+                    case Ssa.Binary binary -> binary(binary.getOperator(), expression(binary.getLeft()), expression(binary.getRight()), binary.getType());
+                    case Ssa.Load load -> access(load.getReceiver(), load.getVariable());
+                    case Ssa.Call call -> call(call);
+                    default -> throw new AssertionError(value.getClass());
+                }));
+            }
+        }
+        switch(block.getTerminator()){
+            case Ssa.Jump jump -> jump(block, jump.getTarget(), statements);
+            case Ssa.Branch branch -> {
+                List<Ast.Statement> thenStatements = new ArrayList<>();
+                List<Ast.Statement> elseStatements = new ArrayList<>();
+                jump(block, branch.getThenBlock(), thenStatements);
+                jump(block, branch.getElseBlock(), elseStatements);
+                statements.add(new Ast.Statement.If(expression(branch.getCondition()), thenStatements, elseStatements));
+            }
+            case Ssa.Return ret -> statements.add(new Ast.Statement.Return(expression(ret.getValue())));
+            default -> throw new AssertionError(block.getTerminator().getClass());
+        }
+    }
+
+    /**
+     * Assigns the phis of the target for the edge from the block, then
+     * continues with the target.
+     */
+    private void jump(Ssa.Block from, Ssa.Block target, List<Ast.Statement> statements) {
+        int index = target.getPredecessors().indexOf(from);
+        List<Ssa.Phi> phis = target.getPhis();
+        boolean overlapping = false;
+        for(Ssa.Phi phi : phis){
+            Ssa.Value operand = phi.getOperands().get(index);
+            overlapping |= operand != phi && operand instanceof Ssa.Phi && phis.contains(operand);
+        }
+        if(overlapping){
+            List<Ast.Expression.Access> temporaries = new ArrayList<>();
+            for(Ssa.Phi phi : phis){
+                Ast.Expression.Access temporary = local("copy", phi.getType());
+                statements.add(new Ast.Statement.Assignment(temporary, expression(phi.getOperands().get(index))));
+                temporaries.add(temporary);
+            }
+            for(int i = 0; i < phis.size(); i++){
+                statements.add(new Ast.Statement.Assignment(variable(phis.get(i)), copy(temporaries.get(i))));
+            }
+        }else{
+            for(Ssa.Phi phi : phis){
+                if(phi.getOperands().get(index) != phi){
+                    statements.add(new Ast.Statement.Assignment(variable(phi), expression(phi.getOperands().get(index))));
+                }
+            }
+        }
+        statements.add(new Ast.Statement.Assignment(copy(block), literal(BigInteger.valueOf(function.getBlocks().indexOf(target)), Environment.Type.INTEGER)));
+    }
+
+    private Ast.Expression expression(Ssa.Value value) {
+        if(value instanceof Ssa.Constant constant){
+            return literal(constant.getLiteral(), constant.getType());
+        }
+        return copy(variable(value));
+    }
+
+    private Ast.Expression.Access variable(Ssa.Value value) {
+        Ast.Expression.Access access = variables.get(value);
+        if(access == null){
+            access = local("v" + value.getId(), value.getType());
+            variables.put(value, access);
+        }
+        return access;
+    }
+
+    /**
+     * Declares a new local with a default value.
+     */
+    private Ast.Expression.Access local(String base, Environment.Type type) {
+        String name = "_" + base;
+        for(int i = 0; names.contains(name); i++){
+            name = "_" + base + "_" + i;
+        }
+        names.add(name);
+        Environment.Variable variable = new Environment.Variable(name, name, type, false, Environment.NIL);
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, Optional.of(type.getName()), Optional.of(literal(initial(type), type)));
+        declaration.setVariable(variable);
+        declarations.add(declaration);
+        Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), name);
+        access.setVariable(variable);
+        return access;
+    }
+
+    private static Object initial(Environment.Type type) {
+        if(type == Environment.Type.INTEGER){
+            return BigInteger.ZERO;
+        }else if(type == Environment.Type.DECIMAL){
+            return BigDecimal.ZERO;
+        }else if(type == Environment.Type.BOOLEAN){
+            return false;
+        }else if(type == Environment.Type.CHARACTER){
+            return ' ';
+        }else if(type == Environment.Type.STRING){
+            return "";
+        }
+        return null;
+    }
+
+    private Ast.Expression.Access access(Optional<Ssa.Value> receiver, Environment.Variable variable) {
+        Ast.Expression.Access access = new Ast.Expression.Access(receiver.map(this::expression), variable.getName());
+        access.setVariable(variable);
+        return access;
+    }
+
+    private Ast.Expression.Function call(Ssa.Call call) {
+        List<Ast.Expression> arguments = new ArrayList<>();
+        for(Ssa.Value argument : call.getArguments()){
+            arguments.add(expression(argument));
+        }
+        Ast.Expression.Function function = new Ast.Expression.Function(call.getReceiver().map(this::expression), call.getFunction().getName(), arguments);
+        function.setFunction(call.getFunction());
+        return function;
+    }
+
+    private static Ast.Expression.Binary binary(String operator, Ast.Expression left, Ast.Expression right, Environment.Type type) {
+        Ast.Expression.Binary binary = new Ast.Expression.Binary(operator, left, right);
+        binary.setType(type);
+        return binary;
+    }
+
+    private static Ast.Expression.Literal literal(Object value, Environment.Type type) {
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(value);
+        literal.setType(type);
+        return literal;
+    }
+
+    private static Ast.Expression.Access copy(Ast.Expression.Access access) {
+        Ast.Expression.Access copy = new Ast.Expression.Access(Optional.empty(), access.getName());
+        copy.setVariable(access.getVariable());
+        return copy;
+    }
+
+}
@@ -0,0 +1,109 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints {@link Ssa} functions in a readable form, one instruction per line:
+ *
+ * <pre>
+ * f(%0: Integer): Integer {
+ * b0:
+ *     %1: Integer = const 1
+ *     %2: Boolean = %0 &lt; %1
+ *     branch %2, b1, b2
+ * ...
+ * }
+ * </pre>
+ */
+public final class SsaPrinter {
+
+    private final StringBuilder builder = new StringBuilder();
+
+    private SsaPrinter() {}
+
+    public static String print(Ssa.Function function) {
+        SsaPrinter printer = new SsaPrinter();
+        printer.function(function);
+        return printer.builder.toString();
+    }
+
+    private void function(Ssa.Function function) {
+        List<String> parameters = new ArrayList<>();
+        for(Ssa.Parameter parameter : function.getParameterValues()){
+            parameters.add(name(parameter) + ": " + parameter.getType().getName());
+        }
+        builder.append(function.getName()).append("(").append(String.join(", ", parameters)).append("): ")
+                .append(function.getReturnType().getName()).append(" {");
+        for(Ssa.Block block : function.getBlocks()){
+            line(0, label(block) + ":");
+            for(Ssa.Phi phi : block.getPhis()){
+                List<String> operands = new ArrayList<>();
+                for(int i = 0; i < phi.getOperands().size(); i++){
+                    operands.add(label(block.getPredecessors().get(i)) + ": " + name(phi.getOperands().get(i)));
+                }
+                line(1, definition(phi) + "phi [" + String.join(", ", operands) + "]");
+            }
+            for(Ssa.Value value : block.getInstructions()){
+                line(1, instruction(value));
+            }
+            line(1, terminator(block.getTerminator()));
+        }
+        line(0, "}");
+    }
+
+    private String instruction(Ssa.Value value) {
+        return switch(value){
+            case Ssa.Constant constant -> definition(value) + "const " + literal(constant.getLiteral());
+            case Ssa.Binary binary -> definition(value) + name(binary.getLeft()) + " " + binary.getOperator() + " " + name(binary.getRight());
+            case Ssa.Load load -> definition(value) + "load " + load.getReceiver().map(receiver -> name(receiver) + ".").orElse("") + load.getVariable().getName();
+            case Ssa.Store store -> "store " + store.getReceiver().map(receiver -> name(receiver) + ".").orElse("") + store.getVariable().getName() + ", " + name(store.getValue());
+            case Ssa.Call call -> {
+                List<String> arguments = new ArrayList<>();
+                for(Ssa.Value argument : call.getArguments()){
+                    arguments.add(name(argument));
+                }
+                yield definition(value) + "call " + call.getReceiver().map(receiver -> name(receiver) + ".").orElse("")
+                        + call.getFunction().getName() + "(" + String.join(", ", arguments) + ")";
+            }
+            default -> throw new AssertionError(value.getClass());
+        };
+    }
+
+    private String terminator(Ssa.Terminator terminator) {
+        return switch(terminator){
+            case Ssa.Jump jump -> "jump " + label(jump.getTarget());
+            case Ssa.Branch branch -> "branch " + name(branch.getCondition()) + ", " + label(branch.getThenBlock()) + ", " + label(branch.getElseBlock());
+            case Ssa.Return ret -> "return " + name(ret.getValue());
+            default -> throw new AssertionError(terminator.getClass());
+        };
+    }
+
+    private static String definition(Ssa.Value value) {
+        return name(value) + ": " + value.getType().getName() + " = ";
+    }
+
+    private static String name(Ssa.Value value) {
+        return "%" + value.getId();
+    }
+
+    private static String label(Ssa.Block block) {
+        return "b" + block.getId();
+    }
+
+    private static String literal(Object literal) {
+        if(literal instanceof String string){
+            return "\"" + string.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+        }else if(literal instanceof Character character){
+            return "'" + character + "'";
+        }else if(literal instanceof Boolean bool){
+            return bool ? "TRUE" : "FALSE";
+        }
+        return literal == null ? "NIL" : literal.toString();
+    }
+
+    private void line(int indent, String text) {
+        builder.append(System.lineSeparator()).append("    ".repeat(indent)).append(text);
+    }
+
+}
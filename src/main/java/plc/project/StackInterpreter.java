@@ -0,0 +1,789 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An interpreter with the same semantics as {@link Interpreter} that does not
+ * use Java recursion to evaluate the AST. Every pending statement or expression
+ * is represented by a {@link Frame} on a heap allocated frame stack and every
+ * intermediate value lives on a separate operand stack, so the recursion depth
+ * of a PLC program is limited only by {@link #getMaxFrames()} instead of the
+ * size of the Java thread stack.
+ *
+ * Calls to methods defined by this interpreter push a new frame instead of
+ * invoking the {@link Environment.Function}, while builtins (such as print)
+ * and functions defined elsewhere are invoked directly.
+ */
+public final class StackInterpreter implements Ast.Visitor<Environment.PlcObject> {
+
+    /**
+     * The default frame limit, which is roughly 64MB of frames for typical
+     * programs and supports recursion depths in the hundreds of thousands.
+     */
+    public static final int DEFAULT_MAX_FRAMES = 1 << 20;
+
+    private final int maxFrames;
+    private final Map<Environment.Function, Closure> closures = new IdentityHashMap<>();
+    private Scope scope;
+
+    private Frame[] frames = new Frame[64];
+    private int depth = 0;
+    private Environment.PlcObject[] operands = new Environment.PlcObject[64];
+    private int size = 0;
+    private int base = 0;
+
+    public StackInterpreter(Scope parent) {
+        this(parent, DEFAULT_MAX_FRAMES);
+    }
+
+    public StackInterpreter(Scope parent, int maxFrames) {
+        if(maxFrames <= 0){
+            throw new IllegalArgumentException("The frame limit must be positive.");
+        }
+        this.maxFrames = maxFrames;
+        scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public int getMaxFrames() {
+        return maxFrames;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Source ast) {
+        for(Ast.Field field : ast.getFields()){
+            visit(field);
+        }
+        for(Ast.Method method : ast.getMethods()){
+            visit(method);
+        }
+        return invoke(scope.lookupFunction("main", 0), new ArrayList<>());
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Field ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Method ast) {
+        List<Environment.Type> parameterTypes = new ArrayList<>();
+        for(int i = 0; i < ast.getParameters().size(); i++){
+            parameterTypes.add(Environment.Type.ANY);
+        }
+        Closure closure = new Closure(ast, scope);
+        Environment.Function function = scope.defineFunction(ast.getName(), ast.getName(), parameterTypes, Environment.Type.ANY, args -> call(closure, args));
+        closures.put(function, closure);
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.Expression ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.Declaration ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.Assignment ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.If ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.For ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.While ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.Return ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Literal ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Group ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Binary ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Access ast) {
+        return execute(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Function ast) {
+        return execute(ast);
+    }
+
+    /**
+     * Invokes a function, running it on the frame stack if it is a method
+     * defined by this interpreter.
+     */
+    private Environment.PlcObject invoke(Environment.Function function, List<Environment.PlcObject> args) {
+        Closure closure = closures.get(function);
+        return closure != null ? call(closure, args) : function.invoke(args);
+    }
+
+    private Environment.PlcObject call(Closure closure, List<Environment.PlcObject> args) {
+        return run(new MethodFrame(closure, args), true);
+    }
+
+    /**
+     * Evaluates a statement or expression, returning {@code NIL} for
+     * statements (which do not leave a value on the operand stack).
+     */
+    private Environment.PlcObject execute(Ast ast) {
+        if(ast instanceof Ast.Expression expression){
+            return run(expressionFrame(expression), true);
+        }
+        return run(frame(ast), false);
+    }
+
+    /**
+     * Runs the frame stack until the given frame has completed. Runs may nest
+     * when a builtin calls back into a method of this interpreter, so each run
+     * only steps the frames above the depth at which it started.
+     */
+    private Environment.PlcObject run(Frame frame, boolean result) {
+        int previousBase = base;
+        int previousSize = size;
+        Scope previousScope = scope;
+        base = depth;
+        try{
+            pushFrame(frame);
+            while(depth > base){
+                frames[depth - 1].step();
+            }
+            return result ? popOperand() : Environment.NIL;
+        }catch(RuntimeException e){
+            Arrays.fill(frames, base, depth, null);
+            depth = base;
+            size = previousSize;
+            scope = previousScope;
+            throw e;
+        }finally{
+            base = previousBase;
+        }
+    }
+
+    private void pushFrame(Frame frame) {
+        if(depth == frames.length){
+            if(depth >= maxFrames){
+                throw new RuntimeException("Stack limit of " + maxFrames + " frames exceeded.");
+            }
+            frames = Arrays.copyOf(frames, (int) Math.min((long) depth * 2, maxFrames));
+        }
+        frames[depth++] = frame;
+    }
+
+    private void popFrame() {
+        frames[--depth] = null;
+    }
+
+    private void pushOperand(Environment.PlcObject value) {
+        if(size == operands.length){
+            operands = Arrays.copyOf(operands, size * 2);
+        }
+        operands[size++] = value;
+    }
+
+    private Environment.PlcObject popOperand() {
+        Environment.PlcObject value = operands[--size];
+        operands[size] = null;
+        return value;
+    }
+
+    /**
+     * Schedules the evaluation of an expression, whose value will be on top of
+     * the operand stack once it completes. Literals and plain variable accesses
+     * have no subexpressions and are evaluated immediately.
+     */
+    private void evaluate(Ast.Expression ast) {
+        if(ast instanceof Ast.Expression.Literal literal){
+            pushOperand(literal.getLiteral() == null ? Environment.NIL : Environment.create(literal.getLiteral()));
+        }else if(ast instanceof Ast.Expression.Access access && access.getReceiver().isEmpty()){
+            pushOperand(scope.lookupVariable(access.getName()).getValue());
+        }else{
+            pushFrame(expressionFrame(ast));
+        }
+    }
+
+    private Frame expressionFrame(Ast.Expression ast) {
+        return switch(ast){
+            case Ast.Expression.Literal literal -> new LiteralFrame(literal);
+            case Ast.Expression.Group group -> new GroupFrame(group);
+            case Ast.Expression.Binary binary -> new BinaryFrame(binary);
+            case Ast.Expression.Access access -> new AccessFrame(access);
+            case Ast.Expression.Function function -> new FunctionFrame(function);
+            default -> throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        };
+    }
+
+    private Frame statementFrame(Ast.Statement ast) {
+        return switch(ast){
+            case Ast.Statement.Expression expression -> new ExpressionFrame(expression);
+            case Ast.Statement.Declaration declaration -> new DeclarationFrame(declaration);
+            case Ast.Statement.Assignment assignment -> new AssignmentFrame(assignment);
+            case Ast.Statement.If statement -> new IfFrame(statement);
+            case Ast.Statement.For statement -> new ForFrame(statement);
+            case Ast.Statement.While statement -> new WhileFrame(statement);
+            case Ast.Statement.Return statement -> new ReturnFrame(statement);
+            default -> throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        };
+    }
+
+    private Frame frame(Ast ast) {
+        if(ast instanceof Ast.Field field){
+            return new FieldFrame(field);
+        }
+        return statementFrame((Ast.Statement) ast);
+    }
+
+    /**
+     * A method of this interpreter along with the scope it was defined in.
+     */
+    private record Closure(Ast.Method method, Scope scope) {}
+
+    /**
+     * A pending unit of work. Each call to {@link #step()} advances the frame
+     * by pushing child frames and/or consuming their results, and the frame
+     * removes itself from the stack once it is complete.
+     */
+    private abstract class Frame {
+
+        int state = 0;
+
+        abstract void step();
+
+    }
+
+    private final class FieldFrame extends Frame {
+
+        private final Ast.Field ast;
+
+        private FieldFrame(Ast.Field ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            if(state++ == 0 && ast.getValue().isPresent()){
+                evaluate(ast.getValue().get());
+                return;
+            }
+            popFrame();
+            scope.defineVariable(ast.getName(), false, ast.getValue().isPresent() ? popOperand() : Environment.NIL);
+        }
+
+    }
+
+    private final class MethodFrame extends Frame {
+
+        private final Closure closure;
+        private final List<Environment.PlcObject> args;
+        private Scope caller;
+        private int operandSize;
+
+        private MethodFrame(Closure closure, List<Environment.PlcObject> args) {
+            this.closure = closure;
+            this.args = args;
+        }
+
+        @Override
+        void step() {
+            if(state == 0){
+                caller = scope;
+                operandSize = size;
+                Scope methodScope = new Scope(closure.scope());
+                for(int i = 0; i < args.size(); i++){
+                    methodScope.defineVariable(closure.method().getParameters().get(i), false, args.get(i));
+                }
+                scope = methodScope;
+            }
+            List<Ast.Statement> statements = closure.method().getStatements();
+            if(state < statements.size()){
+                pushFrame(statementFrame(statements.get(state++)));
+            }else{
+                complete(Environment.NIL);
+            }
+        }
+
+        private void complete(Environment.PlcObject value) {
+            popFrame();
+            scope = caller;
+            size = operandSize;
+            pushOperand(value);
+        }
+
+    }
+
+    /**
+     * Executes a list of statements in a new child scope, restoring the
+     * previous scope once the block is complete.
+     */
+    private final class BlockFrame extends Frame {
+
+        private final List<Ast.Statement> statements;
+        private Scope previous;
+
+        private BlockFrame(List<Ast.Statement> statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        void step() {
+            if(state == 0){
+                previous = scope;
+                scope = new Scope(previous);
+            }
+            if(state < statements.size()){
+                pushFrame(statementFrame(statements.get(state++)));
+            }else{
+                popFrame();
+                scope = previous;
+            }
+        }
+
+    }
+
+    private final class ExpressionFrame extends Frame {
+
+        private final Ast.Statement.Expression ast;
+
+        private ExpressionFrame(Ast.Statement.Expression ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            if(state++ == 0){
+                evaluate(ast.getExpression());
+            }else{
+                popFrame();
+                popOperand();
+            }
+        }
+
+    }
+
+    private final class DeclarationFrame extends Frame {
+
+        private final Ast.Statement.Declaration ast;
+
+        private DeclarationFrame(Ast.Statement.Declaration ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            if(state++ == 0 && ast.getValue().isPresent()){
+                evaluate(ast.getValue().get());
+                return;
+            }
+            popFrame();
+            scope.defineVariable(ast.getName(), false, ast.getValue().isPresent() ? popOperand() : Environment.NIL);
+        }
+
+    }
+
+    private final class AssignmentFrame extends Frame {
+
+        private final Ast.Statement.Assignment ast;
+        private final Ast.Expression.Access access;
+
+        private AssignmentFrame(Ast.Statement.Assignment ast) {
+            if(!(ast.getReceiver() instanceof Ast.Expression.Access access)){
+                throw new RuntimeException("Non-access expression");
+            }
+            this.ast = ast;
+            this.access = access;
+        }
+
+        @Override
+        void step() {
+            if(state == 0){
+                state = 1;
+                evaluate(ast.getValue());
+            }else if(state == 1 && access.getReceiver().isPresent()){
+                state = 2;
+                evaluate(access.getReceiver().get());
+            }else if(access.getReceiver().isPresent()){
+                popFrame();
+                Environment.PlcObject receiver = popOperand();
+                receiver.setField(access.getName(), popOperand());
+            }else{
+                popFrame();
+                Environment.Variable variable = scope.lookupVariable(access.getName());
+                if(variable.getConstant()){
+                    throw new RuntimeException("Cannot access constant variable" + access.getName());
+                }
+                variable.setValue(popOperand());
+            }
+        }
+
+    }
+
+    private final class IfFrame extends Frame {
+
+        private final Ast.Statement.If ast;
+
+        private IfFrame(Ast.Statement.If ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            if(state++ == 0){
+                evaluate(ast.getCondition());
+                return;
+            }
+            Environment.PlcObject condition = popOperand();
+            Interpreter.requireType(Boolean.class, condition);
+            popFrame();
+            pushFrame(new BlockFrame((Boolean) condition.getValue() ? ast.getThenStatements() : ast.getElseStatements()));
+        }
+
+    }
+
+    /**
+     * Shared implementation of loops, which (like {@link Interpreter}) execute
+     * every iteration in a single child scope.
+     */
+    private abstract class LoopFrame extends Frame {
+
+        private static final int INITIALIZE = 0, CONDITION = 1, TEST = 2, BODY = 3, INCREMENT = 4;
+
+        private Scope previous;
+        private int index;
+
+        abstract Ast.Statement initialization();
+
+        abstract Ast.Expression condition();
+
+        abstract List<Ast.Statement> statements();
+
+        abstract Ast.Statement increment();
+
+        @Override
+        void step() {
+            switch(state){
+                case INITIALIZE -> {
+                    previous = scope;
+                    scope = new Scope(previous);
+                    state = CONDITION;
+                    if(initialization() != null){
+                        pushFrame(statementFrame(initialization()));
+                    }
+                }
+                case CONDITION -> {
+                    if(condition() == null){
+                        index = 0;
+                        state = BODY;
+                    }else{
+                        state = TEST;
+                        evaluate(condition());
+                    }
+                }
+                case TEST -> {
+                    Environment.PlcObject condition = popOperand();
+                    Interpreter.requireType(Boolean.class, condition);
+                    if((Boolean) condition.getValue()){
+                        index = 0;
+                        state = BODY;
+                    }else{
+                        popFrame();
+                        scope = previous;
+                    }
+                }
+                case BODY -> {
+                    if(index < statements().size()){
+                        pushFrame(statementFrame(statements().get(index++)));
+                    }else{
+                        state = INCREMENT;
+                    }
+                }
+                default -> {
+                    state = CONDITION;
+                    if(increment() != null){
+                        pushFrame(statementFrame(increment()));
+                    }
+                }
+            }
+        }
+
+    }
+
+    private final class ForFrame extends LoopFrame {
+
+        private final Ast.Statement.For ast;
+
+        private ForFrame(Ast.Statement.For ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        Ast.Statement initialization() {
+            return ast.getInitialization();
+        }
+
+        @Override
+        Ast.Expression condition() {
+            return ast.getCondition();
+        }
+
+        @Override
+        List<Ast.Statement> statements() {
+            return ast.getStatements();
+        }
+
+        @Override
+        Ast.Statement increment() {
+            return ast.getIncrement();
+        }
+
+    }
+
+    private final class WhileFrame extends LoopFrame {
+
+        private final Ast.Statement.While ast;
+
+        private WhileFrame(Ast.Statement.While ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        Ast.Statement initialization() {
+            return null;
+        }
+
+        @Override
+        Ast.Expression condition() {
+            return ast.getCondition();
+        }
+
+        @Override
+        List<Ast.Statement> statements() {
+            return ast.getStatements();
+        }
+
+        @Override
+        Ast.Statement increment() {
+            return null;
+        }
+
+    }
+
+    /**
+     * Evaluates the returned value and then unwinds the frame stack up to the
+     * enclosing method, which replaces the exception used by
+     * {@link Interpreter} to return from nested statements.
+     */
+    private final class ReturnFrame extends Frame {
+
+        private final Ast.Statement.Return ast;
+
+        private ReturnFrame(Ast.Statement.Return ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            if(state++ == 0){
+                evaluate(ast.getValue());
+                return;
+            }
+            Environment.PlcObject value = popOperand();
+            popFrame();
+            while(depth > base && !(frames[depth - 1] instanceof MethodFrame)){
+                popFrame();
+            }
+            if(depth == base){
+                throw new RuntimeException("Cannot return outside of a method.");
+            }
+            ((MethodFrame) frames[depth - 1]).complete(value);
+        }
+
+    }
+
+    private final class LiteralFrame extends Frame {
+
+        private final Ast.Expression.Literal ast;
+
+        private LiteralFrame(Ast.Expression.Literal ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            popFrame();
+            evaluate(ast);
+        }
+
+    }
+
+    private final class GroupFrame extends Frame {
+
+        private final Ast.Expression.Group ast;
+
+        private GroupFrame(Ast.Expression.Group ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            if(state++ == 0){
+                evaluate(ast.getExpression());
+            }else{
+                popFrame();
+            }
+        }
+
+    }
+
+    private final class BinaryFrame extends Frame {
+
+        private final Ast.Expression.Binary ast;
+
+        private BinaryFrame(Ast.Expression.Binary ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            switch(state++){
+                case 0 -> evaluate(ast.getLeft());
+                case 1 -> {
+                    switch(ast.getOperator()){
+                        case "AND", "&&", "OR", "||" -> {
+                            Environment.PlcObject left = popOperand();
+                            Interpreter.requireType(Boolean.class, left);
+                            boolean shortCircuit = ast.getOperator().equals("AND") || ast.getOperator().equals("&&")
+                                    ? !(Boolean) left.getValue()
+                                    : (Boolean) left.getValue();
+                            if(shortCircuit){
+                                popFrame();
+                                pushOperand(Environment.create(left.getValue()));
+                            }else{
+                                evaluate(ast.getRight());
+                            }
+                        }
+                        default -> evaluate(ast.getRight());
+                    }
+                }
+                default -> {
+                    popFrame();
+                    Environment.PlcObject right = popOperand();
+                    switch(ast.getOperator()){
+                        case "AND", "&&", "OR", "||" -> {
+                            Interpreter.requireType(Boolean.class, right);
+                            pushOperand(Environment.create(right.getValue()));
+                        }
+                        default -> pushOperand(Interpreter.evaluate(ast.getOperator(), popOperand(), right));
+                    }
+                }
+            }
+        }
+
+    }
+
+    private final class AccessFrame extends Frame {
+
+        private final Ast.Expression.Access ast;
+
+        private AccessFrame(Ast.Expression.Access ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            if(state++ == 0 && ast.getReceiver().isPresent()){
+                evaluate(ast.getReceiver().get());
+                return;
+            }
+            popFrame();
+            if(ast.getReceiver().isPresent()){
+                pushOperand(popOperand().getField(ast.getName()).getValue());
+            }else{
+                pushOperand(scope.lookupVariable(ast.getName()).getValue());
+            }
+        }
+
+    }
+
+    private final class FunctionFrame extends Frame {
+
+        private final Ast.Expression.Function ast;
+
+        private FunctionFrame(Ast.Expression.Function ast) {
+            this.ast = ast;
+        }
+
+        @Override
+        void step() {
+            int arity = ast.getArguments().size();
+            if(state < arity){
+                evaluate(ast.getArguments().get(state++));
+                return;
+            }
+            if(state++ == arity && ast.getReceiver().isPresent()){
+                evaluate(ast.getReceiver().get());
+                return;
+            }
+            popFrame();
+            Environment.PlcObject receiver = ast.getReceiver().isPresent() ? popOperand() : null;
+            List<Environment.PlcObject> args = new ArrayList<>(arity);
+            for(int i = size - arity; i < size; i++){
+                args.add(operands[i]);
+            }
+            for(int i = 0; i < arity; i++){
+                popOperand();
+            }
+            if(receiver != null){
+                pushOperand(receiver.callMethod(ast.getName(), args));
+                return;
+            }
+            Environment.Function function = scope.lookupFunction(ast.getName(), arity);
+            Closure closure = closures.get(function);
+            if(closure != null){
+                pushFrame(new MethodFrame(closure, args));
+            }else{
+                pushOperand(function.invoke(args));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,261 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Executes {@link Bytecode} with a single dispatch loop. Calls between
+ * functions of the program push an explicit frame instead of recursing in
+ * Java, and values are kept unwrapped (the result of
+ * {@link Environment.PlcObject#getValue()}) in registers so arithmetic does
+ * not allocate {@link Environment.PlcObject}s. Objects received from outside
+ * the program (such as variables of the scope) are kept as they are so their
+ * fields and methods remain accessible.
+ */
+public final class VirtualMachine {
+
+    private static final Object NIL = Environment.NIL.getValue();
+
+    private final Bytecode program;
+    private final Scope scope;
+    private final Object[] constants;
+    private final Bytecode.Function[] functions;
+    private final Environment.Function[] natives;
+    private final Object[] globals;
+
+    public VirtualMachine(Bytecode program, Scope parent) {
+        this.program = program;
+        this.scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+        this.constants = program.getConstants();
+        this.functions = program.getFunctions();
+        this.natives = new Environment.Function[program.getNatives().length];
+        this.globals = new Object[program.getGlobals().size()];
+        Arrays.fill(globals, NIL);
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Initializes the fields of the program and invokes {@code main/0},
+     * returning its result. Each run starts over with fresh fields, so a
+     * machine can be reused to run its program again.
+     */
+    public Environment.PlcObject run() {
+        Arrays.fill(globals, NIL);
+        execute(program.getInitializer(), new Object[0]);
+        int main = program.lookupFunction("main", 0);
+        if(main < 0){
+            return scope.lookupFunction("main", 0).invoke(new ArrayList<>());
+        }
+        return wrap(execute(main, new Object[0]));
+    }
+
+    /**
+     * Invokes a function of the program with the given arguments.
+     */
+    public Environment.PlcObject invoke(String name, List<Environment.PlcObject> arguments) {
+        int function = program.lookupFunction(name, arguments.size());
+        if(function < 0){
+            throw new RuntimeException("The function " + name + "/" + arguments.size() + " is not defined in this scope.");
+        }
+        Object[] args = new Object[arguments.size()];
+        for(int i = 0; i < args.length; i++){
+            args[i] = arguments.get(i);
+        }
+        return wrap(execute(function, args));
+    }
+
+    private Object execute(int entry, Object[] args) {
+        Bytecode.Function function = functions[entry];
+        int[] code = function.getCode();
+        Object[] registers = new Object[function.getRegisters()];
+        System.arraycopy(args, 0, registers, 0, args.length);
+        int pc = 0;
+
+        Bytecode.Function[] callerFunctions = new Bytecode.Function[16];
+        Object[][] callerRegisters = new Object[16][];
+        int[] callerPcs = new int[16];
+        int depth = 0;
+
+        while(true){
+            switch(code[pc]){
+                case Bytecode.CONST -> {
+                    registers[code[pc + 1]] = constants[code[pc + 2]];
+                    pc += 3;
+                }
+                case Bytecode.MOVE -> {
+                    registers[code[pc + 1]] = registers[code[pc + 2]];
+                    pc += 3;
+                }
+                case Bytecode.LOAD_GLOBAL -> {
+                    registers[code[pc + 1]] = globals[code[pc + 2]];
+                    pc += 3;
+                }
+                case Bytecode.STORE_GLOBAL -> {
+                    globals[code[pc + 1]] = registers[code[pc + 2]];
+                    pc += 3;
+                }
+                case Bytecode.LOAD_EXTERNAL -> {
+                    registers[code[pc + 1]] = scope.lookupVariable((String) constants[code[pc + 2]]).getValue();
+                    pc += 3;
+                }
+                case Bytecode.STORE_EXTERNAL -> {
+                    Environment.Variable variable = scope.lookupVariable((String) constants[code[pc + 1]]);
+                    if(variable.getConstant()){
+                        throw new RuntimeException("Cannot access constant variable" + variable.getName());
+                    }
+                    variable.setValue(wrap(registers[code[pc + 2]]));
+                    pc += 3;
+                }
+                case Bytecode.ADD -> {
+                    registers[code[pc + 1]] = Operators.add(value(registers[code[pc + 2]]), value(registers[code[pc + 3]]));
+                    pc += 4;
+                }
+                case Bytecode.SUB -> {
+                    registers[code[pc + 1]] = Operators.subtract(value(registers[code[pc + 2]]), value(registers[code[pc + 3]]));
+                    pc += 4;
+                }
+                case Bytecode.MUL -> {
+                    registers[code[pc + 1]] = Operators.multiply(value(registers[code[pc + 2]]), value(registers[code[pc + 3]]));
+                    pc += 4;
+                }
+                case Bytecode.DIV -> {
+                    registers[code[pc + 1]] = Operators.divide(value(registers[code[pc + 2]]), value(registers[code[pc + 3]]));
+                    pc += 4;
+                }
+                case Bytecode.LT -> {
+                    registers[code[pc + 1]] = Operators.compare(value(registers[code[pc + 2]]), value(registers[code[pc + 3]])) < 0;
+                    pc += 4;
+                }
+                case Bytecode.LE -> {
+                    registers[code[pc + 1]] = Operators.compare(value(registers[code[pc + 2]]), value(registers[code[pc + 3]])) <= 0;
+                    pc += 4;
+                }
+                case Bytecode.GT -> {
+                    registers[code[pc + 1]] = Operators.compare(value(registers[code[pc + 2]]), value(registers[code[pc + 3]])) > 0;
+                    pc += 4;
+                }
+                case Bytecode.GE -> {
+                    registers[code[pc + 1]] = Operators.compare(value(registers[code[pc + 2]]), value(registers[code[pc + 3]])) >= 0;
+                    pc += 4;
+                }
+                case Bytecode.EQ -> {
+                    registers[code[pc + 1]] = Objects.equals(value(registers[code[pc + 2]]), value(registers[code[pc + 3]]));
+                    pc += 4;
+                }
+                case Bytecode.NE -> {
+                    registers[code[pc + 1]] = !Objects.equals(value(registers[code[pc + 2]]), value(registers[code[pc + 3]]));
+                    pc += 4;
+                }
+                case Bytecode.JUMP -> pc = code[pc + 1];
+                case Bytecode.JUMP_IF_FALSE -> pc = requireBoolean(registers[code[pc + 1]]) ? pc + 3 : code[pc + 2];
+                case Bytecode.JUMP_IF_TRUE -> pc = requireBoolean(registers[code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                case Bytecode.CHECK_BOOLEAN -> {
+                    requireBoolean(registers[code[pc + 1]]);
+                    pc += 2;
+                }
+                case Bytecode.CALL -> {
+                    if(depth == callerFunctions.length){
+                        callerFunctions = Arrays.copyOf(callerFunctions, depth * 2);
+                        callerRegisters = Arrays.copyOf(callerRegisters, depth * 2);
+                        callerPcs = Arrays.copyOf(callerPcs, depth * 2);
+                    }
+                    callerFunctions[depth] = function;
+                    callerRegisters[depth] = registers;
+                    callerPcs[depth] = pc;
+                    depth++;
+                    function = functions[code[pc + 2]];
+                    Object[] callee = new Object[function.getRegisters()];
+                    System.arraycopy(registers, code[pc + 3], callee, 0, code[pc + 4]);
+                    registers = callee;
+                    code = function.getCode();
+                    pc = 0;
+                }
+                case Bytecode.CALL_NATIVE -> {
+                    Environment.Function target = natives[code[pc + 2]];
+                    if(target == null){
+                        Bytecode.Native n = program.getNatives()[code[pc + 2]];
+                        target = natives[code[pc + 2]] = scope.lookupFunction(n.name(), n.arity());
+                    }
+                    registers[code[pc + 1]] = unwrap(target.invoke(arguments(registers, code[pc + 3], code[pc + 4])));
+                    pc += 5;
+                }
+                case Bytecode.INVOKE -> {
+                    Environment.PlcObject receiver = wrap(registers[code[pc + 3]]);
+                    List<Environment.PlcObject> arguments = arguments(registers, code[pc + 4], code[pc + 5]);
+                    registers[code[pc + 1]] = unwrap(receiver.callMethod((String) constants[code[pc + 2]], arguments));
+                    pc += 6;
+                }
+                case Bytecode.GET_FIELD -> {
+                    Environment.PlcObject receiver = wrap(registers[code[pc + 2]]);
+                    registers[code[pc + 1]] = unwrap(receiver.getField((String) constants[code[pc + 3]]).getValue());
+                    pc += 4;
+                }
+                case Bytecode.SET_FIELD -> {
+                    Environment.PlcObject receiver = wrap(registers[code[pc + 1]]);
+                    receiver.setField((String) constants[code[pc + 2]], wrap(registers[code[pc + 3]]));
+                    pc += 4;
+                }
+                case Bytecode.RETURN, Bytecode.RETURN_NIL -> {
+                    Object result = code[pc] == Bytecode.RETURN ? registers[code[pc + 1]] : NIL;
+                    if(depth == 0){
+                        return result;
+                    }
+                    depth--;
+                    function = callerFunctions[depth];
+                    registers = callerRegisters[depth];
+                    callerRegisters[depth] = null;
+                    code = function.getCode();
+                    pc = callerPcs[depth];
+                    registers[code[pc + 1]] = result;
+                    pc += 5;
+                }
+                default -> throw new IllegalStateException("Invalid opcode " + code[pc] + " at " + pc + " in " + function.getName() + ".");
+            }
+        }
+    }
+
+    private static List<Environment.PlcObject> arguments(Object[] registers, int first, int count) {
+        List<Environment.PlcObject> args = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            args.add(wrap(registers[first + i]));
+        }
+        return args;
+    }
+
+    private static boolean requireBoolean(Object register) {
+        Object value = value(register);
+        if(value instanceof Boolean condition){
+            return condition;
+        }
+        throw new RuntimeException("Expected type " + Boolean.class.getName() + ", received " + value.getClass().getName() + ".");
+    }
+
+    /**
+     * Returns the value of a register, unwrapping objects received from
+     * outside of the program.
+     */
+    private static Object value(Object register) {
+        return register instanceof Environment.PlcObject object ? object.getValue() : register;
+    }
+
+    private static Environment.PlcObject wrap(Object register) {
+        if(register instanceof Environment.PlcObject object){
+            return object;
+        }
+        return register == NIL ? Environment.NIL : Environment.create(register);
+    }
+
+    private static Object unwrap(Environment.PlcObject object) {
+        return object == Environment.NIL ? NIL : object;
+    }
+
+}
@@ -0,0 +1,436 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random, valid programs for benchmarks and differential tests.
+ * The same seed and size always produce the same source.
+ *
+ * Programs have fields of every type (including constants) and about
+ * {@code size} methods, with nested {@code IF}, {@code FOR} and
+ * {@code WHILE} statements, calls and prints, and are accepted by the
+ * {@link Analyzer}. Every program terminates and never fails at runtime:
+ * loops count up to small bounds, recursion is on a decreasing parameter,
+ * divisors are non-zero literals and integers are kept small enough that
+ * they can't overflow an {@code int}. Methods only call earlier methods
+ * which don't call others themselves, so the running time grows linearly
+ * with the size.
+ *
+ * Portable programs avoid the constructs which not every backend supports
+ * the same way: the members of builtin types (such as {@code s.length}),
+ * which the {@link Interpreter} doesn't implement, and the {@code AND} and
+ * {@code OR} operators, which the {@link Generator} emits as they are.
+ * Their output (from {@code print} and the result of {@code main}) is then
+ * the same whether interpreted or compiled.
+ */
+public final class WorkloadGenerator {
+
+    /**
+     * Integers are reduced once they exceed this magnitude, keeping every
+     * intermediate result well within the range of an {@code int}.
+     */
+    private static final int LIMIT = 1000;
+
+    private static final String[] WORDS = {"a", "plc", "loop", "value", "x"};
+
+    private final Random random;
+    private final int size;
+    private final boolean portable;
+    private final StringBuilder builder = new StringBuilder();
+
+    private final List<String> integerFields = new ArrayList<>();
+    private final List<String> constants = new ArrayList<>();
+    private final List<String> stringFields = new ArrayList<>();
+    private final List<String> booleanFields = new ArrayList<>();
+    private final List<String> decimalFields = new ArrayList<>();
+    private final List<String> characterFields = new ArrayList<>();
+    private final List<Signature> callable = new ArrayList<>();
+
+    private Method method;
+
+    public WorkloadGenerator(long seed, int size) {
+        this(seed, size, false);
+    }
+
+    public WorkloadGenerator(long seed, int size, boolean portable) {
+        this.random = new Random(seed);
+        this.size = size;
+        this.portable = portable;
+    }
+
+    /**
+     * Returns the source of the program. Each generator produces one program.
+     */
+    public String generate() {
+        if(!builder.isEmpty()){
+            return builder.toString();
+        }
+        fields();
+        List<Signature> methods = new ArrayList<>();
+        for(int i = 0; i < size; i++){
+            Signature signature = switch(i % 3){
+                case 0 -> method(i, false);
+                case 1 -> recursive(i);
+                default -> method(i, true);
+            };
+            methods.add(signature);
+            if(i % 3 != 2){
+                callable.add(signature);
+            }
+        }
+        main(methods);
+        return builder.toString();
+    }
+
+    private void fields() {
+        int count = 2 + size / 4;
+        for(int i = 0; i < count; i++){
+            switch(i % 5){
+                case 0 -> {
+                    if(random.nextInt(3) == 0){
+                        constants.add("k" + i);
+                        line(0, "LET CONST k" + i + ": Integer = " + random.nextInt(10) + ";");
+                    }else{
+                        integerFields.add("n" + i);
+                        line(0, "LET n" + i + ": Integer = " + random.nextInt(LIMIT) + ";");
+                    }
+                }
+                case 1 -> {
+                    stringFields.add("s" + i);
+                    line(0, "LET s" + i + ": String = \"" + word() + "\";");
+                }
+                case 2 -> {
+                    booleanFields.add("b" + i);
+                    line(0, "LET b" + i + ": Boolean = " + (random.nextBoolean() ? "TRUE" : "FALSE") + ";");
+                }
+                case 3 -> {
+                    decimalFields.add("d" + i);
+                    line(0, "LET d" + i + ": Decimal = " + decimal() + ";");
+                }
+                default -> {
+                    characterFields.add("c" + i);
+                    line(0, "LET c" + i + ": Character = '" + character() + "';");
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates a method of random statements, which calls earlier methods if
+     * it is a caller.
+     */
+    private Signature method(int index, boolean caller) {
+        Signature signature = new Signature("f" + index, random.nextInt(3), random.nextBoolean(), false);
+        method = new Method(caller);
+        for(int i = 0; i < signature.integers; i++){
+            method.integers.add("p" + i);
+        }
+        if(signature.string){
+            method.strings.add("q");
+        }
+        List<String> declarations = new ArrayList<>();
+        int locals = 1 + random.nextInt(3);
+        for(int i = 0; i < locals; i++){
+            declarations.add("LET v" + i + ": Integer = " + term() + ";");
+            method.integers.add("v" + i);
+        }
+        declarations.add("LET t: String = \"" + word() + "\";");
+        method.strings.add("t");
+        declarations.add("LET u: Boolean = " + pick(method.integers) + " < " + random.nextInt(100) + ";");
+        method.booleans.add("u");
+        List<String> body = new ArrayList<>();
+        int statements = 3 + random.nextInt(5);
+        for(int i = 0; i < statements; i++){
+            statement(body, 1, 0);
+        }
+        body.add(indent(1) + "RETURN " + pick(assignable()) + ";");
+
+        line(0, "DEF " + signature.name + "(" + signature.parameters() + "): Integer DO");
+        declarations.forEach(declaration -> line(1, declaration));
+        for(int i = 0; i < method.counters; i++){
+            line(1, "LET i" + i + ": Integer = 0;");
+        }
+        body.forEach(statement -> line(0, statement));
+        line(0, "END");
+        return signature;
+    }
+
+    /**
+     * Generates a method recursing on its first parameter, which is the
+     * depth of the recursion.
+     */
+    private Signature recursive(int index) {
+        Signature signature = new Signature("f" + index, 1 + random.nextInt(2), false, true);
+        String other = signature.integers > 1 ? "p1" : String.valueOf(random.nextInt(10));
+        line(0, "DEF " + signature.name + "(" + signature.parameters() + "): Integer DO");
+        line(1, "IF p0 < 1 DO");
+        line(2, "RETURN " + other + ";");
+        line(1, "END");
+        String arguments = signature.integers > 1 ? "p0 - 1, p1 / 2" : "p0 - 1";
+        line(1, "RETURN " + signature.name + "(" + arguments + ") / 2 + " + other + ";");
+        line(0, "END");
+        return signature;
+    }
+
+    private void main(List<Signature> methods) {
+        method = new Method(true);
+        line(0, "DEF main(): Integer DO");
+        line(1, "LET total: Integer = 0;");
+        for(Signature signature : methods){
+            line(1, "total = total + " + call(signature) + " / 4;");
+            line(1, "IF total > " + LIMIT + " DO total = total / 50; END");
+            line(1, "IF total < -" + LIMIT + " DO total = total / 50; END");
+        }
+        for(String field : integerFields){
+            line(1, "print(" + field + ");");
+        }
+        for(String field : stringFields){
+            line(1, "print(" + field + ");");
+        }
+        for(String field : booleanFields){
+            line(1, "print(" + field + ");");
+        }
+        for(String field : characterFields){
+            line(1, "print(" + field + ");");
+        }
+        line(1, "print(total);");
+        line(1, "RETURN total;");
+        line(0, "END");
+    }
+
+    private void statement(List<String> body, int indent, int depth) {
+        int choice = random.nextInt(depth < 2 ? 12 : 8);
+        switch(choice){
+            case 0, 1 -> {
+                String variable = pick(assignable());
+                body.add(indent(indent) + variable + " = " + integer() + ";");
+                body.add(indent(indent) + "IF " + variable + " > " + LIMIT + " DO " + variable + " = " + variable + " / 50; END");
+                body.add(indent(indent) + "IF " + variable + " < -" + LIMIT + " DO " + variable + " = " + variable + " / 50; END");
+            }
+            case 2 -> body.add(indent(indent) + pick(method.strings, stringFields) + " = \"" + word() + "\" + " + (random.nextBoolean() ? term() : stringTerm()) + ";");
+            case 3 -> body.add(indent(indent) + pick(method.booleans, booleanFields) + " = " + comparison() + ";");
+            case 4 -> {
+                if(!decimalFields.isEmpty() && random.nextBoolean()){
+                    body.add(indent(indent) + pick(decimalFields) + " = " + decimal() + ";");
+                }else if(!characterFields.isEmpty()){
+                    body.add(indent(indent) + pick(characterFields) + " = '" + character() + "';");
+                }else{
+                    body.add(indent(indent) + "print(" + term() + ");");
+                }
+            }
+            case 5 -> body.add(indent(indent) + "print(" + (random.nextBoolean() ? integer() : stringTerm()) + ");");
+            case 6 -> {
+                if(method.caller && !callable.isEmpty()){
+                    body.add(indent(indent) + call(pick(callable)) + ";");
+                }else{
+                    body.add(indent(indent) + "print(" + condition() + ");");
+                }
+            }
+            case 7 -> {
+                if(depth > 0 && random.nextBoolean()){
+                    body.add(indent(indent) + "IF " + condition() + " DO RETURN " + pick(assignable()) + "; END");
+                }else{
+                    body.add(indent(indent) + "print(" + term() + ");");
+                }
+            }
+            case 8, 9 -> {
+                body.add(indent(indent) + "IF " + condition() + " DO");
+                block(body, indent, depth);
+                if(random.nextBoolean()){
+                    body.add(indent(indent) + "ELSE");
+                    block(body, indent, depth);
+                }
+                body.add(indent(indent) + "END");
+            }
+            case 10 -> {
+                String counter = counter();
+                body.add(indent(indent) + "FOR (" + counter + " = 0; " + counter + " < " + (1 + random.nextInt(5)) + "; " + counter + " = " + counter + " + 1)");
+                block(body, indent, depth);
+                body.add(indent(indent) + "END");
+                method.readable.remove(counter);
+                method.nesting--;
+            }
+            default -> {
+                String counter = counter();
+                body.add(indent(indent) + counter + " = 0;");
+                body.add(indent(indent) + "WHILE " + counter + " < " + (1 + random.nextInt(5)) + " DO");
+                block(body, indent, depth);
+                body.add(indent(indent + 1) + counter + " = " + counter + " + 1;");
+                body.add(indent(indent) + "END");
+                method.readable.remove(counter);
+                method.nesting--;
+            }
+        }
+    }
+
+    private void block(List<String> body, int indent, int depth) {
+        int statements = 1 + random.nextInt(3);
+        for(int i = 0; i < statements; i++){
+            statement(body, indent + 1, depth + 1);
+        }
+    }
+
+    /**
+     * Returns a loop counter which is readable, but not assignable, inside
+     * the loop.
+     */
+    private String counter() {
+        String counter = "i" + method.nesting++;
+        method.counters = Math.max(method.counters, method.nesting);
+        method.readable.add(counter);
+        return counter;
+    }
+
+    /**
+     * Returns an integer expression of a few terms, each at most
+     * {@code 9 * LIMIT}.
+     */
+    private String integer() {
+        StringBuilder expression = new StringBuilder(term());
+        int terms = random.nextInt(3);
+        for(int i = 0; i < terms; i++){
+            expression.append(random.nextBoolean() ? " + " : " - ");
+            expression.append(switch(random.nextInt(4)){
+                case 0 -> term() + " * " + (1 + random.nextInt(9));
+                case 1 -> term() + " / " + (1 + random.nextInt(9));
+                case 2 -> "(" + term() + " - " + term() + ")";
+                default -> term();
+            });
+        }
+        return expression.toString();
+    }
+
+    /**
+     * Returns a literal, a variable or a call, each at most about
+     * {@code 2 * LIMIT}.
+     */
+    private String term() {
+        int choice = random.nextInt(10);
+        if(choice < 3){
+            return String.valueOf(random.nextInt(100));
+        }else if(choice == 3 && method.caller && !callable.isEmpty()){
+            return call(pick(callable));
+        }else if(choice == 4 && !portable){
+            return pick(method.strings, stringFields) + ".length";
+        }
+        List<String> variables = new ArrayList<>(method.integers);
+        variables.addAll(method.readable);
+        variables.addAll(integerFields);
+        variables.addAll(constants);
+        return variables.isEmpty() ? "1" : pick(variables);
+    }
+
+    private String stringTerm() {
+        String string = pick(method.strings, stringFields);
+        return portable || random.nextBoolean() ? string : string + ".slice(0, 1)";
+    }
+
+    /**
+     * Returns a boolean expression reading at least one variable, so loops
+     * and branches are never constant for the Java compiler.
+     */
+    private String condition() {
+        String condition = switch(random.nextInt(5)){
+            case 0 -> pick(method.booleans, booleanFields);
+            case 1 -> decimalFields.isEmpty() ? pick(method.booleans) : pick(decimalFields) + " < " + decimal();
+            case 2 -> characterFields.isEmpty() ? pick(method.booleans) : pick(characterFields) + " >= '" + character() + "'";
+            default -> comparison();
+        };
+        if(!portable && random.nextInt(4) == 0){
+            condition += (random.nextBoolean() ? " AND " : " OR ") + pick(method.booleans, booleanFields);
+        }
+        return condition;
+    }
+
+    private String comparison() {
+        return pick(assignable()) + " " + pick(List.of("<", "<=", ">", ">=", "==", "!=")) + " " + term();
+    }
+
+    private String call(Signature signature) {
+        List<String> arguments = new ArrayList<>();
+        for(int i = 0; i < signature.integers; i++){
+            arguments.add(i == 0 && signature.recursive ? String.valueOf(random.nextInt(6)) : term());
+        }
+        if(signature.string){
+            arguments.add(stringTerm());
+        }
+        return signature.name + "(" + String.join(", ", arguments) + ")";
+    }
+
+    private List<String> assignable() {
+        List<String> variables = new ArrayList<>(method.integers);
+        variables.addAll(integerFields);
+        return variables;
+    }
+
+    private String pick(List<String> first, List<String> second) {
+        List<String> options = new ArrayList<>(first);
+        options.addAll(second);
+        return pick(options);
+    }
+
+    private <T> T pick(List<T> options) {
+        return options.get(random.nextInt(options.size()));
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private String decimal() {
+        return random.nextInt(10) + "." + (1 + random.nextInt(9));
+    }
+
+    private char character() {
+        return (char) ('a' + random.nextInt(26));
+    }
+
+    private static String indent(int indent) {
+        return "    ".repeat(indent);
+    }
+
+    private void line(int indent, String line) {
+        builder.append(indent(indent)).append(line).append('\n');
+    }
+
+    /**
+     * A method taking the given number of integers and possibly a string.
+     * Recursive methods recurse on their first parameter.
+     */
+    private record Signature(String name, int integers, boolean string, boolean recursive) {
+
+        String parameters() {
+            List<String> parameters = new ArrayList<>();
+            for(int i = 0; i < integers; i++){
+                parameters.add("p" + i + ": Integer");
+            }
+            if(string){
+                parameters.add("q: String");
+            }
+            return String.join(", ", parameters);
+        }
+
+    }
+
+    /**
+     * The variables of the method being generated.
+     */
+    private static final class Method {
+
+        private final boolean caller;
+        private final List<String> integers = new ArrayList<>();
+        private final List<String> readable = new ArrayList<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<String> booleans = new ArrayList<>();
+        private int nesting = 0;
+        private int counters = 0;
+
+        private Method(boolean caller) {
+            this.caller = caller;
+        }
+
+    }
+
+}
@@ -5,10 +5,13 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -762,6 +765,84 @@ public final class AnalyzerTests {
         );
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testParallel(String test, String input) {
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RuntimeException sequential = null, parallel = null;
+            try {
+                new Analyzer(new Scope(null)).visit(expected);
+            } catch (RuntimeException e) {
+                sequential = e;
+            }
+            try {
+                new Analyzer(new Scope(null), pool).visit(ast);
+            } catch (RuntimeException e) {
+                parallel = e;
+            }
+            if (sequential != null) {
+                Assertions.assertNotNull(parallel);
+                Assertions.assertEquals(sequential.getMessage(), parallel.getMessage());
+            } else {
+                Assertions.assertNull(parallel);
+                StringWriter expectedWriter = new StringWriter();
+                StringWriter actualWriter = new StringWriter();
+                new Generator(new PrintWriter(expectedWriter)).visit(expected);
+                new Generator(new PrintWriter(actualWriter)).visit(ast);
+                Assertions.assertEquals(expectedWriter.toString(), actualWriter.toString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Stream<Arguments> testParallel() {
+        StringBuilder many = new StringBuilder("LET total: Integer = 0;\n");
+        for (int i = 0; i < 100; i++) {
+            many.append("DEF f").append(i).append("(n: Integer): Integer DO\n")
+                    .append("    LET i: Integer = 0;\n")
+                    .append("    WHILE i < n DO total = total + i * ").append(i).append("; i = i + 1; END\n")
+                    .append(i > 0 ? "    RETURN f" + (i - 1) + "(total);\n" : "    RETURN total;\n")
+                    .append("END\n");
+        }
+        many.append("DEF main(): Integer DO RETURN f99(1); END");
+        return Stream.of(
+                Arguments.of("Many Methods", many.toString()),
+                Arguments.of("Recursion",
+                        "DEF f(n: Integer): Integer DO IF n > 0 DO RETURN f(n - 1); END RETURN 0; END\n" +
+                        "DEF main(): Integer DO RETURN f(3); END"
+                ),
+                Arguments.of("Forward Call",
+                        "DEF f(): Integer DO RETURN g(); END\n" +
+                        "DEF g(): Integer DO RETURN 1; END\n" +
+                        "DEF main(): Integer DO RETURN f(); END"
+                ),
+                Arguments.of("First Error",
+                        "DEF f(): Integer DO RETURN g(); END\n" +
+                        "DEF g(): Integer DO RETURN TRUE; END\n" +
+                        "DEF main(): Integer DO RETURN 0; END"
+                ),
+                Arguments.of("Body Before Duplicate",
+                        "DEF f(): Integer DO RETURN x; END\n" +
+                        "DEF g(): Integer DO RETURN 1; END\n" +
+                        "DEF g(): Integer DO RETURN 2; END\n" +
+                        "DEF main(): Integer DO RETURN 0; END"
+                ),
+                Arguments.of("Duplicate Before Body",
+                        "DEF g(): Integer DO RETURN 1; END\n" +
+                        "DEF g(): Integer DO RETURN 2; END\n" +
+                        "DEF f(): Integer DO RETURN x; END\n" +
+                        "DEF main(): Integer DO RETURN 0; END"
+                ),
+                Arguments.of("Missing Main",
+                        "DEF f(): Integer DO RETURN 1; END"
+                )
+        );
+    }
+
     @ParameterizedTest(name = "{0}")
     @MethodSource
     public void testRequireAssignable(String test, Environment.Type target, Environment.Type type, boolean success) {
@@ -0,0 +1,67 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.util.stream.Stream;
+
+final class AstSerializerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testRoundTrip(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(ast, roundTrip(ast));
+        new Analyzer(new Scope(null)).visit(ast);
+        Assertions.assertEquals(ast, roundTrip(ast));
+    }
+
+    private static Stream<Arguments> testRoundTrip() {
+        return Stream.of(
+                Arguments.of("Main",
+                        "DEF main(): Integer DO RETURN 0; END"
+                ),
+                Arguments.of("Literals",
+                        "LET b: Boolean = TRUE; LET d: Decimal = 1.25; LET c: Character = 'c'; LET s: String = \"é\\n\"; " +
+                        "LET big: Integer = 2147483647; DEF main(): Integer DO print(NIL); RETURN 0; END"
+                ),
+                Arguments.of("Statements",
+                        "LET x: Integer = 1; DEF f(y: Integer): Integer DO LET z = y; IF (z < x) DO z = x; ELSE print(z); END " +
+                        "WHILE z > 0 DO z = z - 1; END FOR (x = 0; x < 3; x = x + 1) print(x); END RETURN z; END " +
+                        "DEF main(): Integer DO RETURN f(2); END"
+                )
+        );
+    }
+
+    @Test
+    void testSharedAnnotations() {
+        Ast.Source ast = new Parser(new Lexer("LET x: Integer = 1; DEF main(): Integer DO RETURN x + x; END").lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Source copy = roundTrip(ast);
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) ((Ast.Statement.Return) copy.getMethods().get(0).getStatements().get(0)).getValue();
+        Environment.Variable left = ((Ast.Expression.Access) binary.getLeft()).getVariable();
+        Assertions.assertSame(copy.getFields().get(0).getVariable(), left);
+        Assertions.assertSame(left, ((Ast.Expression.Access) binary.getRight()).getVariable());
+        Assertions.assertSame(Environment.Type.INTEGER, binary.getType());
+    }
+
+    @Test
+    void testStatement() {
+        Ast.Statement ast = new Parser(new Lexer("FOR (i = 0; i < 1; i = i + 1) print(i); END").lex()).parseStatement();
+        Assertions.assertEquals(ast, AstSerializer.deserialize(ByteBuffer.wrap(AstSerializer.serialize(ast))));
+    }
+
+    @Test
+    void testInvalidInput() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AstSerializer.deserialize(ByteBuffer.wrap(new byte[8])));
+    }
+
+    private static Ast.Source roundTrip(Ast.Source ast) {
+        return AstSerializer.deserialize(ByteBuffer.wrap(AstSerializer.serialize(ast)), Ast.Source.class);
+    }
+
+}
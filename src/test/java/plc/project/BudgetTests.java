@@ -0,0 +1,70 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+final class BudgetTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testExceeded(String test, String input, Budget budget, Budget.Resource expected) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null), value -> {}, budget);
+        BudgetExceededException exception = Assertions.assertThrows(BudgetExceededException.class, () -> interpreter.visit(ast));
+        Assertions.assertEquals(expected, exception.getResource());
+    }
+
+    private static Stream<Arguments> testExceeded() {
+        return Stream.of(
+                Arguments.of("Infinite Loop Steps",
+                        "DEF main() DO WHILE TRUE DO END END",
+                        new Budget(10_000, null, Long.MAX_VALUE),
+                        Budget.Resource.STEPS
+                ),
+                Arguments.of("Infinite Loop Time",
+                        "DEF main() DO WHILE TRUE DO END END",
+                        new Budget(Long.MAX_VALUE, Duration.ofMillis(20), Long.MAX_VALUE),
+                        Budget.Resource.TIME
+                ),
+                Arguments.of("Infinite Recursion Memory",
+                        "DEF f(n: Integer) DO RETURN f(n + 1); END DEF main() DO RETURN f(0); END",
+                        new Budget(Long.MAX_VALUE, null, 100_000),
+                        Budget.Resource.MEMORY
+                ),
+                Arguments.of("Growing String",
+                        "LET s: String = \"x\"; DEF main() DO WHILE TRUE DO s = s + s; END END",
+                        new Budget(Long.MAX_VALUE, null, 1 << 20),
+                        Budget.Resource.MEMORY
+                )
+        );
+    }
+
+    @Test
+    void testWithinBudget() {
+        Ast.Source ast = new Parser(new Lexer("DEF main() DO LET i = 0; WHILE i < 10 DO i = i + 1; END RETURN i; END").lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null), new Budget(1000, Duration.ofMinutes(1), 1 << 20));
+        Assertions.assertEquals(BigInteger.TEN, interpreter.visit(ast).getValue());
+        Assertions.assertTrue(interpreter.getMeter().getSteps() > 40);
+        Assertions.assertTrue(interpreter.getMeter().getMemory() > 0);
+    }
+
+    @Test
+    void testScriptExecutor() {
+        Ast.Source ast = new Parser(new Lexer("DEF main(): Integer DO WHILE TRUE DO END RETURN 0; END").lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        try(ScriptExecutor executor = new ScriptExecutor(new Scope(null), 2, new StringWriter(), new Budget(1000, null, Long.MAX_VALUE))){
+            CompletionException exception = Assertions.assertThrows(CompletionException.class, () -> executor.submit(ast).join());
+            Assertions.assertTrue(exception.getCause() instanceof BudgetExceededException);
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class BytecodeCacheTests {
+
+    private static final String SOURCE = "LET x: Integer = 1; DEF main(): Integer DO RETURN x + 1; END";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMiss() {
+        BytecodeCache cache = new BytecodeCache(directory, new Scope(null));
+        Assertions.assertFalse(Files.exists(cache.getPath(SOURCE)));
+        Assertions.assertEquals(BigInteger.TWO, run(cache.load(SOURCE)));
+        Assertions.assertTrue(Files.exists(cache.getPath(SOURCE)));
+    }
+
+    @Test
+    void testHitSkipsCompilation() throws IOException {
+        BytecodeCache cache = new BytecodeCache(directory, new Scope(null));
+        cache.load(SOURCE);
+        Bytecode other = new BytecodeCompiler().compile(new Parser(new Lexer("DEF main(): Integer DO RETURN 7; END").lex()).parseSource());
+        Files.write(cache.getPath(SOURCE), other.toBytes());
+        Assertions.assertEquals(BigInteger.valueOf(7), run(cache.load(SOURCE)));
+    }
+
+    @Test
+    void testChangedSource() {
+        BytecodeCache cache = new BytecodeCache(directory, new Scope(null));
+        String changed = SOURCE.replace("x + 1", "x + 2");
+        Assertions.assertNotEquals(cache.getPath(SOURCE), cache.getPath(changed));
+        cache.load(SOURCE);
+        Assertions.assertEquals(BigInteger.valueOf(3), run(cache.load(changed)));
+    }
+
+    @Test
+    void testCorruptEntry() throws IOException {
+        BytecodeCache cache = new BytecodeCache(directory, new Scope(null));
+        Files.write(cache.getPath(SOURCE), new byte[] {1, 2, 3});
+        Assertions.assertEquals(BigInteger.TWO, run(cache.load(SOURCE)));
+        Assertions.assertEquals(BigInteger.TWO, run(cache.load(SOURCE)));
+    }
+
+    @Test
+    void testCorruptLength() throws IOException {
+        BytecodeCache cache = new BytecodeCache(directory, new Scope(null));
+        byte[] bytes = cache.load(SOURCE).toBytes();
+        // The number of constants, right after the magic number and version.
+        ByteBuffer.wrap(bytes).putInt(2 * Integer.BYTES, Integer.MAX_VALUE);
+        Files.write(cache.getPath(SOURCE), bytes);
+        Assertions.assertEquals(BigInteger.TWO, run(cache.load(SOURCE)));
+        ByteBuffer.wrap(bytes).putInt(2 * Integer.BYTES, -1);
+        Files.write(cache.getPath(SOURCE), bytes);
+        Assertions.assertEquals(BigInteger.TWO, run(cache.load(SOURCE)));
+    }
+
+    @Test
+    void testScope() {
+        Scope scope = new Scope(null);
+        scope.defineFunction("f", 1, args -> Environment.NIL);
+        BytecodeCache cache = new BytecodeCache(directory, scope);
+        BytecodeCache other = new BytecodeCache(directory, new Scope(null));
+        String source = "DEF main(): Integer DO f(1); RETURN 1; END";
+        Assertions.assertNotEquals(cache.getPath(source), other.getPath(source));
+        Assertions.assertEquals(cache.getPath(SOURCE), new BytecodeCache(directory, scope).getPath(SOURCE));
+        cache.load(source);
+        Assertions.assertThrows(RuntimeException.class, () -> other.load(source));
+    }
+
+    @Test
+    void testUnwritable() throws IOException {
+        // A file in place of the directory can't be written to, even as root.
+        Path file = Files.createFile(directory.resolve("cache"));
+        BytecodeCache cache = new BytecodeCache(file, new Scope(null));
+        Assertions.assertEquals(BigInteger.TWO, run(cache.load(SOURCE)));
+        Assertions.assertEquals(BigInteger.TWO, run(cache.load(SOURCE)));
+        Assertions.assertFalse(Files.exists(cache.getPath(SOURCE)));
+    }
+
+    @Test
+    void testInvalidSource() {
+        BytecodeCache cache = new BytecodeCache(directory, new Scope(null));
+        String source = "DEF main(): Integer DO RETURN undefined; END";
+        Assertions.assertThrows(RuntimeException.class, () -> cache.load(source));
+        Assertions.assertFalse(Files.exists(cache.getPath(source)));
+    }
+
+    private static Object run(Bytecode program) {
+        return new VirtualMachine(program, new Scope(null)).run().getValue();
+    }
+
+}
@@ -0,0 +1,62 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+final class ChannelWriterTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testCapacity(int capacity) throws IOException {
+        String text = "print(\"héllo, wörld 😀\");\n".repeat(50);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try(ChannelWriter writer = new ChannelWriter(Channels.newChannel(output), capacity)){
+            for(int i = 0; i < text.length(); i += 5){
+                writer.write(text, i, Math.min(5, text.length() - i));
+            }
+            writer.write('!');
+            writer.write(new char[] {'a', 'b'}, 0, 2);
+        }
+        Assertions.assertEquals(text + "!ab", output.toString(StandardCharsets.UTF_8));
+    }
+
+    private static Stream<Arguments> testCapacity() {
+        return Stream.of(
+                Arguments.of(1),
+                Arguments.of(2),
+                Arguments.of(7),
+                Arguments.of(1 << 16)
+        );
+    }
+
+    @Test
+    void testGenerator(@TempDir Path directory) throws IOException {
+        Ast.Source ast = new Parser(new Lexer(
+                "LET x: Integer = 1; DEF f(n: Integer): Integer DO WHILE n > 0 DO IF n > x DO n = n - 1; END END RETURN n; END " +
+                "DEF main(): Integer DO print(\"main\"); RETURN f(3); END"
+        ).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        StringWriter expected = new StringWriter();
+        new Generator(new PrintWriter(expected)).visit(ast);
+        Path path = directory.resolve("Main.java");
+        try(ChannelWriter writer = ChannelWriter.open(path)){
+            new Generator(writer).visit(ast);
+        }
+        Assertions.assertEquals(expected.toString(), Files.readString(path));
+    }
+
+}
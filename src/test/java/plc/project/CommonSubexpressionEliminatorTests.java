@@ -0,0 +1,144 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class CommonSubexpressionEliminatorTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testMethod(String test, String input, String expected) {
+        Ast.Source ast = analyze("LET x: Integer = 1; " + input + " DEF main(): Integer DO RETURN 0; END");
+        Ast.Method method = new CommonSubexpressionEliminator().rewrite(ast).getMethods().get(0);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(method);
+        Assertions.assertEquals(expected, writer.toString());
+    }
+
+    private static Stream<Arguments> testMethod() {
+        return Stream.of(
+                Arguments.of("Repeated",
+                        "DEF f(a: Integer, b: Integer): Integer DO LET c: Integer = a * b + 1; RETURN a * b + c; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int a, int b) {",
+                                "    int _cse0;",
+                                "    _cse0 = a * b;",
+                                "    int c = _cse0 + 1;",
+                                "    return _cse0 + c;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Largest",
+                        "DEF f(a: Integer, b: Integer): Integer DO print((a + b) * 2); print((a + b) * 2 - (a + b)); RETURN 0; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int a, int b) {",
+                                "    int _cse0;",
+                                "    int _cse1;",
+                                "    _cse0 = a + b;",
+                                "    _cse1 = (_cse0) * 2;",
+                                "    System.out.println(_cse1);",
+                                "    System.out.println(_cse1 - (_cse0));",
+                                "    return 0;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Assigned",
+                        "DEF f(a: Integer, b: Integer): Integer DO print(a * b); a = a + 1; print(a * b); RETURN 0; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int a, int b) {",
+                                "    System.out.println(a * b);",
+                                "    a = a + 1;",
+                                "    System.out.println(a * b);",
+                                "    return 0;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Field After Call",
+                        "DEF f(a: Integer): Integer DO LET b: Integer = x * a; print(x * a); RETURN x * a; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int a) {",
+                                "    int b = x * a;",
+                                "    System.out.println(x * a);",
+                                "    return x * a;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Branch",
+                        "DEF f(a: Integer): Integer DO LET b: Integer = a * 2; IF a > 0 DO b = a * 2; END RETURN a * 2 + b; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int a) {",
+                                "    int b = a * 2;",
+                                "    if (a > 0) {",
+                                "        b = a * 2;",
+                                "    }",
+                                "    return a * 2 + b;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Pure Builtin",
+                        "DEF f(s: String): String DO print(s.compare(\"a\") + 1); RETURN s.compare(\"a\"); END",
+                        String.join(System.lineSeparator(),
+                                "String f(String s) {",
+                                "    String _cse0;",
+                                "    _cse0 = s.compareTo(\"a\");",
+                                "    System.out.println(_cse0 + 1);",
+                                "    return _cse0;",
+                                "}"
+                        )
+                )
+        );
+    }
+
+    @Test
+    void testInterpreter() {
+        String input = "LET y: Integer = 3; DEF bump(): Integer DO y = y + 1; RETURN y; END " +
+                "DEF main(): Integer DO LET a: Integer = y * y; LET b: Integer = bump() + y * y; LET i: Integer = 0; " +
+                "WHILE i < 3 DO a = a + (i + 1) * (i + 1) + b; i = i + 1; END RETURN a + y * y; END";
+        Ast.Source ast = analyze(input);
+        Object expected = new Interpreter(new Scope(null)).visit(ast).getValue();
+        Assertions.assertEquals(BigInteger.valueOf(99), expected);
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(new CommonSubexpressionEliminator().rewrite(ast)).getValue());
+    }
+
+    @Test
+    void testShortCircuit() {
+        String input = "LET x: Integer; LET b: Boolean = FALSE; " +
+                "DEF main(): Integer DO print(b && x + 1 > 2); print(b && x + 1 > 3); print(b || TRUE); RETURN 0; END";
+        Ast.Source ast = analyze(input);
+        Ast.Source rewritten = new CommonSubexpressionEliminator().rewrite(ast);
+        Assertions.assertEquals(ast.getMethods().get(0).getStatements(), rewritten.getMethods().get(0).getStatements());
+        Assertions.assertEquals(BigInteger.ZERO, new Interpreter(new Scope(null), value -> {}).visit(rewritten).getValue());
+    }
+
+    @Test
+    void testGuardedReuse() {
+        String input = "DEF f(a: Integer, b: Boolean): Integer DO print(a * 2); print(b && a * 2 > 3); RETURN a * 2; END DEF main(): Integer DO RETURN 0; END";
+        Ast.Method method = new CommonSubexpressionEliminator().rewrite(analyze(input)).getMethods().get(0);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(method);
+        Assertions.assertEquals(String.join(System.lineSeparator(),
+                "int f(int a, boolean b) {",
+                "    int _cse0;",
+                "    _cse0 = a * 2;",
+                "    System.out.println(_cse0);",
+                "    System.out.println(b AND _cse0 > 3);",
+                "    return _cse0;",
+                "}"
+        ), writer.toString());
+    }
+
+    private static Ast.Source analyze(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
@@ -0,0 +1,111 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class DeadCodeEliminatorTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testMethod(String test, String input, String expected) {
+        String wrap = "LET x: Integer = 1; DEF f(n: Integer): Integer DO %s END DEF main(): Integer DO RETURN f(1); END";
+        Ast.Source ast = analyze(String.format(wrap, input));
+        Ast.Source eliminated = new DeadCodeEliminator().rewrite(ast);
+        Assertions.assertEquals(analyze(String.format(wrap, expected)).getMethods().get(0), eliminated.getMethods().get(0));
+    }
+
+    private static Stream<Arguments> testMethod() {
+        return Stream.of(
+                Arguments.of("After Return",
+                        "RETURN n; print(n); n = 2;",
+                        "RETURN n;"
+                ),
+                Arguments.of("After Returning If",
+                        "IF n > 0 DO RETURN 1; ELSE RETURN 2; END print(n);",
+                        "IF n > 0 DO RETURN 1; ELSE RETURN 2; END"
+                ),
+                Arguments.of("Partially Returning If",
+                        "IF n > 0 DO RETURN 1; END RETURN 2;",
+                        "IF n > 0 DO RETURN 1; END RETURN 2;"
+                ),
+                Arguments.of("Nested Block",
+                        "WHILE n > 0 DO n = n - 1; RETURN n; print(n); END RETURN 0;",
+                        "WHILE n > 0 DO n = n - 1; RETURN n; END RETURN 0;"
+                ),
+                Arguments.of("If False",
+                        "IF FALSE DO print(n); END RETURN n;",
+                        "RETURN n;"
+                ),
+                Arguments.of("If False Declaration",
+                        "IF FALSE DO print(n); ELSE LET y: Integer = n; print(y); END RETURN n;",
+                        "IF TRUE DO LET y: Integer = n; print(y); END RETURN n;"
+                ),
+                Arguments.of("Unused Declaration",
+                        "LET y: Integer = n * 2 + x; RETURN n;",
+                        "RETURN n;"
+                ),
+                Arguments.of("Transitively Unused",
+                        "LET y: Integer = n; LET z: Integer = y + 1; RETURN n;",
+                        "RETURN n;"
+                ),
+                Arguments.of("Assigned Declaration",
+                        "LET y: Integer = 1; y = 2; RETURN n;",
+                        "LET y: Integer = 1; y = 2; RETURN n;"
+                ),
+                Arguments.of("Impure Initializer",
+                        "LET y: Integer = f(n); LET z: Integer = n / x; RETURN n;",
+                        "LET y: Integer = f(n); LET z: Integer = n / x; RETURN n;"
+                ),
+                Arguments.of("Used Declaration",
+                        "LET y: Integer = n + 1; RETURN y;",
+                        "LET y: Integer = n + 1; RETURN y;"
+                )
+        );
+    }
+
+    @Test
+    void testUncalledMethods() {
+        Ast.Source ast = parse("LET x: Integer = g(); DEF g(): Integer DO RETURN 1; END DEF h(): Integer DO RETURN 2; END " +
+                "DEF f(): Integer DO RETURN f(); END DEF main(): Integer DO RETURN f(); END");
+        Ast.Source eliminated = new DeadCodeEliminator().rewrite(ast);
+        Assertions.assertEquals(Stream.of("g", "f", "main").toList(), eliminated.getMethods().stream().map(Ast.Method::getName).toList());
+    }
+
+    @Test
+    void testWithoutMain() {
+        Ast.Source ast = parse("DEF g(): Integer DO RETURN 1; END");
+        Assertions.assertEquals(1, new DeadCodeEliminator().rewrite(ast).getMethods().size());
+    }
+
+    @Test
+    void testUnanalyzed() {
+        Ast.Source ast = parse("DEF main(): Integer DO LET y = 1; RETURN 0; print(2); END");
+        Ast.Source eliminated = new DeadCodeEliminator().rewrite(ast);
+        Assertions.assertEquals(parse("DEF main(): Integer DO LET y = 1; RETURN 0; END"), eliminated);
+    }
+
+    @Test
+    void testInterpreter() {
+        Ast.Source ast = analyze("LET x: Integer = 3; DEF main(): Integer DO LET unused: Integer = x * 2; IF x > 2 DO RETURN x; ELSE RETURN 0; END print(x); END");
+        Ast.Source optimized = new Optimizer().optimize(ast);
+        Assertions.assertEquals(1, optimized.getMethods().get(0).getStatements().size());
+        Assertions.assertEquals(BigInteger.valueOf(3), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new Lexer(input).lex()).parseSource();
+    }
+
+    private static Ast.Source analyze(String input) {
+        Ast.Source ast = parse(input);
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
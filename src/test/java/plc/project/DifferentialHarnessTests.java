@@ -0,0 +1,82 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+final class DifferentialHarnessTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testMatch(String test, String source, String output, String result) {
+        DifferentialHarness.Result actual = new DifferentialHarness(2).run(source);
+        Assertions.assertTrue(actual.matches(), actual.toString());
+        Assertions.assertEquals(output, actual.interpreted().output());
+        Assertions.assertEquals(result, actual.compiled().result());
+        Assertions.assertTrue(actual.interpretNanos() > 0 && actual.executeNanos() > 0 && actual.overhead() > 0);
+    }
+
+    private static Stream<Arguments> testMatch() {
+        String n = System.lineSeparator();
+        return Stream.of(
+                Arguments.of("Return", "DEF main(): Integer DO RETURN 1; END", "", "1"),
+                Arguments.of("Print",
+                        "DEF main(): Integer DO print(\"Hello\"); print(1 < 2); print('c'); RETURN 0; END",
+                        "Hello" + n + "true" + n + "c" + n, "0"
+                ),
+                Arguments.of("Recursion",
+                        "DEF fib(n: Integer): Integer DO IF n < 2 DO RETURN n; ELSE RETURN fib(n - 1) + fib(n - 2); END END DEF main(): Integer DO RETURN fib(15); END",
+                        "", "610"
+                )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testGenerated(long seed) {
+        DifferentialHarness.Result result = new DifferentialHarness(1).run(new WorkloadGenerator(seed, 5 + (int) seed, true).generate());
+        Assertions.assertTrue(result.matches(), result + System.lineSeparator() + result.interpreted() + System.lineSeparator() + result.compiled());
+        Assertions.assertNull(result.interpreted().error());
+    }
+
+    private static Stream<Arguments> testGenerated() {
+        return LongStream.range(0, 8).mapToObj(Arguments::of);
+    }
+
+    @Test
+    void testOverflow() {
+        String source = "DEF main(): Integer DO LET x: Integer = 2147483647; print(x + 1); RETURN 0; END";
+        DifferentialHarness.Result wrapping = new DifferentialHarness(1).run(source);
+        Assertions.assertFalse(wrapping.matches());
+        Assertions.assertEquals("2147483648" + System.lineSeparator(), wrapping.interpreted().output());
+        Assertions.assertEquals("-2147483648" + System.lineSeparator(), wrapping.compiled().output());
+        Assertions.assertTrue(wrapping.toString().startsWith("MISMATCH"));
+        DifferentialHarness.Result checked = new DifferentialHarness(1, Generator.Arithmetic.CHECKED).run(source);
+        Assertions.assertFalse(checked.matches());
+        Assertions.assertTrue(checked.compiled().error() instanceof ArithmeticException);
+        DifferentialHarness.Result unbounded = new DifferentialHarness(1, Generator.Arithmetic.UNBOUNDED).run(source);
+        Assertions.assertTrue(unbounded.matches(), unbounded.toString());
+        Assertions.assertEquals("2147483648" + System.lineSeparator(), unbounded.compiled().output());
+    }
+
+    @ParameterizedTest
+    @MethodSource("testGenerated")
+    void testGeneratedUnbounded(long seed) {
+        DifferentialHarness.Result result = new DifferentialHarness(1, Generator.Arithmetic.UNBOUNDED).run(new WorkloadGenerator(seed, 5 + (int) seed, true).generate());
+        Assertions.assertTrue(result.matches(), result + System.lineSeparator() + result.interpreted() + System.lineSeparator() + result.compiled());
+    }
+
+    @Test
+    void testError() {
+        DifferentialHarness.Result result = new DifferentialHarness(1).run("DEF main(): Integer DO print(1); RETURN 1 / 0; END");
+        Assertions.assertTrue(result.matches(), result.toString());
+        Assertions.assertNotNull(result.interpreted().error());
+        Assertions.assertTrue(result.compiled().error() instanceof ArithmeticException);
+    }
+
+}
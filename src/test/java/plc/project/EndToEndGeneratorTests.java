@@ -9,6 +9,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -166,6 +167,78 @@ public class EndToEndGeneratorTests {
         );
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testCheckedArithmetic(String test, String input, String expected) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("x", "x", Environment.Type.INTEGER, false, Environment.NIL);
+        scope.defineVariable("y", "y", Environment.Type.DECIMAL, false, Environment.NIL);
+        Ast ast = new Parser(new Lexer(input).lex()).parseStatement();
+        new Analyzer(scope).visit(ast);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer), Generator.Arithmetic.CHECKED).visit(ast);
+        Assertions.assertEquals(expected, writer.toString());
+    }
+
+    private static Stream<Arguments> testCheckedArithmetic() {
+        return Stream.of(
+                Arguments.of("Integer", "x = x * 2 + (x - 1) / 3;", "x = Math.addExact(Math.multiplyExact(x, 2), Math.divideExact((Math.subtractExact(x, 1)), 3));"),
+                Arguments.of("Decimal", "y = y * 2.0 + y;", "y = y * 2.0 + y;"),
+                Arguments.of("Concatenation", "print(\"x\" + x);", "System.out.println(\"x\" + x);"),
+                Arguments.of("Comparison", "print(x + 1 < x);", "System.out.println(Math.addExact(x, 1) < x);")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testUnboundedArithmetic(String test, String input, String expected) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("x", "x", Environment.Type.INTEGER, false, Environment.NIL);
+        scope.defineVariable("y", "y", Environment.Type.DECIMAL, false, Environment.NIL);
+        scope.defineVariable("s", "s", Environment.Type.STRING, false, Environment.NIL);
+        Ast ast = new Parser(new Lexer(input).lex()).parseStatement();
+        new Analyzer(scope).visit(ast);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer), Generator.Arithmetic.UNBOUNDED).visit(ast);
+        Assertions.assertEquals(expected, writer.toString());
+    }
+
+    private static Stream<Arguments> testUnboundedArithmetic() {
+        return Stream.of(
+                Arguments.of("Integer", "x = x * 2 + (x - 1) / 3;", "x = x.multiply(java.math.BigInteger.valueOf(2)).add((x.subtract(java.math.BigInteger.valueOf(1))).divide(java.math.BigInteger.valueOf(3)));"),
+                Arguments.of("Declaration", "LET z: Integer = x;", "java.math.BigInteger z = x;"),
+                Arguments.of("Decimal", "y = y * 2.0 + y;", "y = y * 2.0 + y;"),
+                Arguments.of("Concatenation", "print(\"x\" + x);", "System.out.println(\"x\" + x);"),
+                Arguments.of("Comparison", "print(x + 1 < x);", "System.out.println(x.add(java.math.BigInteger.valueOf(1)).compareTo(x) < 0);"),
+                Arguments.of("Equality", "print(x != 1);", "System.out.println(!x.equals(java.math.BigInteger.valueOf(1)));"),
+                Arguments.of("Members", "x = s.length + x.compare(1);", "x = java.math.BigInteger.valueOf(s.length()).add(java.math.BigInteger.valueOf(x.compareTo(java.math.BigInteger.valueOf(1))));"),
+                Arguments.of("Member Arguments", "print(s.slice(x, 2));", "System.out.println(s.substring(x.intValueExact(), java.math.BigInteger.valueOf(2).intValueExact()));")
+        );
+    }
+
+    @Test
+    void testParallel() {
+        StringBuilder builder = new StringBuilder("LET total: Integer = 0;\n");
+        for(int i = 0; i < 200; i++){
+            builder.append("DEF f").append(i).append("(n: Integer): Integer DO ")
+                    .append("WHILE n > 0 DO IF n > ").append(i % 7).append(" DO total = total + n * 2; ELSE print(\"skip\"); END n = n - 1; END ")
+                    .append("RETURN total; END\n");
+        }
+        builder.append("DEF main(): Integer DO RETURN 0; END");
+        Ast.Source ast = new Parser(new Lexer(builder.toString()).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        StringWriter expected = new StringWriter();
+        new Generator(new PrintWriter(expected)).visit(ast);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try{
+            StringWriter actual = new StringWriter();
+            new Generator(actual, Generator.Arithmetic.WRAPPING, pool).visit(ast);
+            Assertions.assertEquals(expected.toString(), actual.toString());
+        }finally{
+            pool.shutdown();
+        }
+    }
+
     /**
      * Helper function for tests, using a StringWriter as the output stream.
      */
@@ -0,0 +1,87 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+final class EnvironmentTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testGetType(String name, Environment.Type expected) {
+        Assertions.assertSame(expected, Environment.getType(name));
+    }
+
+    private static Stream<Arguments> testGetType() {
+        return Stream.of(
+                Arguments.of("Any", Environment.Type.ANY),
+                Arguments.of("Integer", Environment.Type.INTEGER),
+                Arguments.of("String", Environment.Type.STRING)
+        );
+    }
+
+    @Test
+    void testUnknownType() {
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> Environment.getType("Unknown"));
+        Assertions.assertEquals("Unknown type Unknown.", exception.getMessage());
+    }
+
+    @Test
+    void testFrozenScope() {
+        Assertions.assertTrue(Environment.Type.STRING.getScope().isFrozen());
+        Assertions.assertThrows(IllegalStateException.class, () -> Environment.Type.STRING.getScope()
+                .defineFunction("reverse", "reverse", Arrays.asList(Environment.Type.ANY), Environment.Type.STRING, args -> Environment.NIL));
+        Assertions.assertEquals(Environment.Type.INTEGER, Environment.Type.STRING.getField("length").getType());
+    }
+
+    @Test
+    void testRegisterType() {
+        Scope scope = new Scope(Environment.Type.ANY.getScope());
+        scope.defineVariable("x", "x", Environment.Type.INTEGER, false, Environment.NIL);
+        Environment.Type type = new Environment.Type("EnvironmentTestsPoint", "Point", scope);
+        Environment.registerType(type);
+        Assertions.assertSame(type, Environment.getType("EnvironmentTestsPoint"));
+        Assertions.assertTrue(scope.isFrozen());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Environment.registerType(type));
+    }
+
+    @Test
+    void testConcurrentRegistration() throws Exception {
+        // The registry is global and shared with every other test, so this
+        // registers a few uniquely named types (once, as they can't be
+        // removed) rather than generating many.
+        List<String> names = List.of("EnvironmentTestsTypeA", "EnvironmentTestsTypeB", "EnvironmentTestsTypeC", "EnvironmentTestsTypeD");
+        ExecutorService executor = Executors.newFixedThreadPool(names.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String name : names) {
+                futures.add(executor.submit(() -> {
+                    Environment.registerType(new Environment.Type(name, name, new Scope(Environment.Type.ANY.getScope())));
+                    for (int i = 0; i < 1000; i++) {
+                        Assertions.assertSame(Environment.Type.INTEGER, Environment.getType("Integer"));
+                        Assertions.assertEquals(name, Environment.getType(name).getName());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (String name : names) {
+            Assertions.assertEquals(name, Environment.getType(name).getName());
+        }
+    }
+
+}
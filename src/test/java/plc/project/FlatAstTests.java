@@ -0,0 +1,75 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class FlatAstTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testView(String test, String input) {
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        FlatAst flat = new Parser(new Lexer(input).lex()).parseFlatSource();
+        Assertions.assertEquals(expected, flat.view());
+        Assertions.assertEquals(expected, flat.transientView());
+    }
+
+    private static Stream<Arguments> testView() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Fields",
+                        "LET x: Integer = 1; LET CONST s: String = \"s\"; LET n: Decimal;"
+                ),
+                Arguments.of("Statements",
+                        "DEF f(y: Integer, z: String): Integer DO LET w: Integer = y; IF (w < 1) DO w = 1; ELSE print(z); END " +
+                        "WHILE w > 0 DO w = w - 1; END FOR (w = 0; w < 3; w = w + 1) print(w); END RETURN w; END " +
+                        "DEF main() DO RETURN f(2, 'c').g.h(NIL, TRUE, 1.5); END"
+                )
+        );
+    }
+
+    @Test
+    void testLayout() {
+        FlatAst flat = new Parser(new Lexer("DEF main() DO RETURN 1 + x; END").lex()).parseFlatSource();
+        int source = flat.getRoot();
+        Assertions.assertEquals(FlatAst.SOURCE, flat.getKind(source));
+        Assertions.assertEquals(0, flat.getListSize(flat.getOperand(source, 0)));
+        int method = flat.getListElement(flat.getOperand(source, 1), 0);
+        Assertions.assertEquals("main", flat.getString(flat.getOperand(method, 0)));
+        int statement = flat.getListElement(flat.getOperand(method, 2), 0);
+        Assertions.assertEquals(FlatAst.RETURN, flat.getKind(statement));
+        int binary = flat.getOperand(statement, 0);
+        Assertions.assertEquals(FlatAst.BINARY, flat.getKind(binary));
+        Assertions.assertEquals("+", flat.getString(flat.getOperand(binary, 0)));
+        Assertions.assertEquals(BigInteger.ONE, flat.getLiteral(flat.getOperand(flat.getOperand(binary, 1), 0)));
+        Assertions.assertEquals(6, flat.getSize());
+    }
+
+    @Test
+    void testAnalyzeAndInterpret() {
+        String input = "LET x: Integer = 2; DEF square(n: Integer): Integer DO RETURN n * n; END DEF main(): Integer DO RETURN square(x); END";
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseFlatSource().view();
+        new Analyzer(new Scope(null)).visit(ast);
+        Assertions.assertSame(Environment.Type.INTEGER, ast.getFields().get(0).getVariable().getType());
+        Assertions.assertEquals(BigInteger.valueOf(4), new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    @Test
+    void testTransientView() {
+        String input = "LET x: Integer = 2; DEF square(n: Integer): Integer DO RETURN n * n; END DEF main(): Integer DO RETURN square(x); END";
+        FlatAst flat = new Parser(new Lexer(input).lex()).parseFlatSource();
+        Ast.Source cached = flat.view();
+        Assertions.assertSame(cached.getMethods().get(0), cached.getMethods().get(0));
+        Ast.Source ast = flat.transientView();
+        Assertions.assertNotSame(ast.getMethods().get(0), ast.getMethods().get(0));
+        Assertions.assertEquals(ast.getMethods().get(0), ast.getMethods().get(0));
+        Assertions.assertArrayEquals(AstSerializer.serialize(flat.view()), AstSerializer.serialize(ast));
+    }
+
+}
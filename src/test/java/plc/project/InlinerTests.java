@@ -0,0 +1,134 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class InlinerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testMethod(String test, String input, String expected) {
+        Ast.Source ast = analyze("LET x: Integer = 1; " + input);
+        Ast.Method method = new Inliner().rewrite(ast).getMethods().get(1);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(method);
+        Assertions.assertEquals(expected, writer.toString());
+    }
+
+    private static Stream<Arguments> testMethod() {
+        return Stream.of(
+                Arguments.of("Return",
+                        "DEF square(n: Integer): Integer DO RETURN n * n; END " +
+                        "DEF main(): Integer DO RETURN square(x + 1); END",
+                        String.join(System.lineSeparator(),
+                                "int main() {",
+                                "    int _n0;",
+                                "    _n0 = x + 1;",
+                                "    return _n0 * _n0;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Substituted",
+                        "DEF square(n: Integer): Integer DO RETURN n * n; END " +
+                        "DEF main(): Integer DO LET y: Integer = 3; LET z: Integer = square(y); RETURN square(2) + z; END",
+                        String.join(System.lineSeparator(),
+                                "int main() {",
+                                "    int y = 3;",
+                                "    int z = y * y;",
+                                "    return square(2) + z;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Locals",
+                        "DEF add(a: Integer, b: Integer): Integer DO LET c: Integer = a + b; a = c * 2; RETURN a; END " +
+                        "DEF main(): Integer DO LET y: Integer = 0; y = add(y, 2); RETURN y; END",
+                        String.join(System.lineSeparator(),
+                                "int main() {",
+                                "    int _a0;",
+                                "    int _c1;",
+                                "    int y = 0;",
+                                "    _a0 = y;",
+                                "    _c1 = _a0 + 2;",
+                                "    _a0 = _c1 * 2;",
+                                "    y = _a0;",
+                                "    return y;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Discarded",
+                        "DEF log(n: Integer, m: Integer) DO print(n); END " +
+                        "DEF main(): Integer DO log(3, x / (x - 1)); RETURN 0; END",
+                        String.join(System.lineSeparator(),
+                                "int main() {",
+                                "    int _result0;",
+                                "    _result0 = x / (x - 1);",
+                                "    System.out.println(3);",
+                                "    return 0;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Recursive",
+                        "DEF f(n: Integer): Integer DO RETURN f(n - 1); END " +
+                        "DEF main(): Integer DO RETURN f(x); END",
+                        String.join(System.lineSeparator(),
+                                "int main() {",
+                                "    return f(x);",
+                                "}"
+                        )
+                ),
+                Arguments.of("Early Return",
+                        "DEF f(n: Integer): Integer DO IF n > 0 DO RETURN 1; END RETURN 0; END " +
+                        "DEF main(): Integer DO RETURN f(x); END",
+                        String.join(System.lineSeparator(),
+                                "int main() {",
+                                "    return f(x);",
+                                "}"
+                        )
+                ),
+                Arguments.of("Shadowed Field",
+                        "DEF f(): Integer DO RETURN x; END " +
+                        "DEF main(): Integer DO LET x: Integer = 2; RETURN f(); END",
+                        String.join(System.lineSeparator(),
+                                "int main() {",
+                                "    int x = 2;",
+                                "    return f();",
+                                "}"
+                        )
+                )
+        );
+    }
+
+    @Test
+    void testThreshold() {
+        Ast.Source ast = analyze("DEF f(n: Integer): Integer DO RETURN n * n + n; END DEF main(): Integer DO RETURN f(1); END");
+        Assertions.assertEquals(ast.getMethods().get(1), new Inliner(3).rewrite(ast).getMethods().get(1));
+        Assertions.assertNotEquals(ast.getMethods().get(1), new Inliner(10).rewrite(ast).getMethods().get(1));
+    }
+
+    @Test
+    void testInterpreter() {
+        String input = "LET total: Integer = 0; " +
+                "DEF add(n: Integer) DO total = total + n; END " +
+                "DEF scale(n: Integer, m: Integer): Integer DO LET k: Integer = n * m; RETURN k + 1; END " +
+                "DEF main(): Integer DO LET i: Integer = 0; WHILE i < 5 DO add(scale(i, 3)); i = i + 1; END RETURN total; END";
+        Ast.Source ast = analyze(input);
+        Object expected = new Interpreter(new Scope(null)).visit(ast).getValue();
+        Assertions.assertEquals(BigInteger.valueOf(35), expected);
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(new Inliner().rewrite(ast)).getValue());
+    }
+
+    private static Ast.Source analyze(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
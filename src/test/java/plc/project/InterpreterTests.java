@@ -343,6 +343,49 @@ final class InterpreterTests {
         );
     }
 
+    @ParameterizedTest
+    @MethodSource
+    void testTypedComparison(String test, Ast.Expression.Binary ast, Operators.Comparison comparison, boolean expected) {
+        Assertions.assertEquals(Operators.Comparison.GENERIC, ast.getComparison());
+        Assertions.assertSame(Environment.create(expected), new Interpreter(new Scope(null)).visit(ast));
+        new Analyzer(new Scope(null)).visit(ast);
+        Assertions.assertEquals(comparison, ast.getComparison());
+        Assertions.assertSame(Environment.create(expected), new Interpreter(new Scope(null)).visit(ast));
+    }
+
+    private static Stream<Arguments> testTypedComparison() {
+        return Stream.of(
+                Arguments.of("Integer", new Ast.Expression.Binary("<",
+                        new Ast.Expression.Literal(BigInteger.ONE),
+                        new Ast.Expression.Literal(BigInteger.TEN)
+                ), Operators.Comparison.INTEGER, true),
+                Arguments.of("Decimal", new Ast.Expression.Binary(">=",
+                        new Ast.Expression.Literal(new BigDecimal("1.0")),
+                        new Ast.Expression.Literal(new BigDecimal("1.00"))
+                ), Operators.Comparison.DECIMAL, true),
+                Arguments.of("Character", new Ast.Expression.Binary(">",
+                        new Ast.Expression.Literal('a'),
+                        new Ast.Expression.Literal('b')
+                ), Operators.Comparison.CHARACTER, false),
+                Arguments.of("String", new Ast.Expression.Binary("<=",
+                        new Ast.Expression.Literal("b"),
+                        new Ast.Expression.Literal("a")
+                ), Operators.Comparison.STRING, false),
+                Arguments.of("Equal", new Ast.Expression.Binary("==",
+                        new Ast.Expression.Literal(BigInteger.ONE),
+                        new Ast.Expression.Literal(BigInteger.ONE)
+                ), Operators.Comparison.INTEGER, true)
+        );
+    }
+
+    @Test
+    void testTypedComparisonNil() {
+        Ast.Source ast = new Parser(new Lexer("DEF main(): Integer DO LET x: Integer; IF x < 1 DO RETURN 1; END RETURN 0; END").lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> new Interpreter(new Scope(null)).visit(ast));
+        Assertions.assertEquals("Operands not Comparable or same type", exception.getMessage());
+    }
+
     @ParameterizedTest
     @MethodSource
     void testAccessExpression(String test, Ast ast, Object expected) {
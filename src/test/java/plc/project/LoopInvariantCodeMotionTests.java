@@ -0,0 +1,220 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class LoopInvariantCodeMotionTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testMethod(String test, String input, String expected) {
+        Ast.Source ast = analyze("LET x: Integer = 1; " + input + " DEF main(): Integer DO RETURN 0; END");
+        Ast.Method method = new LoopInvariantCodeMotion().rewrite(ast).getMethods().get(0);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(method);
+        Assertions.assertEquals(expected, writer.toString());
+    }
+
+    private static Stream<Arguments> testMethod() {
+        return Stream.of(
+                Arguments.of("Condition",
+                        "DEF f(n: Integer): Integer DO LET i: Integer = 0; WHILE i < n * 2 DO i = i + 1; END RETURN i; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n) {",
+                                "    int _licm0;",
+                                "    int i = 0;",
+                                "    _licm0 = n * 2;",
+                                "    while (i < _licm0) {",
+                                "        i = i + 1;",
+                                "    }",
+                                "    return i;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Assigned In Loop",
+                        "DEF f(n: Integer): Integer DO WHILE n < 10 DO n = n * 2 + x; END RETURN n; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n) {",
+                                "    while (n < 10) {",
+                                "        n = n * 2 + x;",
+                                "    }",
+                                "    return n;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Impure Call",
+                        "DEF f(n: Integer): Integer DO WHILE n < x + 1 DO print(n * 3); n = n + 1; END RETURN n; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n) {",
+                                "    while (n < x + 1) {",
+                                "        System.out.println(n * 3);",
+                                "        n = n + 1;",
+                                "    }",
+                                "    return n;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Local With Impure Call",
+                        "DEF f(n: Integer): Integer DO LET i: Integer = 0; WHILE i < 3 DO print(i + n * 3); i = i + 1; END RETURN i; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n) {",
+                                "    int _licm0;",
+                                "    int i = 0;",
+                                "    _licm0 = n * 3;",
+                                "    while (i < 3) {",
+                                "        System.out.println(i + _licm0);",
+                                "        i = i + 1;",
+                                "    }",
+                                "    return i;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Division",
+                        "DEF f(n: Integer, m: Integer): Integer DO WHILE n < m / x DO n = n + 1; END RETURN n; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n, int m) {",
+                                "    while (n < m / x) {",
+                                "        n = n + 1;",
+                                "    }",
+                                "    return n;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Pure Builtin",
+                        "DEF f(n: Integer, m: Integer): Integer DO LET i: Integer = 0; FOR (i = 0; i < n.compare(m) + 5; i = i + 1) print(i); END RETURN i; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n, int m) {",
+                                "    int _licm0;",
+                                "    int i = 0;",
+                                "    _licm0 = n.compareTo(m) + 5;",
+                                "    for ( i = 0; i < _licm0; i = i + 1 ) {",
+                                "        System.out.println(i);",
+                                "    }",
+                                "    return i;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Builtin In Body",
+                        "DEF f(n: Integer): Integer DO LET i: Integer = 0; WHILE i < 3 DO i = i + n.compare(x) + 1; END RETURN i; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n) {",
+                                "    int i = 0;",
+                                "    while (i < 3) {",
+                                "        i = i + n.compareTo(x) + 1;",
+                                "    }",
+                                "    return i;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Uninitialized",
+                        "DEF f(n: Integer): Integer DO LET y: Integer; LET i: Integer = 0; WHILE i < 3 DO IF i > 5 DO print(y + n); END i = i + 1; END RETURN i; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n) {",
+                                "    int y;",
+                                "    int i = 0;",
+                                "    while (i < 3) {",
+                                "        if (i > 5) {",
+                                "            System.out.println(y + n);",
+                                "        }",
+                                "        i = i + 1;",
+                                "    }",
+                                "    return i;",
+                                "}"
+                        )
+                ),
+                Arguments.of("Nested",
+                        "DEF f(n: Integer): Integer DO LET i: Integer = 0; WHILE i < n DO WHILE i < n - 1 DO i = i + (n + 1) * 2; END i = i + 1; END RETURN i; END",
+                        String.join(System.lineSeparator(),
+                                "int f(int n) {",
+                                "    int _licm0;",
+                                "    int _licm1;",
+                                "    int i = 0;",
+                                "    _licm0 = n - 1;",
+                                "    _licm1 = (n + 1) * 2;",
+                                "    while (i < n) {",
+                                "        while (i < _licm0) {",
+                                "            i = i + _licm1;",
+                                "        }",
+                                "        i = i + 1;",
+                                "    }",
+                                "    return i;",
+                                "}"
+                        )
+                )
+        );
+    }
+
+    @Test
+    void testPurity() {
+        Assertions.assertFalse(Environment.isPure(Environment.Type.STRING.getField("length")));
+        Assertions.assertTrue(Environment.isPure(Environment.Type.STRING.getFunction("compare", 1)));
+        Assertions.assertFalse(Environment.isPure(Environment.Type.STRING.getFunction("slice", 2)));
+    }
+
+    @Test
+    void testInterpreter() {
+        String input = "LET x: Integer = 2; DEF f(n: Integer): Integer DO LET i: Integer = 0; LET j: Integer = 0; LET sum: Integer = 0; " +
+                "WHILE i < n * x DO j = 0; WHILE j < n + 1 DO sum = sum + j * (x + 1); j = j + 1; END i = i + 1; END RETURN sum; END " +
+                "DEF main(): Integer DO RETURN f(3); END";
+        Ast.Source ast = analyze(input);
+        Object expected = new Interpreter(new Scope(null)).visit(ast).getValue();
+        Assertions.assertEquals(BigInteger.valueOf(108), expected);
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(new LoopInvariantCodeMotion().rewrite(ast)).getValue());
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testFailure(String test, String input, Object expected) {
+        Ast.Source ast = analyze(input);
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(ast).getValue());
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(new LoopInvariantCodeMotion().rewrite(ast)).getValue());
+    }
+
+    private static Stream<Arguments> testFailure() {
+        return Stream.of(
+                Arguments.of("Uninitialized Local",
+                        "DEF main(): Integer DO LET x: Integer; LET i: Integer = 0; WHILE i < 3 DO IF i > 5 DO print(x + 1); END i = i + 1; END RETURN i; END",
+                        BigInteger.valueOf(3)
+                ),
+                Arguments.of("Uninitialized Field",
+                        "LET x: Integer; DEF main(): Integer DO LET i: Integer = 0; WHILE i < 3 DO IF i > 5 DO print(x * 2); END i = i + 1; END RETURN i; END",
+                        BigInteger.valueOf(3)
+                ),
+                Arguments.of("Assigned From Uninitialized",
+                        "LET x: Integer; LET y: Integer = 1; DEF main(): Integer DO LET i: Integer = 0; y = x; WHILE i < 3 DO IF i > 5 DO print(y * 2); END i = i + 1; END RETURN i; END",
+                        BigInteger.valueOf(3)
+                ),
+                Arguments.of("Uninitialized Argument",
+                        "LET x: Integer; DEF f(n: Integer): Integer DO LET i: Integer = 0; WHILE i < 3 DO IF i > 5 DO print(n * 2); END i = i + 1; END RETURN i; END DEF main(): Integer DO RETURN f(x); END",
+                        BigInteger.valueOf(3)
+                ),
+                Arguments.of("Short Circuit",
+                        "DEF main(): Integer DO LET x: Integer; LET i: Integer = 5; WHILE i < 3 && x + 1 > 0 DO i = i + 1; END RETURN i; END",
+                        BigInteger.valueOf(5)
+                ),
+                Arguments.of("Comparable",
+                        "DEF main(): Integer DO LET a: Comparable = 1; LET b: Comparable = \"s\"; LET i: Integer = 0; WHILE i < 3 DO IF i > 5 DO print(a < b); END i = i + 1; END RETURN 0; END",
+                        BigInteger.ZERO
+                ),
+                Arguments.of("Builtin",
+                        "DEF main(): Integer DO LET s: String = \"s\"; LET i: Integer = 0; WHILE i < 3 DO IF i > 5 DO print(s.compare(\"a\")); END i = i + 1; END RETURN i; END",
+                        BigInteger.valueOf(3)
+                )
+        );
+    }
+
+    private static Ast.Source analyze(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
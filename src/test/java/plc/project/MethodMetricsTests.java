@@ -0,0 +1,73 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+final class MethodMetricsTests {
+
+    private static final String FIB = String.join("\n",
+            "DEF fib(n: Integer) DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END",
+            "DEF main() DO RETURN fib(5); END"
+    );
+
+    @Test
+    void testMetrics() {
+        MethodMetrics metrics = run(FIB);
+        MethodMetrics.Method fib = metrics.getMethods().get("fib/1");
+        MethodMetrics.Method main = metrics.getMethods().get("main/0");
+        Assertions.assertEquals(15, fib.getInvocations());
+        Assertions.assertEquals(1, main.getInvocations());
+        Assertions.assertEquals(5, fib.getMaxDepth());
+        Assertions.assertEquals(1, main.getMaxDepth());
+        Assertions.assertTrue(fib.getAllocations() > 0);
+        Assertions.assertTrue(main.getTotalTime() >= fib.getTotalTime());
+        Assertions.assertEquals(fib.getTotalTime(), fib.getSelfTime());
+        Assertions.assertEquals(main.getTotalTime(), main.getSelfTime() + fib.getTotalTime());
+    }
+
+    @Test
+    void testWrite() throws IOException {
+        MethodMetrics metrics = run(FIB);
+        StringWriter writer = new StringWriter();
+        metrics.write(writer);
+        String[] lines = writer.toString().split(System.lineSeparator());
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(lines[0].startsWith("main/0 invocations=1 "), lines[0]);
+        Assertions.assertTrue(lines[1].startsWith("fib/1 invocations=15 "), lines[1]);
+        Assertions.assertTrue(lines[1].endsWith(" depth=5"), lines[1]);
+    }
+
+    @Test
+    void testMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        MethodMetrics metrics = new MethodMetrics();
+        metrics.register(server, "plc.test");
+        try{
+            Interpreter interpreter = new Interpreter(new Scope(null));
+            interpreter.setListener(metrics.listener());
+            interpreter.visit(new Parser(new Lexer(FIB).lex()).parseSource());
+            ObjectName name = new ObjectName("plc.test:type=Method,name=" + ObjectName.quote("fib/1"));
+            Assertions.assertEquals(15L, server.getAttribute(name, "Invocations"));
+            Assertions.assertEquals(5, server.getAttribute(name, "MaxDepth"));
+        }finally{
+            metrics.unregister();
+        }
+        Assertions.assertTrue(server.queryNames(new ObjectName("plc.test:*"), null).isEmpty());
+    }
+
+    private static MethodMetrics run(String input) {
+        MethodMetrics metrics = new MethodMetrics();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setListener(metrics.listener());
+        interpreter.visit(new Parser(new Lexer(input).lex()).parseSource());
+        return metrics;
+    }
+
+}
@@ -0,0 +1,135 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class OptimizerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testConstantFolding(String test, String input, String expected) {
+        Ast.Expression ast = new Parser(new Lexer(input).lex()).parseExpression();
+        Ast.Expression folded = (Ast.Expression) new ConstantFolder().visit(ast);
+        Assertions.assertEquals(new Parser(new Lexer(expected).lex()).parseExpression(), folded);
+    }
+
+    private static Stream<Arguments> testConstantFolding() {
+        return Stream.of(
+                Arguments.of("Arithmetic", "1 + 2 * 3", "7"),
+                Arguments.of("Group", "(1 + 2) * 3", "9"),
+                Arguments.of("Nested Group", "x * (2 - 1)", "x * 1"),
+                Arguments.of("Partial", "x + 2 * 3", "x + 6"),
+                Arguments.of("Comparison", "1 < 2 && 3 != 3", "FALSE"),
+                Arguments.of("Concatenation", "\"a\" + 1 + 'c'", "\"a1c\""),
+                Arguments.of("Short Circuit", "FALSE && x", "FALSE"),
+                Arguments.of("Unknown Type", "TRUE && x", "TRUE && x"),
+                Arguments.of("Identity Literal", "TRUE && (1 < x)", "TRUE && (1 < x)"),
+                Arguments.of("Decimal", "1.0 + 2.0", "1.0 + 2.0"),
+                Arguments.of("Overflow", "2147483647 + 1", "2147483647 + 1"),
+                Arguments.of("Division By Zero", "1 / 0", "1 / 0"),
+                Arguments.of("Invalid Operands", "TRUE + 1", "TRUE + 1")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSimplification(String test, String input, String expected) {
+        String source = "LET x: Integer = 1; LET b: Boolean = TRUE; LET s: String = \"s\"; DEF main(): Integer DO RETURN 0; END ";
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        Scope scope = new Scope(null);
+        Analyzer analyzer = new Analyzer(scope);
+        analyzer.visit(ast);
+        Ast.Expression expression = new Parser(new Lexer(input).lex()).parseExpression();
+        analyzer.visit(expression);
+        Ast.Expression simplified = (Ast.Expression) new ConstantFolder().visit(expression);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(simplified);
+        Assertions.assertEquals(expected, writer.toString());
+    }
+
+    private static Stream<Arguments> testSimplification() {
+        return Stream.of(
+                Arguments.of("Multiply One", "x * 1", "x"),
+                Arguments.of("Add Zero", "0 + x", "x"),
+                Arguments.of("Subtract Zero", "(x - 0) * 2", "x * 2"),
+                Arguments.of("Divide One", "x / (3 - 2)", "x"),
+                Arguments.of("And True", "TRUE && b", "b"),
+                Arguments.of("Or False", "FALSE || b", "b"),
+                Arguments.of("Or True", "TRUE || b", "true"),
+                Arguments.of("String Plus Zero", "s + 0", "s + 0")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testIfStatement(String test, String input, String expected) {
+        String wrap = "DEF main(): Integer DO %s RETURN 0; END";
+        Ast.Source ast = new Parser(new Lexer(String.format(wrap, input)).lex()).parseSource();
+        Assertions.assertEquals(new Parser(new Lexer(String.format(wrap, expected)).lex()).parseSource(), new Optimizer().optimize(ast));
+    }
+
+    private static Stream<Arguments> testIfStatement() {
+        return Stream.of(
+                Arguments.of("True", "IF 1 < 2 DO print(1); ELSE print(2); END", "print(1);"),
+                Arguments.of("False", "IF 1 > 2 DO print(1); ELSE print(2); END", "print(2);"),
+                Arguments.of("False Without Else", "IF FALSE DO print(1); END", ""),
+                Arguments.of("Declaration", "IF TRUE DO LET y = 1; print(y); ELSE print(2); END", "IF TRUE DO LET y = 1; print(y); END"),
+                Arguments.of("False Declaration", "IF FALSE DO print(1); ELSE LET y = 5; print(y); END", "IF TRUE DO LET y = 5; print(y); END"),
+                Arguments.of("Unknown", "IF x DO print(1); END", "IF x DO print(1); END"),
+                Arguments.of("Nested", "WHILE x DO IF FALSE DO print(1); END x = FALSE; END", "WHILE x DO x = FALSE; END")
+        );
+    }
+
+    @Test
+    void testInterpreter() {
+        String input = "LET x: Integer = 1 + 2; DEF main(): Integer DO LET y: Integer = x * (4 - 3); IF 2 > 1 DO y = y + 0; END RETURN y * 2; END";
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Source optimized = new Optimizer().optimize(ast);
+        Assertions.assertEquals(BigInteger.valueOf(6), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testFalseDeclaration() {
+        String input = "DEF main(): Integer DO IF 1 > 2 DO print(1); ELSE LET y: Integer = 5; print(y); END RETURN 0; END";
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        StringBuilder output = new StringBuilder();
+        new Interpreter(new Scope(null), output::append).visit(new Optimizer().optimize(ast));
+        Assertions.assertEquals("5", output.toString());
+    }
+
+    @Test
+    void testGenerator() {
+        String input = "LET x: Integer = 1 + 2; DEF main(): Integer DO LET y: Integer = x * (4 - 3); IF 2 > 1 DO y = y + 0; END RETURN y * 2; END";
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(new Optimizer().optimize(ast));
+        Assertions.assertEquals(String.join(System.lineSeparator(),
+                "public class Main {",
+                "",
+                "    int x = 3;",
+                "    public static void main(String[] args) {",
+                "        System.exit(new Main().main());",
+                "    }",
+                "",
+                "    int main() {",
+                "        int y = x;",
+                "        y = y;",
+                "        return y * 2;",
+                "    }",
+                "",
+                "}"
+        ), writer.toString());
+    }
+
+}
@@ -0,0 +1,77 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.Map;
+
+final class ProfilerTests {
+
+    @Test
+    void testStack() throws IOException {
+        String input = String.join("\n",
+                "DEF g() DO tick(); RETURN 1; END",
+                "DEF f() DO RETURN g(); END",
+                "DEF main() DO f(); RETURN 0; END"
+        );
+        Parser parser = new Parser(new Lexer(input).lex(), true);
+        Ast.Source ast = parser.parseSource();
+        try(Profiler profiler = new Profiler(Duration.ofHours(1), parser.getPositions())){
+            Scope scope = new Scope(null);
+            scope.defineFunction("tick", 0, args -> {
+                profiler.tick();
+                return Environment.NIL;
+            });
+            Interpreter interpreter = new Interpreter(scope);
+            interpreter.setProfiler(profiler);
+            interpreter.visit(ast);
+            String expected = "main:" + input.indexOf("f();") + ";f:" + input.indexOf("RETURN g()") + ";g:" + input.indexOf("RETURN 1");
+            Assertions.assertEquals(Map.of(expected, 1L), profiler.getSamples());
+            StringWriter writer = new StringWriter();
+            profiler.write(writer);
+            Assertions.assertEquals(expected + " 1" + System.lineSeparator(), writer.toString());
+        }
+    }
+
+    @Test
+    void testSampling() {
+        String input = String.join("\n",
+                "DEF work(n: Integer) DO RETURN n * 2; END",
+                "DEF main() DO",
+                "    LET i = 0;",
+                "    WHILE i < 100000 DO i = i + work(1) - 1; END",
+                "    RETURN i;",
+                "END"
+        );
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        try(Profiler profiler = new Profiler(Duration.ofMillis(1))){
+            Interpreter interpreter = new Interpreter(new Scope(null));
+            interpreter.setProfiler(profiler);
+            interpreter.visit(ast);
+            Map<String, Long> samples = profiler.getSamples();
+            Assertions.assertFalse(samples.isEmpty());
+            for(String stack : samples.keySet()){
+                Assertions.assertTrue(stack.equals("main") || stack.equals("main;work"), stack);
+            }
+        }
+    }
+
+    @Test
+    void testPositions() {
+        String input = "DEF f() DO RETURN 1; END DEF main() DO RETURN f(); END";
+        Parser parser = new Parser(new Lexer(input).lex());
+        parser.parseSource();
+        Assertions.assertTrue(parser.getPositions().isEmpty());
+        parser = new Parser(new Lexer(input).lex(), true);
+        Ast.Source ast = parser.parseSource();
+        Assertions.assertEquals(input.indexOf("DEF main"), parser.getPositions().get(ast.getMethods().get(1)));
+        Assertions.assertEquals(4, parser.getPositions().size());
+        parser = new Parser(new Lexer(input).lex(), true);
+        parser.parseFlatSource();
+        Assertions.assertTrue(parser.getPositions().isEmpty());
+    }
+
+}
@@ -0,0 +1,82 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+final class ProgramPoolTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testRun(String test, String input, Object expected) {
+        ProgramPool pool = new ProgramPool(compile(input), new Scope(null), 2);
+        for(int i = 0; i < 3; i++){
+            Assertions.assertEquals(expected, pool.run().getValue());
+        }
+    }
+
+    private static Stream<Arguments> testRun() {
+        return Stream.of(
+                Arguments.of("Fresh Fields",
+                        "LET count: Integer = 0; DEF main() DO count = count + 1; RETURN count; END",
+                        BigInteger.ONE
+                ),
+                Arguments.of("Uninitialized Field",
+                        "LET x: Integer; DEF main() DO IF x == NIL DO x = 1; ELSE x = 2; END RETURN x; END",
+                        BigInteger.ONE
+                ),
+                Arguments.of("Recursion",
+                        "DEF fib(n: Integer) DO IF n < 2 DO RETURN n; ELSE RETURN fib(n - 1) + fib(n - 2); END END DEF main() DO RETURN fib(10); END",
+                        BigInteger.valueOf(55)
+                )
+        );
+    }
+
+    @Test
+    void testFailedRun() {
+        ProgramPool pool = new ProgramPool(compile("LET count: Integer = 0; DEF main() DO count = count + 1; RETURN 1 / (count - 1); END"), new Scope(null), 1);
+        for(int i = 0; i < 3; i++){
+            Assertions.assertThrows(RuntimeException.class, pool::run);
+        }
+    }
+
+    @Test
+    void testConcurrent() {
+        ProgramPool pool = new ProgramPool(compile(String.join("\n",
+                "LET total: Integer = 0;",
+                "DEF add(n: Integer) DO total = total + n; END",
+                "DEF main() DO",
+                "    LET i = 0;",
+                "    WHILE i < 100 DO add(i); i = i + 1; END",
+                "    RETURN total;",
+                "END"
+        )), new Scope(null), 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            List<CompletableFuture<Environment.PlcObject>> futures = new ArrayList<>();
+            for(int i = 0; i < 200; i++){
+                futures.add(pool.submit(executor));
+            }
+            for(CompletableFuture<Environment.PlcObject> future : futures){
+                Assertions.assertEquals(BigInteger.valueOf(4950), future.join().getValue());
+            }
+        }finally{
+            executor.shutdown();
+        }
+    }
+
+    private static Bytecode compile(String input) {
+        return new BytecodeCompiler().compile(new Parser(new Lexer(input).lex()).parseSource());
+    }
+
+}
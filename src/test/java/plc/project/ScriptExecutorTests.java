@@ -0,0 +1,87 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class ScriptExecutorTests {
+
+    @Test
+    void testIsolatedFields() {
+        Ast.Source program = analyze("LET count: Integer = 0; DEF main(): Integer DO count = count + 1; RETURN count; END", new Scope(null));
+        try(ScriptExecutor executor = new ScriptExecutor(new Scope(null), 8, new StringWriter())){
+            List<CompletableFuture<Environment.PlcObject>> futures = new ArrayList<>();
+            for(int i = 0; i < 1000; i++){
+                futures.add(executor.submit(program));
+            }
+            for(CompletableFuture<Environment.PlcObject> future : futures){
+                Assertions.assertEquals(BigInteger.ONE, future.join().getValue());
+            }
+        }
+    }
+
+    @Test
+    void testConcurrencyLimit() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maximum = new AtomicInteger();
+        Scope scope = new Scope(null);
+        scope.defineFunction("work", "work", Arrays.asList(), Environment.Type.INTEGER, args -> {
+            maximum.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try{
+                Thread.sleep(1);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            return Environment.create(BigInteger.ONE);
+        });
+        Ast.Source program = analyze("DEF main(): Integer DO RETURN work(); END", scope);
+        try(ScriptExecutor executor = new ScriptExecutor(scope, 3, new StringWriter())){
+            List<CompletableFuture<Environment.PlcObject>> futures = new ArrayList<>();
+            for(int i = 0; i < 100; i++){
+                futures.add(executor.submit(program));
+            }
+            futures.forEach(CompletableFuture::join);
+        }
+        Assertions.assertTrue(maximum.get() <= 3, "maximum " + maximum.get());
+    }
+
+    @Test
+    void testPrint() {
+        Ast.Source program = analyze("DEF main(): Integer DO print(\"line\"); print(1); RETURN 0; END", new Scope(null));
+        StringWriter output = new StringWriter();
+        try(ScriptExecutor executor = new ScriptExecutor(new Scope(null), 4, output)){
+            for(int i = 0; i < 50; i++){
+                executor.submit(program);
+            }
+        }
+        String[] lines = output.toString().split(System.lineSeparator());
+        Assertions.assertEquals(100, lines.length);
+        Assertions.assertEquals(50, Arrays.stream(lines).filter("line"::equals).count());
+        Assertions.assertEquals(50, Arrays.stream(lines).filter("1"::equals).count());
+    }
+
+    @Test
+    void testFailure() {
+        Ast.Source program = analyze("DEF main(): Integer DO RETURN 1 / 0; END", new Scope(null));
+        try(ScriptExecutor executor = new ScriptExecutor(new Scope(null), 1, new StringWriter())){
+            CompletableFuture<Environment.PlcObject> future = executor.submit(program);
+            Assertions.assertThrows(CompletionException.class, future::join);
+        }
+    }
+
+    private static Ast.Source analyze(String input, Scope scope) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(scope).visit(ast);
+        return ast;
+    }
+
+}
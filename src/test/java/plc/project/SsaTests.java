@@ -0,0 +1,156 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+final class SsaTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testBuild(String test, String input, String expected) {
+        Ast.Source ast = analyze(input + " DEF main(): Integer DO RETURN 0; END");
+        Assertions.assertEquals(expected, SsaPrinter.print(SsaBuilder.build(ast.getMethods().get(0))));
+    }
+
+    private static Stream<Arguments> testBuild() {
+        return Stream.of(
+                Arguments.of("Straight Line",
+                        "LET x: Integer = 1; DEF f(n: Integer): Integer DO LET y: Integer = n + x; x = y; RETURN y * 2; END",
+                        String.join(System.lineSeparator(),
+                                "f(%0: Integer): Integer {",
+                                "b0:",
+                                "    %1: Integer = load x",
+                                "    %2: Integer = %0 + %1",
+                                "    store x, %2",
+                                "    %4: Integer = const 2",
+                                "    %5: Integer = %2 * %4",
+                                "    return %5",
+                                "}"
+                        )
+                ),
+                Arguments.of("If",
+                        "DEF f(n: Integer): Integer DO LET y: Integer = 0; IF n > 0 DO y = n; END RETURN y; END",
+                        String.join(System.lineSeparator(),
+                                "f(%0: Integer): Integer {",
+                                "b0:",
+                                "    %1: Integer = const 0",
+                                "    %2: Integer = const 0",
+                                "    %3: Boolean = %0 > %2",
+                                "    branch %3, b1, b2",
+                                "b1:",
+                                "    jump b3",
+                                "b2:",
+                                "    jump b3",
+                                "b3:",
+                                "    %4: Integer = phi [b1: %0, b2: %1]",
+                                "    return %4",
+                                "}"
+                        )
+                ),
+                Arguments.of("While",
+                        "DEF f(n: Integer): Integer DO WHILE n > 0 DO n = n - 1; END RETURN n; END",
+                        String.join(System.lineSeparator(),
+                                "f(%0: Integer): Integer {",
+                                "b0:",
+                                "    jump b1",
+                                "b1:",
+                                "    %1: Integer = phi [b0: %0, b2: %5]",
+                                "    %2: Integer = const 0",
+                                "    %3: Boolean = %1 > %2",
+                                "    branch %3, b2, b3",
+                                "b2:",
+                                "    %4: Integer = const 1",
+                                "    %5: Integer = %1 - %4",
+                                "    jump b1",
+                                "b3:",
+                                "    return %1",
+                                "}"
+                        )
+                ),
+                Arguments.of("Unreachable",
+                        "DEF f(n: Integer): Integer DO RETURN n; print(n); END",
+                        String.join(System.lineSeparator(),
+                                "f(%0: Integer): Integer {",
+                                "b0:",
+                                "    return %0",
+                                "}"
+                        )
+                )
+        );
+    }
+
+    @Test
+    void testGenerator() {
+        Ast.Source ast = analyze("DEF f(a: Integer, b: Integer): Integer DO LET c: Integer = a * b; print(c); RETURN c + 1; END DEF main(): Integer DO RETURN 0; END");
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(SsaDestructor.destruct(SsaBuilder.build(ast.getMethods().get(0))));
+        Assertions.assertEquals(String.join(System.lineSeparator(),
+                "int f(int a, int b) {",
+                "    int _v2 = 0;",
+                "    int _v5 = 0;",
+                "    _v2 = a * b;",
+                "    System.out.println(_v2);",
+                "    _v5 = _v2 + 1;",
+                "    return _v5;",
+                "}"
+        ), writer.toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testInterpreter(String test, String input, BigInteger expected) {
+        Ast.Source ast = analyze(input);
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(ast).getValue());
+        List<Ast.Method> methods = new ArrayList<>();
+        for(Ast.Method method : ast.getMethods()){
+            methods.add(SsaDestructor.destruct(SsaBuilder.build(method)));
+        }
+        Ast.Source destructed = new Ast.Source(ast.getFields(), methods);
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(destructed).getValue());
+    }
+
+    private static Stream<Arguments> testInterpreter() {
+        return Stream.of(
+                Arguments.of("Loop",
+                        "LET total: Integer = 0; " +
+                        "DEF f(n: Integer): Integer DO LET i: Integer = 0; LET s: Integer = 0; " +
+                        "WHILE i < n DO IF i > 2 && i != 5 DO s = s + i; ELSE total = total + 1; END i = i + 1; END RETURN s + total; END " +
+                        "DEF main(): Integer DO RETURN f(8); END",
+                        BigInteger.valueOf(24)
+                ),
+                Arguments.of("Recursion",
+                        "DEF fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END " +
+                        "DEF main(): Integer DO RETURN fib(10); END",
+                        BigInteger.valueOf(55)
+                ),
+                Arguments.of("Swap",
+                        "DEF f(n: Integer): Integer DO LET a: Integer = 1; LET b: Integer = 2; LET t: Integer = 0; " +
+                        "FOR (t = 0; n > 0; n = n - 1) t = a; a = b; b = t; END RETURN a * 10 + b; END " +
+                        "DEF main(): Integer DO RETURN f(3); END",
+                        BigInteger.valueOf(21)
+                ),
+                Arguments.of("Short Circuit",
+                        "LET calls: Integer = 0; DEF g(): Boolean DO calls = calls + 1; RETURN TRUE; END " +
+                        "DEF main(): Integer DO IF FALSE && g() || TRUE || g() DO calls = calls + 10; END RETURN calls; END",
+                        BigInteger.valueOf(10)
+                )
+        );
+    }
+
+    private static Ast.Source analyze(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
@@ -0,0 +1,109 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+final class StackInterpreterTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSource(String test, String input, Object expected) {
+        test(input, expected, new Scope(null), Parser::parseSource);
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Main",
+                        "DEF main() DO RETURN 0; END",
+                        BigInteger.ZERO
+                ),
+                Arguments.of("Fields & No Return",
+                        "LET x: Integer = 1; LET y: Integer = 10; DEF main() DO x + y; END",
+                        Environment.NIL.getValue()
+                ),
+                Arguments.of("Function Scope",
+                        "LET x: Integer = 1; LET y: Integer = 2; DEF f(z: Integer) DO RETURN x + y + z; END DEF main() DO LET y = 4; RETURN f(5); END",
+                        BigInteger.valueOf(8)
+                ),
+                Arguments.of("Return From Loop",
+                        "DEF main() DO LET i = 0; WHILE TRUE DO IF i == 3 DO RETURN i; END i = i + 1; END END",
+                        BigInteger.valueOf(3)
+                )
+        );
+    }
+
+    @Test
+    void testReturnOutsideMethod() {
+        test("RETURN 1;", null, new Scope(null), Parser::parseStatement);
+    }
+
+    @Test
+    void testForStatement() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("sum", false, Environment.create(BigInteger.ZERO));
+        scope.defineVariable("num", false, Environment.NIL);
+        test("FOR (num = 0; num < 5; num = num + 1) sum = sum + num; END", Environment.NIL.getValue(), scope, Parser::parseStatement);
+        Assertions.assertEquals(BigInteger.TEN, scope.lookupVariable("sum").getValue().getValue());
+        Assertions.assertEquals(BigInteger.valueOf(5), scope.lookupVariable("num").getValue().getValue());
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testBinaryExpression(String test, String input, Object expected) {
+        test(input, expected, new Scope(null), Parser::parseExpression);
+    }
+
+    private static Stream<Arguments> testBinaryExpression() {
+        return Stream.of(
+                Arguments.of("And", "TRUE && FALSE", false),
+                Arguments.of("Or (Short Circuit)", "TRUE || undefined", true),
+                Arguments.of("Less Than", "1 < 10", true),
+                Arguments.of("Concatenation", "\"a\" + \"b\"", "ab"),
+                Arguments.of("Division", "1.2 / 3.4", new BigDecimal("0.4")),
+                Arguments.of("Division By Zero", "1 / 0", null)
+        );
+    }
+
+    @Test
+    void testDeepRecursion() {
+        String input = "DEF sum(n: Integer) DO IF n == 0 DO RETURN 0; ELSE RETURN n + sum(n - 1); END END DEF main() DO RETURN sum(100000); END";
+        test(input, BigInteger.valueOf(5000050000L), new Scope(null), Parser::parseSource);
+    }
+
+    @Test
+    void testFrameLimit() {
+        String input = "DEF loop(n: Integer) DO RETURN loop(n + 1); END DEF main() DO RETURN loop(0); END";
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        StackInterpreter interpreter = new StackInterpreter(new Scope(null), 1000);
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(ast));
+        Assertions.assertEquals("Stack limit of 1000 frames exceeded.", exception.getMessage());
+    }
+
+    @Test
+    void testMethodInvokedExternally() {
+        Scope scope = test("DEF square(x: Integer) DO RETURN x * x; END", Environment.NIL.getValue(), new Scope(null), Parser::parseMethod);
+        List<Environment.PlcObject> args = List.of(Environment.create(BigInteger.TEN));
+        Assertions.assertEquals(BigInteger.valueOf(100), scope.lookupFunction("square", 1).invoke(args).getValue());
+    }
+
+    private static <T extends Ast> Scope test(String input, Object expected, Scope scope, Function<Parser, T> function) {
+        Ast ast = function.apply(new Parser(new Lexer(input).lex()));
+        StackInterpreter interpreter = new StackInterpreter(scope);
+        if (expected != null) {
+            Assertions.assertEquals(expected, interpreter.visit(ast).getValue());
+        } else {
+            Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(ast));
+        }
+        return interpreter.getScope();
+    }
+
+}
@@ -0,0 +1,130 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.stream.Stream;
+
+final class VirtualMachineTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSource(String test, String input, Object expected) {
+        test(input, expected, new Scope(null));
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Main",
+                        "DEF main() DO RETURN 0; END",
+                        BigInteger.ZERO
+                ),
+                Arguments.of("Fields & No Return",
+                        "LET x: Integer = 1; LET y: Integer = 10; DEF main() DO x + y; END",
+                        Environment.NIL.getValue()
+                ),
+                Arguments.of("Function Scope",
+                        "LET x: Integer = 1; LET y: Integer = 2; DEF f(z: Integer) DO RETURN x + y + z; END DEF main() DO LET y = 4; RETURN f(5); END",
+                        BigInteger.valueOf(8)
+                ),
+                Arguments.of("Shadowing",
+                        "DEF main() DO LET x = 1; IF x < 2 DO LET x = 5; x = x + 1; END RETURN x; END",
+                        BigInteger.ONE
+                ),
+                Arguments.of("Return From Loop",
+                        "DEF main() DO LET i = 0; WHILE TRUE DO IF i == 3 DO RETURN i; END i = i + 1; END END",
+                        BigInteger.valueOf(3)
+                ),
+                Arguments.of("For",
+                        "LET sum: Integer = 0; DEF main() DO LET i = 0; FOR (i = 0; i < 5; i = i + 1) sum = sum + i; END RETURN sum; END",
+                        BigInteger.TEN
+                ),
+                Arguments.of("Recursion",
+                        "DEF fib(n: Integer) DO IF n < 2 DO RETURN n; ELSE RETURN fib(n - 1) + fib(n - 2); END END DEF main() DO RETURN fib(15); END",
+                        BigInteger.valueOf(610)
+                ),
+                Arguments.of("Short Circuit",
+                        "DEF main() DO RETURN FALSE && undefined; END",
+                        false
+                ),
+                Arguments.of("Concatenation",
+                        "DEF main() DO RETURN \"a\" + 1; END",
+                        "a1"
+                ),
+                Arguments.of("Division",
+                        "DEF main() DO RETURN 1.2 / 3.4; END",
+                        new BigDecimal("0.4")
+                ),
+                Arguments.of("Division By Zero",
+                        "DEF main() DO RETURN 1 / 0; END",
+                        null
+                ),
+                Arguments.of("Non-Boolean Condition",
+                        "DEF main() DO IF 1 DO RETURN 1; END END",
+                        null
+                )
+        );
+    }
+
+    @Test
+    void testDeepRecursion() {
+        String input = "DEF sum(n: Integer) DO IF n == 0 DO RETURN 0; ELSE RETURN n + sum(n - 1); END END DEF main() DO RETURN sum(100000); END";
+        test(input, BigInteger.valueOf(5000050000L), new Scope(null));
+    }
+
+    @Test
+    void testExternalVariable() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("num", false, Environment.create(BigInteger.ONE));
+        test("DEF main() DO num = num + 1; RETURN num; END", BigInteger.TWO, scope);
+        Assertions.assertEquals(BigInteger.TWO, scope.lookupVariable("num").getValue().getValue());
+    }
+
+    @Test
+    void testExternalFunction() {
+        Scope scope = new Scope(null);
+        scope.defineFunction("double", 1, args -> Environment.create(((BigInteger) args.get(0).getValue()).shiftLeft(1)));
+        test("DEF main() DO RETURN double(21); END", BigInteger.valueOf(42), scope);
+    }
+
+    @Test
+    void testInvoke() {
+        Bytecode program = compile("DEF square(x: Integer) DO RETURN x * x; END");
+        VirtualMachine machine = new VirtualMachine(program, new Scope(null));
+        List<Environment.PlcObject> args = List.of(Environment.create(BigInteger.TEN));
+        Assertions.assertEquals(BigInteger.valueOf(100), machine.invoke("square", args).getValue());
+    }
+
+    @Test
+    void testSerialization() {
+        Bytecode program = compile("LET s: String = \"a\"; DEF main() DO RETURN s + 'b' + 1 + 2.5 + TRUE + NIL; END");
+        ByteBuffer buffer = ByteBuffer.wrap(program.toBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        Bytecode copy = Bytecode.fromBytes(buffer);
+        Assertions.assertEquals(0, buffer.position());
+        Assertions.assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+        Assertions.assertEquals(program.getGlobals(), copy.getGlobals());
+        Assertions.assertEquals("ab12.5truenil", new VirtualMachine(copy, new Scope(null)).run().getValue());
+    }
+
+    private static Bytecode compile(String input) {
+        return new BytecodeCompiler().compile(new Parser(new Lexer(input).lex()).parseSource());
+    }
+
+    private static void test(String input, Object expected, Scope scope) {
+        VirtualMachine machine = new VirtualMachine(compile(input), scope);
+        if (expected != null) {
+            Assertions.assertEquals(expected, machine.run().getValue());
+        } else {
+            Assertions.assertThrows(RuntimeException.class, machine::run);
+        }
+    }
+
+}
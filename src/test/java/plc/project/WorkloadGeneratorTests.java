@@ -0,0 +1,59 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+final class WorkloadGeneratorTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testValid(long seed, int size, boolean portable) {
+        String source = new WorkloadGenerator(seed, size, portable).generate();
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        Assertions.assertDoesNotThrow(() -> new Analyzer(new Scope(null)).visit(ast));
+        Assertions.assertEquals(size + 1, ast.getMethods().size());
+        if(portable){
+            Assertions.assertDoesNotThrow(() -> new Interpreter(new Scope(null), value -> {}).visit(ast));
+        }
+    }
+
+    private static Stream<Arguments> testValid() {
+        return IntStream.range(0, 20).boxed().flatMap(seed -> Stream.of(
+                Arguments.of((long) seed, 1 + seed % 5, true),
+                Arguments.of((long) seed, 10 + seed, false),
+                Arguments.of((long) seed, 40, true)
+        ));
+    }
+
+    @Test
+    void testDeterministic() {
+        Assertions.assertEquals(new WorkloadGenerator(42, 30).generate(), new WorkloadGenerator(42, 30).generate());
+        Assertions.assertNotEquals(new WorkloadGenerator(42, 30).generate(), new WorkloadGenerator(43, 30).generate());
+    }
+
+    @Test
+    void testConstructs() {
+        String source = new WorkloadGenerator(1, 200).generate();
+        for(String construct : new String[] {"LET CONST", ": Decimal", ": Character", ": Boolean", "IF ", "ELSE", "FOR (", "WHILE ", "RETURN ", "print(", ".length", ".slice(", " AND ", " OR ", " / ", " * "}){
+            Assertions.assertTrue(source.contains(construct), construct);
+        }
+        String portable = new WorkloadGenerator(1, 200, true).generate();
+        for(String construct : new String[] {".length", ".slice(", " AND ", " OR "}){
+            Assertions.assertFalse(portable.contains(construct), construct);
+        }
+    }
+
+    @Test
+    void testScaling() {
+        int small = new WorkloadGenerator(3, 10).generate().length();
+        int large = new WorkloadGenerator(3, 1000).generate().length();
+        Assertions.assertTrue(large > 50 * small, small + " " + large);
+    }
+
+}